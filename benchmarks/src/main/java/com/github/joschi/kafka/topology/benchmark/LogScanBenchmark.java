@@ -0,0 +1,74 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.TopologyLogExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the chunked, multi-threaded scan of a log file of roughly 512 MiB in which every 1,000 log lines
+ * contain a topology dump.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogScanBenchmark {
+
+    private static final long LOG_SIZE = 512L << 20;
+    private static final String LOG_LINE =
+            "2025-03-01 12:00:00.000  INFO 1 --- [stream-thread-1] o.a.k.s.p.i.StreamThread : Processed 1000 records\n";
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path logFile;
+    private TopologyLogExtractor extractor;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("topology-benchmark", ".log");
+        String dump = "2025-03-01 12:00:00.000  INFO 1 --- [main] c.e.StreamsApp : " + TopologyTexts.generate(10);
+        try (Writer writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8)) {
+            long written = 0;
+            while (written < LOG_SIZE) {
+                for (int i = 0; i < 1_000; i++) {
+                    writer.write(LOG_LINE);
+                }
+                writer.write(dump);
+                written += 1_000L * LOG_LINE.length() + dump.length();
+            }
+        }
+        extractor = new TopologyLogExtractor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public List<Topology> extract() throws IOException {
+        return extractor.extractParallel(logFile, threads);
+    }
+}
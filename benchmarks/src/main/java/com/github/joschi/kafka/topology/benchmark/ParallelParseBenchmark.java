@@ -0,0 +1,64 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sequential parse of a topology with 2,500 sub-topologies with the fork/join based
+ * parallel parse at different levels of parallelism.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelParseBenchmark {
+
+    private static final int SUBTOPOLOGIES = 2_500;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private String topologyText;
+    private TopologyTextParser parser;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        topologyText = TopologyTexts.generate(SUBTOPOLOGIES);
+        parser = new TopologyTextParser();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Topology parallel() {
+        return parser.parseParallel(topologyText, pool);
+    }
+
+    @Benchmark
+    public Topology sequential() throws IOException {
+        return parser.parse(topologyText);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.ParseMode;
+import com.github.joschi.kafka.topology.parser.SymbolTable;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the retained heap of a parsed fleet of topologies with and without canonicalised names.
+ * <p>
+ * The fleet consists of {@value #APPLICATIONS} applications with {@value #SUBTOPOLOGIES} sub-topologies each.
+ * Like real applications using generated processor names, they share most node, topic and store names.
+ * This is not a JMH benchmark; run it with {@code java -cp benchmarks/target/benchmarks.jar
+ * com.github.joschi.kafka.topology.benchmark.SymbolTableFootprint}.
+ */
+public final class SymbolTableFootprint {
+
+    private static final int APPLICATIONS = 1_000;
+    private static final int SUBTOPOLOGIES = 20;
+
+    private SymbolTableFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> fleet = new ArrayList<>(APPLICATIONS);
+        for (int i = 0; i < APPLICATIONS; i++) {
+            // Distinct String instances, as if read from separate dumps
+            fleet.add(new String(TopologyTexts.generate(SUBTOPOLOGIES).toCharArray()));
+        }
+
+        RegexTopologyTextParser regexParser = new RegexTopologyTextParser();
+        report("regex parser (no canonicalisation)", fleet, regexParser::parse);
+
+        TopologyTextParser perParse = new TopologyTextParser();
+        report("symbol table per parse", fleet, perParse::parse);
+
+        TopologyTextParser shared = new TopologyTextParser(ParseMode.LENIENT, null, new SymbolTable());
+        report("symbol table shared by the fleet", fleet, shared::parse);
+    }
+
+    private static void report(String label, List<String> fleet, Parser parser) throws IOException {
+        long before = usedHeap();
+        List<Topology> topologies = new ArrayList<>(fleet.size());
+        for (String text : fleet) {
+            topologies.add(parser.parse(text));
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%-40s %8.1f MiB retained by %d topologies%n",
+                label, retained / (1024.0 * 1024.0), topologies.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+        Topology parse(String text) throws IOException;
+    }
+}
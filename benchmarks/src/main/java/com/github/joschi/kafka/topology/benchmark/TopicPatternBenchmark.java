@@ -0,0 +1,86 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.converter.TopicPatternResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures resolving topic patterns against a catalog of 50,000 topics.
+ * <ul>
+ *   <li>{@code combined}: {@link TopicPatternResolver#match}, which matches every topic once against a
+ *       single pattern combining all source patterns</li>
+ *   <li>{@code perPattern}: matches every topic against every source pattern on its own</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopicPatternBenchmark {
+
+    private static final int TOPICS = 50_000;
+    private static final String[] DOMAINS = {"orders", "payments", "shipments", "customers", "invoices"};
+
+    @Param({"5", "50", "500"})
+    public int patternCount;
+
+    private List<String> catalog;
+    private List<String> patterns;
+    private TopicPatternResolver resolver;
+
+    @Setup
+    public void setUp() {
+        catalog = new ArrayList<>(TOPICS);
+        for (int i = 0; i < TOPICS; i++) {
+            catalog.add(DOMAINS[i % DOMAINS.length] + "-" + (i % 1000) + ".v" + (i / 1000));
+        }
+        // Typical subscriptions: one domain, one partition of the numbered topics, one version
+        patterns = new ArrayList<>(patternCount);
+        for (int i = 0; i < patternCount; i++) {
+            patterns.add(DOMAINS[i % DOMAINS.length] + "-" + i + "\\.v[0-9]+");
+        }
+        resolver = new TopicPatternResolver(catalog);
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> combined() {
+        return resolver.match(patterns);
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> perPattern() {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        for (String pattern : patterns) {
+            Set<String> target = new LinkedHashSet<>();
+            Matcher matcher = Pattern.compile(pattern).matcher("");
+            for (String topic : catalog) {
+                if (matcher.reset(topic).matches()) {
+                    target.add(topic);
+                }
+            }
+            result.put(pattern, target);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.formatter.MermaidFormatter;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures diffing two versions of a large topology.
+ * <ul>
+ *   <li>{@code diffSmallChange}: the new version writes one sink to another topic</li>
+ *   <li>{@code diffRenumbered}: every generated node and store name of the new version is shifted, as happens
+ *       when an operator is inserted at the start of the topology</li>
+ *   <li>{@code mermaidSmallChange} and {@code mermaidRenumbered}: the same diffs rendered as Mermaid</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologyDiffBenchmark {
+
+    @Param({"500", "5000"})
+    public int subtopologies;
+
+    private Topology before;
+    private Topology smallChange;
+    private Topology renumbered;
+    private MermaidFormatter formatter;
+
+    @Setup
+    public void setUp() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        before = parser.parse(TopologyTexts.generate(subtopologies));
+        // Parsed separately, so that no part is shared with the old version
+        Topology copy = parser.parse(TopologyTexts.generate(subtopologies));
+        int id = subtopologies / 2;
+        TopologyNode sink = copy.getSubtopologies().get(id).getNodes().values().stream()
+                .filter(node -> node.getName().startsWith("KSTREAM-SINK-"))
+                .findFirst()
+                .orElseThrow();
+        smallChange = copy.withNode(id, sink.toBuilder().topics(Set.of("audit")).build());
+        renumbered = parser.parse(TopologyTexts.generate(subtopologies, 1));
+        formatter = new MermaidFormatter();
+    }
+
+    @Benchmark
+    public TopologyDiff diffSmallChange() {
+        return TopologyDiff.between(before, smallChange);
+    }
+
+    @Benchmark
+    public TopologyDiff diffRenumbered() {
+        return TopologyDiff.between(before, renumbered);
+    }
+
+    @Benchmark
+    public String mermaidSmallChange() {
+        return formatter.format(TopologyDiff.between(before, smallChange));
+    }
+
+    @Benchmark
+    public String mermaidRenumbered() {
+        return formatter.format(TopologyDiff.between(before, renumbered));
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hash map lookups keyed by large topologies.
+ * <ul>
+ *   <li>{@code lookupSameInstance}: the key is the cached topology itself</li>
+ *   <li>{@code lookupDerivedVariant}: the key is a variant sharing all but one subtopology with the cached
+ *       topology, as produced by {@code withSubtopology}; equal, but a different instance</li>
+ *   <li>{@code lookupIndependentCopy}: the key is an equal topology parsed separately, so no part of it
+ *       is shared with the cached topology</li>
+ *   <li>{@code missDerivedVariant}: the key is a variant of the cached topology without one node</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologyHashBenchmark {
+
+    @Param({"250", "2500", "25000"})
+    public int subtopologies;
+
+    private Map<Topology, Integer> cache;
+    private Topology cached;
+    private Topology derivedVariant;
+    private Topology independentCopy;
+    private Topology missingVariant;
+
+    @Setup
+    public void setUp() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        String text = TopologyTexts.generate(subtopologies);
+        cached = parser.parse(text);
+        independentCopy = parser.parse(text);
+
+        // Rebuild one subtopology so that the variant is equal to, but not the same as, the cached topology
+        TopologySubtopology last = cached.getSubtopologies().get(subtopologies - 1);
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        for (TopologyNode node : last.getNodes().values()) {
+            nodes.put(node.getName(), node.toBuilder().build());
+        }
+        derivedVariant = cached.withSubtopology(new TopologySubtopology(last.getId(), nodes));
+        missingVariant = cached.withoutNode(nodes.keySet().iterator().next());
+
+        cache = new HashMap<>();
+        cache.put(cached, 1);
+        cache.put(parser.parse(TopologyTexts.generate(subtopologies + 1)), 2);
+        // Compute the hashes of the keys once, as a long-lived key would have done already
+        derivedVariant.hashCode();
+        independentCopy.hashCode();
+        missingVariant.hashCode();
+    }
+
+    @Benchmark
+    public Integer lookupSameInstance() {
+        return cache.get(cached);
+    }
+
+    @Benchmark
+    public Integer lookupDerivedVariant() {
+        return cache.get(derivedVariant);
+    }
+
+    @Benchmark
+    public Integer lookupIndependentCopy() {
+        return cache.get(independentCopy);
+    }
+
+    @Benchmark
+    public Integer missDerivedVariant() {
+        return cache.get(missingVariant);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.formatter.JsonFormatter;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.TopologyJsonParser;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading the JSON representation of a topology with 100,000 nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologyJsonBenchmark {
+
+    // Four nodes per sub-topology
+    private static final int SUBTOPOLOGIES = 25_000;
+
+    private Topology topology;
+    private String json;
+    private JsonFormatter formatter;
+    private TopologyJsonParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        topology = new TopologyTextParser().parse(TopologyTexts.generate(SUBTOPOLOGIES));
+        formatter = new JsonFormatter();
+        parser = new TopologyJsonParser();
+        json = formatter.format(topology);
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(topology);
+    }
+
+    @Benchmark
+    public Topology parse() throws IOException {
+        return parser.parse(json);
+    }
+}
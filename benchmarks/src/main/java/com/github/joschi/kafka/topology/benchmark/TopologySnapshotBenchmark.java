@@ -0,0 +1,59 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.TopologySnapshotReader;
+import com.github.joschi.kafka.topology.parser.TopologySnapshotWriter;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a {@link TopologySnapshotReader binary snapshot} with parsing the text representation of the
+ * same topology, both from bytes in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologySnapshotBenchmark {
+
+    private static final int SUBTOPOLOGIES = 5_000;
+
+    private byte[] text;
+    private byte[] snapshot;
+    private TopologyTextParser parser;
+    private TopologySnapshotReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        String topologyText = TopologyTexts.generate(SUBTOPOLOGIES);
+        text = topologyText.getBytes(StandardCharsets.UTF_8);
+        parser = new TopologyTextParser();
+        reader = new TopologySnapshotReader();
+        snapshot = new TopologySnapshotWriter().toByteArray(parser.parse(topologyText));
+    }
+
+    @Benchmark
+    public Topology parseText() throws IOException {
+        return parser.parse(new String(text, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Topology readSnapshot() throws IOException {
+        return reader.read(snapshot);
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cursor based {@link TopologyTextParser} with the previous regular expression based parser.
+ * <p>
+ * Scores are reported in lines per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopologyTextParserBenchmark {
+
+    private static final int SUBTOPOLOGIES = 5_000;
+    private static final int LINES = 1 + SUBTOPOLOGIES * TopologyTexts.LINES_PER_SUBTOPOLOGY;
+
+    private String topologyText;
+    private TopologyTextParser parser;
+    private RegexTopologyTextParser regexParser;
+
+    @Setup
+    public void setUp() {
+        topologyText = TopologyTexts.generate(SUBTOPOLOGIES);
+        parser = new TopologyTextParser();
+        regexParser = new RegexTopologyTextParser();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public Topology scanner() throws IOException {
+        return parser.parse(topologyText);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public Topology regex() throws IOException {
+        return regexParser.parse(topologyText);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.joschi.kafka.topology.benchmark;
+
+/**
+ * Generates synthetic topology text dumps in the format of {@code TopologyDescription.toString()}.
+ */
+final class TopologyTexts {
+
+    /**
+     * Number of lines emitted per sub-topology by {@link #generate(int)}.
+     */
+    static final int LINES_PER_SUBTOPOLOGY = 11;
+
+    private TopologyTexts() {
+    }
+
+    /**
+     * Generates a topology with the given number of linear sub-topologies
+     * (source, two processors and sink), connected through repartition topics.
+     *
+     * @param subtopologies the number of sub-topologies
+     * @return the topology text with {@code 1 + subtopologies * LINES_PER_SUBTOPOLOGY} lines
+     */
+    static String generate(int subtopologies) {
+        return generate(subtopologies, 0);
+    }
+
+    /**
+     * Generates the topology of {@link #generate(int)} with all generated node and store numbers shifted by
+     * the given offset, as happens when an operator is inserted at the start of a topology.
+     *
+     * @param subtopologies the number of sub-topologies
+     * @param firstNodeId   the number of the first node
+     * @return the topology text with {@code 1 + subtopologies * LINES_PER_SUBTOPOLOGY} lines
+     */
+    static String generate(int subtopologies, int firstNodeId) {
+        StringBuilder sb = new StringBuilder(subtopologies * 700);
+        sb.append("Topologies:\n");
+        for (int i = 0; i < subtopologies; i++) {
+            String source = "KSTREAM-SOURCE-" + id(firstNodeId, i, 0);
+            String filter = "KSTREAM-FILTER-" + id(firstNodeId, i, 1);
+            String aggregate = "KSTREAM-AGGREGATE-" + id(firstNodeId, i, 2);
+            String sink = "KSTREAM-SINK-" + id(firstNodeId, i, 3);
+            String inputTopic = i == 0 ? "input-topic" : "repartition-" + (i - 1);
+
+            sb.append("   Sub-topology: ").append(i).append('\n');
+            sb.append("    Source: ").append(source)
+              .append(" (topics: [").append(inputTopic).append(", shared-input])\n");
+            sb.append("      --> ").append(filter).append('\n');
+            sb.append("    Processor: ").append(filter).append(" (stores: [])\n");
+            sb.append("      --> ").append(aggregate).append('\n');
+            sb.append("      <-- ").append(source).append('\n');
+            sb.append("    Processor: ").append(aggregate)
+              .append(" (stores: [KSTREAM-AGGREGATE-STATE-STORE-").append(id(firstNodeId, i, 2)).append("])\n");
+            sb.append("      --> ").append(sink).append('\n');
+            sb.append("      <-- ").append(filter).append('\n');
+            sb.append("    Sink: ").append(sink).append(" (topic: repartition-").append(i).append(")\n");
+            sb.append("      <-- ").append(aggregate).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String id(int firstNodeId, int subtopology, int node) {
+        return String.format("%010d", firstNodeId + subtopology * 4 + node);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.joschi.kafka.topology.cli;
+
+import com.github.joschi.kafka.topology.converter.TopicPatternResolver;
+import com.github.joschi.kafka.topology.converter.TopologyConverter;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
+import com.github.joschi.kafka.topology.model.TopologyDiff.Change;
+import com.github.joschi.kafka.topology.parser.ParseMode;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares two versions of a topology, either as a list of the added, removed and changed parts or as a
+ * diagram of both versions in which the changes are highlighted.
+ */
+@Command(
+        name = "diff",
+        description = "Show what changed between two versions of a topology",
+        mixinStandardHelpOptions = true,
+        versionProvider = TopologyVisualizerCLI.VersionProvider.class
+)
+class DiffCommand implements Callable<Integer> {
+
+    @Parameters(
+            index = "0",
+            description = "Input file containing the old topology description, optionally gzip compressed (use '-' for stdin)",
+            paramLabel = "BEFORE"
+    )
+    private String beforeFile;
+
+    @Parameters(
+            index = "1",
+            description = "Input file containing the new topology description, optionally gzip compressed (use '-' for stdin)",
+            paramLabel = "AFTER"
+    )
+    private String afterFile;
+
+    @Option(
+            names = {"-f", "--format"},
+            description = "Output format: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})",
+            defaultValue = "SUMMARY"
+    )
+    private DiffFormat format;
+
+    @Option(
+            names = {"-o", "--output"},
+            description = "Output file (default: stdout)",
+            paramLabel = "FILE"
+    )
+    private File outputFile;
+
+    @Option(
+            names = {"--strict"},
+            description = "Fail on malformed or unknown lines instead of skipping them with a warning"
+    )
+    private boolean strict;
+
+    @Option(
+            names = {"--topic-catalog"},
+            description = "File listing all existing topics, one per line, to resolve the topics of pattern-subscribed sources",
+            paramLabel = "FILE"
+    )
+    private File topicCatalog;
+
+    enum DiffFormat {
+        SUMMARY,
+        MERMAID,
+        DOT
+    }
+
+    @Override
+    public Integer call() {
+        try {
+            if ("-".equals(beforeFile) && "-".equals(afterFile)) {
+                throw new IllegalArgumentException("Only one of BEFORE and AFTER can be read from stdin");
+            }
+            TopologyTextParser parser = new TopologyTextParser(strict ? ParseMode.STRICT : ParseMode.LENIENT,
+                    strict ? null : diagnostic -> System.err.println("Warning: " + diagnostic));
+            Topology before = readTopology(parser, beforeFile);
+            Topology after = readTopology(parser, afterFile);
+
+            if (topicCatalog != null) {
+                TopicPatternResolver resolver = TopicPatternResolver.fromFile(topicCatalog.toPath());
+                before = resolver.resolve(before);
+                after = resolver.resolve(after);
+            }
+
+            String output = format == DiffFormat.SUMMARY
+                    ? summarize(TopologyDiff.between(before, after))
+                    : new TopologyConverter(parser).formatDiff(before, after, format.name().toLowerCase());
+
+            if (outputFile == null) {
+                System.out.println(output);
+            } else {
+                try (FileWriter writer = new FileWriter(outputFile, StandardCharsets.UTF_8)) {
+                    writer.write(output);
+                }
+                System.err.println("Output written to: " + outputFile.getAbsolutePath());
+            }
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (Exception e) {
+            System.err.println("Unexpected error: " + e.getMessage());
+            e.printStackTrace(System.err);
+            return 2;
+        }
+    }
+
+    private static Topology readTopology(TopologyTextParser parser, String inputFile) throws IOException {
+        if ("-".equals(inputFile)) {
+            return parser.parse(System.in, StandardCharsets.UTF_8);
+        }
+        return parser.parse(TopologyVisualizerCLI.readableInputFile(inputFile).toPath());
+    }
+
+    /**
+     * Lists the changes section by section, marking added parts with {@code +}, removed ones with {@code -}
+     * and changed ones with {@code ~}.
+     */
+    private static String summarize(TopologyDiff diff) {
+        if (diff.isEmpty()) {
+            return "No differences";
+        }
+        StringBuilder sb = new StringBuilder();
+        StringBuilder subtopologies = new StringBuilder();
+        appendIds(subtopologies, "+ ", diff.getAddedSubtopologies());
+        appendIds(subtopologies, "- ", diff.getRemovedSubtopologies());
+        for (Map.Entry<Integer, Integer> match : diff.getSubtopologyMatches().entrySet()) {
+            boolean changed = diff.getChangedSubtopologies().contains(match.getValue());
+            if (changed || !match.getKey().equals(match.getValue())) {
+                subtopologies.append("  ").append(changed ? "~ " : "  ").append(match.getValue());
+                if (!match.getKey().equals(match.getValue())) {
+                    subtopologies.append(" (was ").append(match.getKey()).append(')');
+                }
+                subtopologies.append('\n');
+            }
+        }
+        appendSection(sb, "Sub-topologies", subtopologies);
+
+        StringBuilder renamed = new StringBuilder();
+        diff.getRenamedNodes().forEach((oldName, newName) ->
+                renamed.append("    ").append(oldName).append(" -> ").append(newName).append('\n'));
+        appendSection(sb, "Renamed nodes", renamed);
+
+        appendSection(sb, "Nodes", changes(diff.getNodeChanges()));
+        appendSection(sb, "Edges", changes(diff.getEdgeChanges()));
+        appendSection(sb, "Topics", changes(diff.getTopicChanges()));
+        appendSection(sb, "State stores", changes(diff.getStoreChanges()));
+        // The output is printed with a line break of its own
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    private static void appendIds(StringBuilder sb, String marker, Set<Integer> ids) {
+        for (int id : ids) {
+            sb.append("  ").append(marker).append(id).append('\n');
+        }
+    }
+
+    private static StringBuilder changes(Map<?, Change> changes) {
+        StringBuilder sb = new StringBuilder();
+        changes.forEach((item, change) -> sb.append("  ").append(switch (change) {
+            case ADDED -> "+ ";
+            case REMOVED -> "- ";
+            case CHANGED -> "~ ";
+        }).append(item).append('\n'));
+        return sb;
+    }
+
+    private static void appendSection(StringBuilder sb, String title, StringBuilder lines) {
+        if (lines.length() > 0) {
+            sb.append(title).append(":\n").append(lines);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.joschi.kafka.topology.cli;
+
+import com.github.joschi.kafka.topology.converter.TopicPatternResolver;
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyGraph;
+import com.github.joschi.kafka.topology.model.TopologyLineage;
+import com.github.joschi.kafka.topology.parser.ParseMode;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Answers lineage questions about a topology, e.g. which sinks and output topics are downstream of an input
+ * topic and which state stores are touched on the way.
+ */
+@Command(
+        name = "lineage",
+        description = "Show what a topic, node or state store feeds or is fed by, or how data flows between two of them",
+        mixinStandardHelpOptions = true,
+        versionProvider = TopologyVisualizerCLI.VersionProvider.class
+)
+class LineageCommand implements Callable<Integer> {
+
+    private static final NodeType[] SECTION_ORDER = {
+            NodeType.SOURCE, NodeType.PROCESSOR, NodeType.SINK,
+            NodeType.TOPIC, NodeType.STATE_STORE, NodeType.GLOBAL_STORE
+    };
+
+    @Parameters(
+            index = "0",
+            description = "Input file containing topology description, optionally gzip compressed (use '-' for stdin)",
+            paramLabel = "INPUT"
+    )
+    private String inputFile;
+
+    @ArgGroup(exclusive = true, multiplicity = "1")
+    private Start start;
+
+    @Option(
+            names = {"--upstream"},
+            description = "Show what feeds the start instead of what it feeds"
+    )
+    private boolean upstream;
+
+    @Option(
+            names = {"--to"},
+            description = "Show a shortest path from the start to the topic, node or state store with this name",
+            paramLabel = "NAME"
+    )
+    private String target;
+
+    @Option(
+            names = {"--strict"},
+            description = "Fail on malformed or unknown lines instead of skipping them with a warning"
+    )
+    private boolean strict;
+
+    @Option(
+            names = {"--topic-catalog"},
+            description = "File listing all existing topics, one per line, to resolve the topics of pattern-subscribed sources",
+            paramLabel = "FILE"
+    )
+    private File topicCatalog;
+
+    static final class Start {
+        @Option(names = {"--topic"}, description = "Start at the topic with this name", paramLabel = "NAME")
+        String topic;
+
+        @Option(names = {"--node"}, description = "Start at the node or global store with this name", paramLabel = "NAME")
+        String node;
+
+        @Option(names = {"--store"}, description = "Start at the state store with this name", paramLabel = "NAME")
+        String store;
+    }
+
+    @Override
+    public Integer call() {
+        try {
+            Topology topology = readTopology();
+            TopologyLineage lineage = topology.lineage();
+            TopologyGraph graph = topology.graph();
+
+            int from = resolveStart(lineage);
+            if (target != null) {
+                int to = resolveTarget(lineage, target);
+                int[] path = lineage.path(from, to);
+                if (path.length == 0) {
+                    System.out.println("No path from " + describe(graph, from) + " to " + describe(graph, to));
+                    return 0;
+                }
+                System.out.println("Path from " + describe(graph, from) + " to " + describe(graph, to) + ":");
+                for (int node : path) {
+                    System.out.println("  " + describe(graph, node));
+                }
+                return 0;
+            }
+
+            BitSet nodes = upstream ? lineage.upstream(from) : lineage.downstream(from);
+            System.out.println((upstream ? "Upstream of " : "Downstream of ") + describe(graph, from) + ":");
+            if (nodes.isEmpty()) {
+                System.out.println("  (nothing)");
+            }
+            for (NodeType type : SECTION_ORDER) {
+                List<String> names = new ArrayList<>();
+                for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+                    if (graph.type(node) == type) {
+                        names.add(graph.name(node));
+                    }
+                }
+                if (!names.isEmpty()) {
+                    System.out.println("  " + sectionTitle(type) + ":");
+                    for (String name : names) {
+                        System.out.println("    " + name);
+                    }
+                }
+            }
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (Exception e) {
+            System.err.println("Unexpected error: " + e.getMessage());
+            e.printStackTrace(System.err);
+            return 2;
+        }
+    }
+
+    private Topology readTopology() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser(strict ? ParseMode.STRICT : ParseMode.LENIENT,
+                strict ? null : diagnostic -> System.err.println("Warning: " + diagnostic));
+        Topology topology;
+        if ("-".equals(inputFile)) {
+            topology = parser.parse(System.in, StandardCharsets.UTF_8);
+        } else {
+            topology = parser.parse(TopologyVisualizerCLI.readableInputFile(inputFile).toPath());
+        }
+        if (topicCatalog != null) {
+            topology = TopicPatternResolver.fromFile(topicCatalog.toPath()).resolve(topology);
+        }
+        return topology;
+    }
+
+    private int resolveStart(TopologyLineage lineage) {
+        if (start.topic != null) {
+            return require(lineage.topic(start.topic), "topic", start.topic);
+        }
+        if (start.node != null) {
+            return require(lineage.node(start.node), "node", start.node);
+        }
+        return require(lineage.store(start.store), "state store", start.store);
+    }
+
+    private static int resolveTarget(TopologyLineage lineage, String name) {
+        int node = lineage.topic(name);
+        if (node < 0) {
+            node = lineage.node(name);
+        }
+        if (node < 0) {
+            node = lineage.store(name);
+        }
+        return require(node, "topic, node or state store", name);
+    }
+
+    private static int require(int node, String kind, String name) {
+        if (node < 0) {
+            throw new IllegalArgumentException("Unknown " + kind + ": " + name);
+        }
+        return node;
+    }
+
+    private static String describe(TopologyGraph graph, int node) {
+        return switch (graph.type(node)) {
+            case TOPIC -> "topic " + graph.name(node);
+            case STATE_STORE -> "state store " + graph.name(node);
+            case GLOBAL_STORE -> "global store " + graph.name(node);
+            default -> graph.name(node) + " (sub-topology " + graph.subtopologyId(graph.subtopologyOf(node)) + ")";
+        };
+    }
+
+    private static String sectionTitle(NodeType type) {
+        return switch (type) {
+            case SOURCE -> "Sources";
+            case PROCESSOR -> "Processors";
+            case SINK -> "Sinks";
+            case TOPIC -> "Topics";
+            case STATE_STORE -> "State stores";
+            case GLOBAL_STORE -> "Global stores";
+        };
+    }
+}
@@ -1,20 +1,23 @@
 package com.github.joschi.kafka.topology.cli;
 
+import com.github.joschi.kafka.topology.converter.TopicPatternResolver;
 import com.github.joschi.kafka.topology.converter.TopologyConverter;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.ParseMode;
+import com.github.joschi.kafka.topology.parser.TopologyLogExtractor;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
@@ -25,15 +28,18 @@ import java.util.jar.Manifest;
  */
 @Command(
         name = "kafka-streams-topology-viz",
-        description = "Convert Kafka Streams topology to visualization formats (Mermaid, GraphViz DOT)",
+        description = "Convert Kafka Streams topology to visualization formats (Mermaid, GraphViz DOT) or JSON",
         mixinStandardHelpOptions = true,
-        versionProvider = TopologyVisualizerCLI.VersionProvider.class
+        versionProvider = TopologyVisualizerCLI.VersionProvider.class,
+        subcommands = {LineageCommand.class, DiffCommand.class}
 )
 public class TopologyVisualizerCLI implements Callable<Integer> {
 
+    // Optional for picocli so that subcommands can be used without it; required when converting
     @Parameters(
             index = "0",
-            description = "Input file containing topology description (use '-' for stdin)",
+            arity = "0..1",
+            description = "Input file containing topology description, optionally gzip compressed (use '-' for stdin)",
             paramLabel = "INPUT"
     )
     private String inputFile;
@@ -58,10 +64,50 @@ public class TopologyVisualizerCLI implements Callable<Integer> {
     )
     private boolean listFormats;
 
-    private final TopologyConverter converter;
+    @Option(
+            names = {"--mmap"},
+            description = "Memory-map the input file instead of streaming it (recommended for very large files)"
+    )
+    private boolean memoryMapped;
+
+    @Option(
+            names = {"--logs"},
+            description = "Treat the input as an application log and convert every topology dump found in it"
+    )
+    private boolean logs;
+
+    @Option(
+            names = {"--threads"},
+            description = "Number of threads for scanning a log file given with --logs (default: ${DEFAULT-VALUE})",
+            defaultValue = "1",
+            paramLabel = "N"
+    )
+    private int threads;
+
+    @Option(
+            names = {"--strict"},
+            description = "Fail on malformed or unknown lines instead of skipping them with a warning"
+    )
+    private boolean strict;
+
+    @Option(
+            names = {"--topic-catalog"},
+            description = "File listing all existing topics, one per line, to resolve the topics of pattern-subscribed sources",
+            paramLabel = "FILE"
+    )
+    private File topicCatalog;
+
+    @Option(
+            names = {"--fingerprint"},
+            description = "Print the content fingerprint of the topology instead of converting it"
+    )
+    private boolean fingerprint;
+
+    private TopologyTextParser parser;
+    private TopicPatternResolver topicPatternResolver;
+    private TopologyConverter converter;
 
     public TopologyVisualizerCLI() {
-        this.converter = new TopologyConverter();
     }
 
     // Constructor for testing
@@ -72,6 +118,17 @@ public class TopologyVisualizerCLI implements Callable<Integer> {
     @Override
     public Integer call() {
         try {
+            // Problems in the input are printed as warnings in lenient mode and fail the conversion in strict mode
+            parser = new TopologyTextParser(strict ? ParseMode.STRICT : ParseMode.LENIENT,
+                    strict ? null : diagnostic -> System.err.println("Warning: " + diagnostic));
+            if (converter == null) {
+                converter = new TopologyConverter(parser);
+            }
+            if (topicCatalog != null) {
+                topicPatternResolver = TopicPatternResolver.fromFile(topicCatalog.toPath());
+                converter.resolveTopicPatterns(topicPatternResolver);
+            }
+
             if (listFormats) {
                 System.out.println("Available output formats:");
                 for (String format : converter.getAvailableFormats()) {
@@ -80,11 +137,15 @@ public class TopologyVisualizerCLI implements Callable<Integer> {
                 return 0;
             }
 
-            // Read input
-            String topologyText = readInput();
+            if (inputFile == null) {
+                throw new IllegalArgumentException("Missing required parameter: 'INPUT'");
+            }
+            if (threads > 1 && !logs) {
+                throw new IllegalArgumentException("--threads requires --logs, only log files are scanned in parallel");
+            }
 
-            // Convert
-            String output = converter.convertFromText(topologyText, format.name().toLowerCase());
+            // Read and convert input
+            String output = fingerprint ? fingerprintInput() : convertInput(format.name().toLowerCase());
 
             // Write output
             writeOutput(output);
@@ -103,38 +164,93 @@ public class TopologyVisualizerCLI implements Callable<Integer> {
         }
     }
 
-    private String readInput() throws IOException {
-        StringBuilder sb = new StringBuilder();
-
+    private String convertInput(String formatName) throws IOException {
         if ("-".equals(inputFile)) {
             // Read from stdin
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line).append("\n");
-                }
+            checkStdinOptions();
+            if (logs) {
+                return formatTopologies(new TopologyLogExtractor(parser).extract(System.in, StandardCharsets.UTF_8), formatName);
             }
+            return converter.convertFromText(System.in, StandardCharsets.UTF_8, formatName);
+        }
+
+        // Read from file
+        File file = readableInputFile(inputFile);
+        if (logs) {
+            // Log files are always scanned memory-mapped, most of their content is skipped anyway
+            return formatTopologies(new TopologyLogExtractor(parser).extractParallel(file.toPath(), threads), formatName);
+        }
+        if (memoryMapped) {
+            return converter.convertFromMappedFile(file.toPath(), formatName);
+        }
+        return converter.convertFromText(file.toPath(), formatName);
+    }
+
+    private String fingerprintInput() throws IOException {
+        List<Topology> topologies;
+        if ("-".equals(inputFile)) {
+            checkStdinOptions();
+            topologies = logs
+                    ? new TopologyLogExtractor(parser).extract(System.in, StandardCharsets.UTF_8)
+                    : List.of(parser.parse(System.in, StandardCharsets.UTF_8));
         } else {
-            // Read from file
-            File file = new File(inputFile);
-            if (!file.exists()) {
-                throw new IOException("Input file does not exist: " + inputFile);
+            File file = readableInputFile(inputFile);
+            if (logs) {
+                topologies = new TopologyLogExtractor(parser).extractParallel(file.toPath(), threads);
+            } else {
+                topologies = List.of(memoryMapped ? parser.parseMapped(file.toPath()) : parser.parse(file.toPath()));
             }
-            if (!file.canRead()) {
-                throw new IOException("Cannot read input file: " + inputFile);
+        }
+        if (topologies.isEmpty()) {
+            throw new IOException("No topology found in log input: " + inputFile);
+        }
+        // One line per topology, in input order
+        StringBuilder output = new StringBuilder();
+        for (Topology topology : topologies) {
+            if (output.length() > 0) {
+                output.append('\n');
             }
+            Topology resolved = topicPatternResolver != null ? topicPatternResolver.resolve(topology) : topology;
+            output.append(resolved.fingerprint());
+        }
+        return output.toString();
+    }
 
-            try (BufferedReader reader = new BufferedReader(
-                    new FileReader(file, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line).append("\n");
-                }
-            }
+    private void checkStdinOptions() {
+        if (memoryMapped) {
+            throw new IllegalArgumentException("--mmap requires an input file, stdin cannot be memory-mapped");
+        }
+        if (logs && threads > 1) {
+            throw new IllegalArgumentException("--threads requires an input file, stdin cannot be split");
+        }
+    }
+
+    /**
+     * Returns the input file, failing with a message naming it if it does not exist or cannot be read.
+     */
+    static File readableInputFile(String inputFile) throws IOException {
+        File file = new File(inputFile);
+        if (!file.exists()) {
+            throw new IOException("Input file does not exist: " + inputFile);
+        }
+        if (!file.canRead()) {
+            throw new IOException("Cannot read input file: " + inputFile);
         }
+        return file;
+    }
 
-        return sb.toString();
+    private String formatTopologies(List<Topology> topologies, String formatName) throws IOException {
+        if (topologies.isEmpty()) {
+            throw new IOException("No topology found in log input: " + inputFile);
+        }
+        StringBuilder output = new StringBuilder();
+        for (Topology topology : topologies) {
+            if (output.length() > 0) {
+                output.append('\n');
+            }
+            output.append(converter.formatTopology(topology, formatName));
+        }
+        return output.toString();
     }
 
     private void writeOutput(String output) throws IOException {
@@ -157,7 +273,8 @@ public class TopologyVisualizerCLI implements Callable<Integer> {
 
     enum OutputFormat {
         MERMAID,
-        DOT
+        DOT,
+        JSON
     }
 
     static final class VersionProvider implements CommandLine.IVersionProvider {
@@ -0,0 +1,195 @@
+package com.github.joschi.kafka.topology.converter;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the topics of sources subscribed with a topic pattern against a catalog of existing topics.
+ * <p>
+ * All patterns of a topology are compiled into a single combined pattern with one optional lookahead per
+ * source pattern, {@code (?:(?=(?:p)\z)())?}, each followed by an empty marker group. Matching a topic name
+ * once against the combined pattern tells through the marker groups which of the source patterns match it,
+ * so the catalog is scanned in a single pass. Every lookahead is still evaluated against every topic though,
+ * so the matching work grows with the number of topics times the number of patterns.
+ * <p>
+ * Patterns which cannot be embedded are matched separately: those with numbered back-references or named
+ * groups, since their group numbers would shift or their group names could clash with those of other
+ * patterns, and those which do not compile once wrapped, such as a pattern ending in a comment in comments
+ * mode or in an unterminated quote.
+ */
+public class TopicPatternResolver {
+
+    // Numbered back-references, or named groups "(?<name>...)" as opposed to lookbehinds "(?<=" and "(?<!"
+    private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9]|\\(\\?<[a-zA-Z]");
+
+    private final List<String> catalog;
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param catalog the names of all existing topics
+     */
+    public TopicPatternResolver(Collection<String> catalog) {
+        this.catalog = List.copyOf(catalog);
+    }
+
+    /**
+     * Creates a resolver for a UTF-8 encoded topic list file, containing one topic name per line.
+     * Blank lines and lines starting with {@code #} are ignored.
+     *
+     * @param path the path of the topic list file
+     * @return a new resolver
+     * @throws IOException if the file cannot be read
+     */
+    public static TopicPatternResolver fromFile(Path path) throws IOException {
+        try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return new TopicPatternResolver(lines
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList());
+        }
+    }
+
+    /**
+     * Returns a copy of the topology in which every source subscribed with a topic pattern has the matching
+     * catalog topics as its topics. The resolved topics are thereby also part of {@link Topology#getTopics()}.
+     *
+     * @param topology the topology to resolve
+     * @return the resolved topology, or the given topology if it has no pattern sources
+     */
+    public Topology resolve(Topology topology) {
+        Set<String> patterns = new LinkedHashSet<>();
+        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+            for (TopologyNode node : subtopology.getNodes().values()) {
+                if (node.getTopicPattern() != null) {
+                    patterns.add(node.getTopicPattern());
+                }
+            }
+        }
+        for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+            if (globalStore.getTopicPattern() != null) {
+                patterns.add(globalStore.getTopicPattern());
+            }
+        }
+        if (patterns.isEmpty()) {
+            return topology;
+        }
+
+        Map<String, Set<String>> resolved = match(patterns);
+        Topology.Builder builder = Topology.builder();
+        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+            builder.addSubtopology(resolve(subtopology, resolved));
+        }
+        for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+            builder.addGlobalStore(resolve(globalStore, resolved));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Matches the catalog against the given patterns.
+     *
+     * @param patterns the regular expressions, matched against complete topic names
+     * @return the matching topics of every pattern, in catalog order
+     */
+    public Map<String, Set<String>> match(Collection<String> patterns) {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        List<String> combinable = new ArrayList<>();
+        List<Pattern> separate = new ArrayList<>();
+        List<String> pieces = new ArrayList<>();
+        int[] markerGroups = new int[patterns.size()];
+        int groups = 0;
+        for (String pattern : patterns) {
+            result.put(pattern, new LinkedHashSet<>());
+            // Compiling the pattern on its own validates it
+            Pattern compiled = Pattern.compile(pattern);
+            String piece = NOT_COMBINABLE.matcher(pattern).find() ? null : wrap(pattern);
+            if (piece == null) {
+                separate.add(compiled);
+            } else {
+                // The piece brings along the groups of the pattern, followed by its marker group
+                groups += compiled.matcher("").groupCount() + 1;
+                markerGroups[combinable.size()] = groups;
+                combinable.add(pattern);
+                pieces.add(piece);
+            }
+        }
+
+        if (!combinable.isEmpty()) {
+            Matcher matcher = Pattern.compile(String.join("", pieces)).matcher("");
+            List<Set<String>> targets = combinable.stream().map(result::get).toList();
+            for (String topic : catalog) {
+                // The combined pattern consists of optional groups only and always matches
+                matcher.reset(topic).lookingAt();
+                for (int i = 0; i < combinable.size(); i++) {
+                    if (matcher.start(markerGroups[i]) >= 0) {
+                        targets.get(i).add(topic);
+                    }
+                }
+            }
+        }
+
+        for (Pattern pattern : separate) {
+            Set<String> target = result.get(pattern.pattern());
+            Matcher matcher = pattern.matcher("");
+            for (String topic : catalog) {
+                if (matcher.reset(topic).matches()) {
+                    target.add(topic);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wraps the pattern into an optional lookahead followed by its marker group, or returns {@code null} if
+     * the wrapped pattern does not compile on its own. This happens if the pattern does not end cleanly, such
+     * as a comment in comments mode or an unterminated {@code \\Q} quote swallowing the rest of the wrapper.
+     */
+    private static String wrap(String pattern) {
+        String piece = "(?:(?=(?:" + pattern + ")\\z)())?";
+        try {
+            Pattern.compile(piece);
+            return piece;
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    private static TopologySubtopology resolve(TopologySubtopology subtopology, Map<String, Set<String>> resolved) {
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        boolean changed = false;
+        for (TopologyNode node : subtopology.getNodes().values()) {
+            TopologyNode resolvedNode = resolve(node, resolved);
+            changed |= resolvedNode != node;
+            nodes.put(resolvedNode.getName(), resolvedNode);
+        }
+        return changed ? new TopologySubtopology(subtopology.getId(), nodes) : subtopology;
+    }
+
+    private static TopologyNode resolve(TopologyNode node, Map<String, Set<String>> resolved) {
+        if (node.getTopicPattern() == null) {
+            return node;
+        }
+        Set<String> topics = new LinkedHashSet<>(node.getTopics());
+        topics.addAll(resolved.get(node.getTopicPattern()));
+        return node.toBuilder().topics(topics).build();
+    }
+}
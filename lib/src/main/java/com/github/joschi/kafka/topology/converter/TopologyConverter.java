@@ -1,13 +1,20 @@
 package com.github.joschi.kafka.topology.converter;
 
 import com.github.joschi.kafka.topology.formatter.DotFormatter;
+import com.github.joschi.kafka.topology.formatter.JsonFormatter;
 import com.github.joschi.kafka.topology.formatter.MermaidFormatter;
+import com.github.joschi.kafka.topology.formatter.TopologyDiffFormatter;
 import com.github.joschi.kafka.topology.formatter.TopologyFormatter;
 import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
 import com.github.joschi.kafka.topology.parser.TopologyTextParser;
 import org.apache.kafka.streams.TopologyDescription;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -21,18 +28,41 @@ public class TopologyConverter {
     private final Map<String, TopologyFormatter> formatters;
     private final TopologyDescriptionConverter descriptionConverter;
     private final TopologyTextParser textParser;
+    private TopicPatternResolver topicPatternResolver;
 
     /**
-     * Creates a new TopologyConverter with default formatters (Mermaid and DOT).
+     * Creates a new TopologyConverter with default formatters (Mermaid, DOT and JSON).
      */
     public TopologyConverter() {
+        this(new TopologyTextParser());
+    }
+
+    /**
+     * Creates a new TopologyConverter with default formatters (Mermaid, DOT and JSON), parsing text representations
+     * with the given parser, e.g. one in strict mode or with a diagnostics collector.
+     *
+     * @param textParser the parser for text representations
+     */
+    public TopologyConverter(TopologyTextParser textParser) {
+        this(textParser, new TopologyDescriptionConverter());
+    }
+
+    /**
+     * Creates a new TopologyConverter with default formatters (Mermaid, DOT and JSON) and the given parser and
+     * description converter, e.g. sharing a {@link com.github.joschi.kafka.topology.parser.SymbolTable}.
+     *
+     * @param textParser           the parser for text representations
+     * @param descriptionConverter the converter for TopologyDescriptions
+     */
+    public TopologyConverter(TopologyTextParser textParser, TopologyDescriptionConverter descriptionConverter) {
         this.formatters = new HashMap<>();
-        this.descriptionConverter = new TopologyDescriptionConverter();
-        this.textParser = new TopologyTextParser();
+        this.descriptionConverter = descriptionConverter;
+        this.textParser = textParser;
 
         // Register default formatters
         registerFormatter(new MermaidFormatter());
         registerFormatter(new DotFormatter());
+        registerFormatter(new JsonFormatter());
     }
 
     /**
@@ -46,6 +76,17 @@ public class TopologyConverter {
         return this;
     }
 
+    /**
+     * Resolves the topics of pattern-subscribed sources with the given resolver before formatting.
+     *
+     * @param resolver the resolver, or {@code null} to leave topic patterns unresolved
+     * @return this TopologyConverter for method chaining
+     */
+    public TopologyConverter resolveTopicPatterns(TopicPatternResolver resolver) {
+        this.topicPatternResolver = resolver;
+        return this;
+    }
+
     /**
      * Gets a list of available output formats.
      *
@@ -82,6 +123,69 @@ public class TopologyConverter {
         return formatTopology(topology, format);
     }
 
+    /**
+     * Converts a topology text representation read from a reader to the specified output format.
+     * The reader is consumed incrementally and not closed.
+     *
+     * @param reader the reader providing the text representation of the topology
+     * @param format the output format (e.g., "mermaid", "dot")
+     * @return the formatted output string
+     * @throws IOException if reading or parsing fails
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public String convertFromText(Reader reader, String format) throws IOException {
+        Topology topology = textParser.parse(reader);
+        return formatTopology(topology, format);
+    }
+
+    /**
+     * Converts a topology text representation read from an input stream to the specified output format.
+     * The input stream is consumed incrementally and not closed. Gzip compressed input is detected and
+     * decompressed on the fly.
+     *
+     * @param inputStream the input stream providing the text representation of the topology
+     * @param charset the charset of the input
+     * @param format the output format (e.g., "mermaid", "dot")
+     * @return the formatted output string
+     * @throws IOException if reading or parsing fails
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public String convertFromText(InputStream inputStream, Charset charset, String format) throws IOException {
+        Topology topology = textParser.parse(inputStream, charset);
+        return formatTopology(topology, format);
+    }
+
+    /**
+     * Converts a UTF-8 encoded file containing a topology text representation to the specified output format.
+     * The file may be gzip compressed.
+     *
+     * @param path the path of the file
+     * @param format the output format (e.g., "mermaid", "dot")
+     * @return the formatted output string
+     * @throws IOException if reading or parsing fails
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public String convertFromText(Path path, String format) throws IOException {
+        Topology topology = textParser.parse(path);
+        return formatTopology(topology, format);
+    }
+
+    /**
+     * Converts a UTF-8 encoded file containing a topology text representation to the specified output format,
+     * memory-mapping the file instead of reading it through a stream.
+     *
+     * @param path the path of the file
+     * @param format the output format (e.g., "mermaid", "dot")
+     * @return the formatted output string
+     * @throws IOException if mapping or parsing the file fails
+     * @throws IllegalArgumentException if the format is not supported
+     * @see TopologyTextParser#parseMapped(Path)
+     */
+    public String convertFromMappedFile(Path path, String format) throws IOException {
+        Topology topology = textParser.parseMapped(path);
+        return formatTopology(topology, format);
+    }
+
     /**
      * Converts a TopologyDescription to Mermaid format.
      *
@@ -146,7 +250,8 @@ public class TopologyConverter {
     }
 
     /**
-     * Formats a Topology model to the specified format.
+     * Formats a Topology model to the specified format, resolving topic patterns first if a
+     * {@link #resolveTopicPatterns(TopicPatternResolver) resolver} is set.
      *
      * @param topology the Topology model
      * @param format the output format
@@ -154,12 +259,42 @@ public class TopologyConverter {
      * @throws IllegalArgumentException if the format is not supported
      */
     public String formatTopology(Topology topology, String format) {
+        TopologyFormatter formatter = getFormatter(format);
+        if (topicPatternResolver != null) {
+            topology = topicPatternResolver.resolve(topology);
+        }
+        return formatter.format(topology);
+    }
+
+    /**
+     * Formats the {@link TopologyDiff difference} between two topologies to the specified format, resolving
+     * topic patterns in both first if a {@link #resolveTopicPatterns(TopicPatternResolver) resolver} is set.
+     *
+     * @param before the old topology
+     * @param after the new topology
+     * @param format the output format, which must support diffs (e.g., "mermaid", "dot")
+     * @return the formatted output string
+     * @throws IllegalArgumentException if the format is not supported or cannot draw diffs
+     */
+    public String formatDiff(Topology before, Topology after, String format) {
+        TopologyFormatter formatter = getFormatter(format);
+        if (!(formatter instanceof TopologyDiffFormatter)) {
+            throw new IllegalArgumentException("Format does not support diffs: " + format);
+        }
+        if (topicPatternResolver != null) {
+            before = topicPatternResolver.resolve(before);
+            after = topicPatternResolver.resolve(after);
+        }
+        return ((TopologyDiffFormatter) formatter).format(TopologyDiff.between(before, after));
+    }
+
+    private TopologyFormatter getFormatter(String format) {
         TopologyFormatter formatter = formatters.get(format.toLowerCase());
         if (formatter == null) {
             throw new IllegalArgumentException(
                 "Unsupported format: " + format + ". Available formats: " + formatters.keySet()
             );
         }
-        return formatter.format(topology);
+        return formatter;
     }
 }
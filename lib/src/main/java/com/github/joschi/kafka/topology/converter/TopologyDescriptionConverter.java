@@ -4,18 +4,41 @@ import com.github.joschi.kafka.topology.model.NodeType;
 import com.github.joschi.kafka.topology.model.Topology;
 import com.github.joschi.kafka.topology.model.TopologyNode;
 import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import com.github.joschi.kafka.topology.parser.SymbolTable;
 import org.apache.kafka.streams.TopologyDescription;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Converts Kafka Streams {@link TopologyDescription} to internal {@link Topology} model.
  */
 public class TopologyDescriptionConverter {
 
+    private final SymbolTable symbols;
+
+    /**
+     * Creates a new converter which canonicalises names within each converted topology.
+     */
+    public TopologyDescriptionConverter() {
+        this(null);
+    }
+
+    /**
+     * Creates a new converter canonicalising all node, topic and store names through the given symbol table,
+     * which may be shared with other converters and parsers.
+     *
+     * @param symbols the symbol table to share, or {@code null} to use a new table for every conversion
+     */
+    public TopologyDescriptionConverter(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
     /**
      * Converts a TopologyDescription to the internal Topology model.
      *
@@ -23,82 +46,96 @@ public class TopologyDescriptionConverter {
      * @return the converted Topology
      */
     public Topology convert(TopologyDescription description) {
+        SymbolTable names = symbols != null ? symbols : new SymbolTable();
         Topology.Builder builder = Topology.builder();
 
         // Convert subtopologies
         for (TopologyDescription.Subtopology subtopology : description.subtopologies()) {
-            TopologySubtopology convertedSubtopology = convertSubtopology(subtopology);
+            TopologySubtopology convertedSubtopology = convertSubtopology(subtopology, names);
             builder.addSubtopology(convertedSubtopology);
         }
 
         // Convert global stores
         for (TopologyDescription.GlobalStore globalStore : description.globalStores()) {
-            TopologyNode convertedGlobalStore = convertGlobalStore(globalStore);
+            TopologyNode convertedGlobalStore = convertGlobalStore(globalStore, names);
             builder.addGlobalStore(convertedGlobalStore);
         }
 
         return builder.build();
     }
 
-    private TopologySubtopology convertSubtopology(TopologyDescription.Subtopology subtopology) {
+    private TopologySubtopology convertSubtopology(TopologyDescription.Subtopology subtopology, SymbolTable names) {
         Map<String, TopologyNode> nodes = new LinkedHashMap<>();
 
         for (TopologyDescription.Node node : subtopology.nodes()) {
-            TopologyNode convertedNode = convertNode(node);
+            TopologyNode convertedNode = convertNode(node, names);
             nodes.put(convertedNode.getName(), convertedNode);
         }
 
         return new TopologySubtopology(subtopology.id(), nodes);
     }
 
-    private TopologyNode convertNode(TopologyDescription.Node node) {
+    private TopologyNode convertNode(TopologyDescription.Node node, SymbolTable names) {
         NodeType type = determineNodeType(node);
-        Set<String> predecessorNames = node.predecessors().stream()
-                .map(TopologyDescription.Node::name)
-                .collect(Collectors.toSet());
-        Set<String> successorNames = node.successors().stream()
-                .map(TopologyDescription.Node::name)
-                .collect(Collectors.toSet());
-
-        TopologyNode.Builder builder = TopologyNode.builder(node.name(), type)
+        Set<String> predecessorNames = new LinkedHashSet<>();
+        for (TopologyDescription.Node predecessor : node.predecessors()) {
+            predecessorNames.add(names.intern(predecessor.name()));
+        }
+        Set<String> successorNames = new LinkedHashSet<>();
+        for (TopologyDescription.Node successor : node.successors()) {
+            successorNames.add(names.intern(successor.name()));
+        }
+
+        TopologyNode.Builder builder = TopologyNode.builder(names.intern(node.name()), type)
                 .predecessors(predecessorNames)
                 .successors(successorNames);
 
         // Add topics for source and sink nodes
         if (node instanceof TopologyDescription.Source source) {
-            builder.topics(source.topicSet() != null ? source.topicSet() : Set.of());
+            builder.topics(source.topicSet() != null ? intern(source.topicSet(), names) : Set.of());
+            if (source.topicPattern() != null) {
+                builder.topicPattern(names.intern(source.topicPattern().pattern()));
+            }
         } else if (node instanceof TopologyDescription.Sink sink) {
             if (sink.topic() != null) {
-                builder.topics(Set.of(sink.topic()));
+                builder.topics(Set.of(names.intern(sink.topic())));
             }
         } else if (node instanceof TopologyDescription.Processor processor) {
             // Add stores for processor nodes
             Set<String> stores = processor.stores();
             if (stores != null && !stores.isEmpty()) {
-                builder.stores(stores);
+                builder.stores(intern(stores, names));
             }
         }
 
         return builder.build();
     }
 
-    private TopologyNode convertGlobalStore(TopologyDescription.GlobalStore globalStore) {
+    private TopologyNode convertGlobalStore(TopologyDescription.GlobalStore globalStore, SymbolTable names) {
         // Use processor name as the global store identifier
         String storeName = globalStore.processor() != null
             ? globalStore.processor().name()
             : "global-store-" + globalStore.id();
 
-        TopologyNode.Builder builder = TopologyNode.builder(storeName, NodeType.GLOBAL_STORE);
+        TopologyNode.Builder builder = TopologyNode.builder(names.intern(storeName), NodeType.GLOBAL_STORE);
 
         // Global store has a source
         TopologyDescription.Source source = globalStore.source();
         if (source != null) {
-            builder.topics(source.topicSet() != null ? source.topicSet() : Set.of());
+            builder.topics(source.topicSet() != null ? intern(source.topicSet(), names) : Set.of());
         }
 
         return builder.build();
     }
 
+    private static List<String> intern(Collection<String> values, SymbolTable names) {
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(names.intern(value));
+        }
+        return result;
+    }
+
     private NodeType determineNodeType(TopologyDescription.Node node) {
         if (node instanceof TopologyDescription.Source) {
             return NodeType.SOURCE;
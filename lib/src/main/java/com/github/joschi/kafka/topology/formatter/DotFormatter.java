@@ -2,19 +2,34 @@ package com.github.joschi.kafka.topology.formatter;
 
 import com.github.joschi.kafka.topology.model.NodeType;
 import com.github.joschi.kafka.topology.model.Topology;
-import com.github.joschi.kafka.topology.model.TopologyNode;
-import com.github.joschi.kafka.topology.model.TopologySubtopology;
-
-import java.util.Map;
+import com.github.joschi.kafka.topology.model.TopologyConnections;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
+import com.github.joschi.kafka.topology.model.TopologyGraph;
 
 /**
  * Formats a Kafka Streams topology as a GraphViz DOT file.
  * Uses different node styles for different node types and clusters for subtopologies.
+ * <p>
+ * Diffs are drawn as the union of both topologies, with added, removed and changed nodes, edges and
+ * subtopologies colored by their change on top of their type style.
  */
-public class DotFormatter implements TopologyFormatter {
+public class DotFormatter implements TopologyDiffFormatter {
 
     @Override
     public String format(Topology topology) {
+        return format(topology, null);
+    }
+
+    @Override
+    public String format(TopologyDiff diff) {
+        TopologyDiffView view = new TopologyDiffView(diff);
+        return format(view.union(), view);
+    }
+
+    private String format(Topology topology, TopologyDiffView diff) {
+        TopologyGraph graph = topology.graph();
+        TopologyConnections connections = topology.connections();
+        String[] nodeIds = sanitizeNodeIds(graph);
         StringBuilder sb = new StringBuilder();
         sb.append("digraph KafkaStreamsTopology {\n");
         sb.append("    // Graph settings\n");
@@ -26,19 +41,22 @@ public class DotFormatter implements TopologyFormatter {
         sb.append("\n");
 
         // Process subtopologies as clusters
-        for (Map.Entry<Integer, TopologySubtopology> entry : topology.getSubtopologies().entrySet()) {
-            TopologySubtopology subtopology = entry.getValue();
-            sb.append("    subgraph cluster_").append(subtopology.getId()).append(" {\n");
-            sb.append("        label=\"Sub-topology ").append(subtopology.getId()).append("\";\n");
+        for (int subtopology = 0; subtopology < graph.subtopologyCount(); subtopology++) {
+            int subtopologyId = graph.subtopologyId(subtopology);
+            TopologyDiff.Change change = diff != null ? diff.subtopologyChange(subtopologyId) : null;
+            sb.append("    subgraph cluster_").append(subtopologyId).append(" {\n");
+            sb.append("        label=\"Sub-topology ")
+              .append(diff != null ? diff.describeSubtopology(subtopologyId) : String.valueOf(subtopologyId))
+              .append("\";\n");
             sb.append("        style=dashed;\n");
-            sb.append("        color=gray;\n");
+            sb.append("        color=").append(change != null ? changeColor(change) : "gray").append(";\n");
             sb.append("\n");
 
             // Define nodes
-            for (TopologyNode node : subtopology.getNodes().values()) {
+            for (int node = graph.subtopologyStart(subtopology); node < graph.subtopologyEnd(subtopology); node++) {
                 // Skip "none" nodes - they're placeholders for no output
-                if (!"none".equals(node.getName())) {
-                    appendNodeDefinition(sb, node, "        ");
+                if (!isNone(graph, node)) {
+                    appendNodeDefinition(sb, graph, nodeIds, node, "        ", diff);
                 }
             }
 
@@ -46,95 +64,101 @@ public class DotFormatter implements TopologyFormatter {
         }
 
         // Process topics (not in a cluster)
-        if (!topology.getTopics().isEmpty()) {
+        if (graph.firstStateStore() > graph.firstTopic()) {
             sb.append("    // Topics\n");
-            for (TopologyNode topic : topology.getTopics().values()) {
-                appendNodeDefinition(sb, topic, "    ");
+            for (int topic = graph.firstTopic(); topic < graph.firstStateStore(); topic++) {
+                appendNodeDefinition(sb, graph, nodeIds, topic, "    ", diff);
             }
             sb.append("\n");
         }
 
         // Process state stores (not in a cluster)
-        if (!topology.getStateStores().isEmpty()) {
+        if (graph.firstGlobalStore() > graph.firstStateStore()) {
             sb.append("    // State Stores\n");
-            for (TopologyNode stateStore : topology.getStateStores().values()) {
-                appendNodeDefinition(sb, stateStore, "    ");
+            for (int stateStore = graph.firstStateStore(); stateStore < graph.firstGlobalStore(); stateStore++) {
+                appendNodeDefinition(sb, graph, nodeIds, stateStore, "    ", diff);
             }
             sb.append("\n");
         }
 
         // Process global stores (not in a cluster)
-        if (!topology.getGlobalStores().isEmpty()) {
+        if (graph.nodeCount() > graph.firstGlobalStore()) {
             sb.append("    // Global Stores\n");
-            for (TopologyNode globalStore : topology.getGlobalStores().values()) {
-                appendNodeDefinition(sb, globalStore, "    ");
+            for (int globalStore = graph.firstGlobalStore(); globalStore < graph.nodeCount(); globalStore++) {
+                appendNodeDefinition(sb, graph, nodeIds, globalStore, "    ", diff);
             }
             sb.append("\n");
         }
 
         // Define edges
         sb.append("    // Edges\n");
-        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
-            for (TopologyNode node : subtopology.getNodes().values()) {
-                // Skip "none" nodes
-                if ("none".equals(node.getName())) {
-                    continue;
-                }
-                for (String successor : node.getSuccessors()) {
-                    // Skip edges to "none"
-                    if (!"none".equals(successor)) {
-                        sb.append("    ")
-                          .append(sanitizeNodeId(node.getName()))
-                          .append(" -> ")
-                          .append(sanitizeNodeId(successor))
-                          .append(";\n");
-                    }
+        for (int node = 0; node < graph.firstTopic(); node++) {
+            // Skip "none" nodes
+            if (isNone(graph, node)) {
+                continue;
+            }
+            for (int edge = graph.successorsStart(node); edge < graph.successorsEnd(node); edge++) {
+                int successor = graph.successorAt(edge);
+                // Skip edges to "none"
+                if (!isNone(graph, successor)) {
+                    sb.append("    ")
+                      .append(nodeIds[node])
+                      .append(" -> ")
+                      .append(nodeIds[successor])
+                      .append(edgeAttributes(edgeChange(diff, graph, node, successor)))
+                      .append(";\n");
                 }
             }
         }
+        // Changed edges of nodes which moved to another sub-topology
+        if (diff != null) {
+            int[] crossEdges = diff.crossEdges();
+            for (int i = 0; i < crossEdges.length; i += 2) {
+                sb.append("    ")
+                  .append(nodeIds[crossEdges[i]])
+                  .append(" -> ")
+                  .append(nodeIds[crossEdges[i + 1]])
+                  .append(edgeAttributes(edgeChange(diff, graph, crossEdges[i], crossEdges[i + 1])))
+                  .append(";\n");
+            }
+        }
 
         // Add edges from topics to sources and from sinks to topics
-        if (!topology.getTopics().isEmpty()) {
+        if (graph.firstStateStore() > graph.firstTopic()) {
             sb.append("\n");
             sb.append("    // Topic Connections\n");
-            for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if (node.getType() == NodeType.SOURCE && !node.getTopics().isEmpty()) {
-                        for (String topicName : node.getTopics()) {
-                            sb.append("    ")
-                              .append(sanitizeNodeId(topicName))
-                              .append(" -> ")
-                              .append(sanitizeNodeId(node.getName()))
-                              .append(";\n");
-                        }
-                    } else if (node.getType() == NodeType.SINK && !node.getTopics().isEmpty()) {
-                        for (String topicName : node.getTopics()) {
-                            sb.append("    ")
-                              .append(sanitizeNodeId(node.getName()))
-                              .append(" -> ")
-                              .append(sanitizeNodeId(topicName))
-                              .append(";\n");
-                        }
-                    }
+            for (int topic = graph.firstTopic(); topic < graph.firstStateStore(); topic++) {
+                for (int i = connections.consumersStart(topic); i < connections.consumersEnd(topic); i++) {
+                    sb.append("    ")
+                      .append(nodeIds[topic])
+                      .append(" -> ")
+                      .append(nodeIds[connections.consumerAt(i)])
+                      .append(edgeAttributes(edgeChange(diff, graph, topic, connections.consumerAt(i))))
+                      .append(";\n");
+                }
+                for (int i = connections.producersStart(topic); i < connections.producersEnd(topic); i++) {
+                    sb.append("    ")
+                      .append(nodeIds[connections.producerAt(i)])
+                      .append(" -> ")
+                      .append(nodeIds[topic])
+                      .append(edgeAttributes(edgeChange(diff, graph, connections.producerAt(i), topic)))
+                      .append(";\n");
                 }
             }
         }
 
         // Add edges from processors to state stores
-        if (!topology.getStateStores().isEmpty()) {
+        if (graph.firstGlobalStore() > graph.firstStateStore()) {
             sb.append("\n");
             sb.append("    // Processor to State Store Connections\n");
-            for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if (node.getType() == NodeType.PROCESSOR && !node.getStores().isEmpty()) {
-                        for (String storeName : node.getStores()) {
-                            sb.append("    ")
-                              .append(sanitizeNodeId(node.getName()))
-                              .append(" -> ")
-                              .append(sanitizeNodeId(storeName))
-                              .append(" [style=dashed, color=orange, penwidth=2];\n");
-                        }
-                    }
+            for (int store = graph.firstStateStore(); store < graph.firstGlobalStore(); store++) {
+                for (int i = connections.accessorsStart(store); i < connections.accessorsEnd(store); i++) {
+                    sb.append("    ")
+                      .append(nodeIds[connections.accessorAt(i)])
+                      .append(" -> ")
+                      .append(nodeIds[store])
+                      .append(storeEdgeAttributes(edgeChange(diff, graph, connections.accessorAt(i), store)))
+                      .append(";\n");
                 }
             }
         }
@@ -143,13 +167,16 @@ public class DotFormatter implements TopologyFormatter {
         return sb.toString();
     }
 
-    private void appendNodeDefinition(StringBuilder sb, TopologyNode node, String indent) {
-        String nodeId = sanitizeNodeId(node.getName());
-        String label = buildNodeLabel(node);
-        String style = getNodeStyle(node);
+    private void appendNodeDefinition(StringBuilder sb, TopologyGraph graph, String[] nodeIds, int node,
+                                      String indent, TopologyDiffView diff) {
+        String label = buildNodeLabel(graph, node);
+        TopologyDiff.Change change = diff != null ? diff.nodeChange(node) : null;
+        // Changed nodes keep the shape of their type, but are colored by their change
+        String style = change != null ? getNodeShape(graph.type(node)) + getChangeStyle(change)
+                : getNodeStyle(graph.type(node));
 
         sb.append(indent)
-          .append(nodeId)
+          .append(nodeIds[node])
           .append(" [label=\"")
           .append(escapeLabel(label))
           .append("\"")
@@ -157,13 +184,13 @@ public class DotFormatter implements TopologyFormatter {
           .append("];\n");
     }
 
-    private String buildNodeLabel(TopologyNode node) {
+    private String buildNodeLabel(TopologyGraph graph, int node) {
         // Just return the node name - topics are now separate entities
-        return node.getName();
+        return graph.name(node);
     }
 
-    private String getNodeStyle(TopologyNode node) {
-        return switch (node.getType()) {
+    private String getNodeStyle(NodeType type) {
+        return switch (type) {
             case SOURCE -> ", shape=ellipse, fillcolor=\"#90EE90\", color=\"#2F4F2F\", penwidth=2";
             case PROCESSOR -> ", shape=box, fillcolor=\"#87CEEB\", color=\"#4682B4\", penwidth=2";
             case SINK -> ", shape=ellipse, fillcolor=\"#FFB6C1\", color=\"#8B4513\", penwidth=2";
@@ -173,6 +200,67 @@ public class DotFormatter implements TopologyFormatter {
         };
     }
 
+    private String getNodeShape(NodeType type) {
+        return switch (type) {
+            case SOURCE, SINK -> ", shape=ellipse";
+            case PROCESSOR -> ", shape=box";
+            case TOPIC -> ", shape=parallelogram";
+            case STATE_STORE -> ", shape=cylinder";
+            case GLOBAL_STORE -> ", shape=hexagon";
+        };
+    }
+
+    private String getChangeStyle(TopologyDiff.Change change) {
+        return switch (change) {
+            case ADDED -> ", fillcolor=\"#C8E6C9\", color=\"#2E7D32\", penwidth=3";
+            case REMOVED -> ", fillcolor=\"#FFCDD2\", color=\"#C62828\", penwidth=3, style=\"filled,dashed\"";
+            case CHANGED -> ", fillcolor=\"#FFF59D\", color=\"#F9A825\", penwidth=3";
+        };
+    }
+
+    private static String changeColor(TopologyDiff.Change change) {
+        return switch (change) {
+            case ADDED -> "\"#2E7D32\"";
+            case REMOVED -> "\"#C62828\"";
+            case CHANGED -> "\"#F9A825\"";
+        };
+    }
+
+    private static TopologyDiff.Change edgeChange(TopologyDiffView diff, TopologyGraph graph, int from, int to) {
+        return diff != null ? diff.edgeChange(graph, from, to) : null;
+    }
+
+    private static String edgeAttributes(TopologyDiff.Change change) {
+        if (change == null) {
+            return "";
+        }
+        return change == TopologyDiff.Change.REMOVED
+                ? " [color=" + changeColor(change) + ", penwidth=2, style=dashed]"
+                : " [color=" + changeColor(change) + ", penwidth=2]";
+    }
+
+    private static String storeEdgeAttributes(TopologyDiff.Change change) {
+        if (change == null) {
+            return " [style=dashed, color=orange, penwidth=2]";
+        }
+        return change == TopologyDiff.Change.REMOVED
+                ? " [style=dotted, color=" + changeColor(change) + ", penwidth=2]"
+                : " [style=dashed, color=" + changeColor(change) + ", penwidth=2]";
+    }
+
+    private static boolean isNone(TopologyGraph graph, int node) {
+        return "none".equals(graph.name(node));
+    }
+
+    private String[] sanitizeNodeIds(TopologyGraph graph) {
+        // Sanitize every name once rather than on each reference
+        String[] nodeIds = new String[graph.nodeCount()];
+        for (int node = 0; node < nodeIds.length; node++) {
+            nodeIds[node] = sanitizeNodeId(graph.name(node));
+        }
+        return nodeIds;
+    }
+
     private String sanitizeNodeId(String name) {
         // Replace characters that might cause issues in DOT
         // Keep alphanumeric and underscore, replace others with underscore
@@ -0,0 +1,159 @@
+package com.github.joschi.kafka.topology.formatter;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Formats a Kafka Streams topology as JSON, which {@link com.github.joschi.kafka.topology.parser.TopologyJsonParser}
+ * reads back into an equal topology.
+ * <p>
+ * The model is written directly to the output without building an intermediate tree. Every node is written
+ * on a line of its own; empty name arrays and missing topic patterns are omitted, and the names within an
+ * array are sorted, so the output does not depend on the iteration order of the name sets:
+ * <pre>{@code
+ * {
+ *   "subtopologies": [
+ *     {
+ *       "id": 0,
+ *       "nodes": [
+ *         {"name": "KSTREAM-SOURCE-0000000000", "type": "SOURCE", "topics": ["input"], "successors": [...]},
+ *         ...
+ *       ]
+ *     }
+ *   ],
+ *   "globalStores": [
+ *     {"name": "global-store", "type": "GLOBAL_STORE", "topics": ["global-topic"]}
+ *   ]
+ * }
+ * }</pre>
+ */
+public class JsonFormatter implements TopologyFormatter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String format(Topology topology) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(topology, sb);
+        } catch (IOException e) {
+            // Appending to a StringBuilder never fails
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the given topology as JSON to the given writer, which should be buffered. The writer is not closed.
+     *
+     * @param topology the topology to format
+     * @param writer the writer
+     * @throws IOException if writing fails
+     */
+    public void write(Topology topology, Writer writer) throws IOException {
+        write(topology, (Appendable) writer);
+    }
+
+    private void write(Topology topology, Appendable out) throws IOException {
+        out.append("{\n  \"subtopologies\": [");
+        boolean firstSubtopology = true;
+        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+            out.append(firstSubtopology ? "\n" : ",\n");
+            firstSubtopology = false;
+            out.append("    {\n      \"id\": ").append(Integer.toString(subtopology.getId()))
+               .append(",\n      \"nodes\": [");
+            boolean firstNode = true;
+            for (TopologyNode node : subtopology.getNodes().values()) {
+                out.append(firstNode ? "\n" : ",\n");
+                firstNode = false;
+                out.append("        ");
+                appendNode(out, node);
+            }
+            out.append(firstNode ? "]\n    }" : "\n      ]\n    }");
+        }
+        out.append(firstSubtopology ? "],\n" : "\n  ],\n");
+
+        out.append("  \"globalStores\": [");
+        boolean firstGlobalStore = true;
+        for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+            out.append(firstGlobalStore ? "\n" : ",\n");
+            firstGlobalStore = false;
+            out.append("    ");
+            appendNode(out, globalStore);
+        }
+        out.append(firstGlobalStore ? "]\n}\n" : "\n  ]\n}\n");
+    }
+
+    private void appendNode(Appendable out, TopologyNode node) throws IOException {
+        out.append("{\"name\": ");
+        appendString(out, node.getName());
+        out.append(", \"type\": \"").append(node.getType().name()).append('"');
+        if (node.getTopicPattern() != null) {
+            out.append(", \"topicPattern\": ");
+            appendString(out, node.getTopicPattern());
+        }
+        appendNames(out, "topics", node.getTopics());
+        appendNames(out, "stores", node.getStores());
+        appendNames(out, "successors", node.getSuccessors());
+        appendNames(out, "predecessors", node.getPredecessors());
+        out.append('}');
+    }
+
+    private void appendNames(Appendable out, String key, Set<String> names) throws IOException {
+        if (names.isEmpty()) {
+            return;
+        }
+        out.append(", \"").append(key).append("\": [");
+        if (names.size() == 1) {
+            appendString(out, names.iterator().next());
+        } else {
+            String[] sorted = names.toArray(new String[0]);
+            Arrays.sort(sorted);
+            for (int i = 0; i < sorted.length; i++) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                appendString(out, sorted[i]);
+            }
+        }
+        out.append(']');
+    }
+
+    private void appendString(Appendable out, String value) throws IOException {
+        out.append('"');
+        // Copy runs of characters which need no escaping in one call
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+            }
+        }
+        out.append(value, start, value.length());
+        out.append('"');
+    }
+
+    @Override
+    public String getFormatName() {
+        return "json";
+    }
+}
@@ -1,51 +1,73 @@
 package com.github.joschi.kafka.topology.formatter;
 
-import com.github.joschi.kafka.topology.model.NodeType;
 import com.github.joschi.kafka.topology.model.Topology;
-import com.github.joschi.kafka.topology.model.TopologyNode;
-import com.github.joschi.kafka.topology.model.TopologySubtopology;
-
-import java.util.Map;
+import com.github.joschi.kafka.topology.model.TopologyConnections;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
+import com.github.joschi.kafka.topology.model.TopologyGraph;
 
 /**
  * Formats a Kafka Streams topology as a Mermaid flowchart.
  * Uses different node styles for different node types.
+ * <p>
+ * Diffs are drawn as the union of both topologies, with added, removed and changed nodes, topics and stores
+ * styled by their change instead of their type, and added and removed links and subtopologies highlighted.
  */
-public class MermaidFormatter implements TopologyFormatter {
+public class MermaidFormatter implements TopologyDiffFormatter {
 
     @Override
     public String format(Topology topology) {
+        return format(topology, null);
+    }
+
+    @Override
+    public String format(TopologyDiff diff) {
+        TopologyDiffView view = new TopologyDiffView(diff);
+        return format(view.union(), view);
+    }
+
+    private String format(Topology topology, TopologyDiffView diff) {
+        TopologyGraph graph = topology.graph();
+        TopologyConnections connections = topology.connections();
+        String[] nodeIds = sanitizeNodeIds(graph);
+        // Mermaid styles links by their position, so the drawn links are counted in diffs
+        LinkStyles links = diff != null ? new LinkStyles() : null;
         StringBuilder sb = new StringBuilder();
         sb.append("flowchart TD\n");
 
         // Process subtopologies as subgraphs
-        for (Map.Entry<Integer, TopologySubtopology> entry : topology.getSubtopologies().entrySet()) {
-            TopologySubtopology subtopology = entry.getValue();
+        for (int subtopology = 0; subtopology < graph.subtopologyCount(); subtopology++) {
+            int subtopologyId = graph.subtopologyId(subtopology);
+            int start = graph.subtopologyStart(subtopology);
+            int end = graph.subtopologyEnd(subtopology);
             sb.append("\n");
-            sb.append("    subgraph sub").append(subtopology.getId())
-              .append("[\"Subtopology ").append(subtopology.getId()).append("\"]\n");
+            sb.append("    subgraph sub").append(subtopologyId)
+              .append("[\"Subtopology ")
+              .append(diff != null ? diff.describeSubtopology(subtopologyId) : String.valueOf(subtopologyId))
+              .append("\"]\n");
 
             // Define nodes with styling
-            for (TopologyNode node : subtopology.getNodes().values()) {
+            for (int node = start; node < end; node++) {
                 // Skip "none" nodes - they're placeholders for no output
-                if (!"none".equals(node.getName())) {
-                    appendNodeDefinition(sb, node, "    ");
+                if (!isNone(graph, node)) {
+                    appendNodeDefinition(sb, graph, nodeIds, node, "    ");
                 }
             }
 
             // Define edges
-            for (TopologyNode node : subtopology.getNodes().values()) {
+            for (int node = start; node < end; node++) {
                 // Skip "none" nodes
-                if ("none".equals(node.getName())) {
+                if (isNone(graph, node)) {
                     continue;
                 }
-                for (String successor : node.getSuccessors()) {
+                for (int edge = graph.successorsStart(node); edge < graph.successorsEnd(node); edge++) {
+                    int successor = graph.successorAt(edge);
                     // Skip edges to "none"
-                    if (!"none".equals(successor)) {
-                        sb.append("        ").append(sanitizeNodeId(node.getName()))
+                    if (!isNone(graph, successor)) {
+                        sb.append("        ").append(nodeIds[node])
                           .append(" --> ")
-                          .append(sanitizeNodeId(successor))
+                          .append(nodeIds[successor])
                           .append("\n");
+                        addLink(links, diff, graph, node, successor);
                     }
                 }
             }
@@ -53,65 +75,73 @@ public class MermaidFormatter implements TopologyFormatter {
             sb.append("    end\n");
         }
 
+        // Changed edges of nodes which moved to another subtopology
+        if (diff != null && diff.crossEdges().length > 0) {
+            sb.append("\n");
+            sb.append("    %% Edges across subtopologies\n");
+            int[] crossEdges = diff.crossEdges();
+            for (int i = 0; i < crossEdges.length; i += 2) {
+                sb.append("    ").append(nodeIds[crossEdges[i]])
+                  .append(" --> ")
+                  .append(nodeIds[crossEdges[i + 1]])
+                  .append("\n");
+                addLink(links, diff, graph, crossEdges[i], crossEdges[i + 1]);
+            }
+        }
+
         // Process topics
-        if (!topology.getTopics().isEmpty()) {
+        if (graph.firstStateStore() > graph.firstTopic()) {
             sb.append("\n");
             sb.append("    %% Topics\n");
-            for (TopologyNode topic : topology.getTopics().values()) {
-                appendNodeDefinition(sb, topic, "");
+            for (int topic = graph.firstTopic(); topic < graph.firstStateStore(); topic++) {
+                appendNodeDefinition(sb, graph, nodeIds, topic, "");
             }
 
             // Add connections from topics to sources and from sinks to topics
-            for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if (node.getType() == NodeType.SOURCE && !node.getTopics().isEmpty()) {
-                        for (String topicName : node.getTopics()) {
-                            sb.append("    ").append(sanitizeNodeId(topicName))
-                              .append(" --> ")
-                              .append(sanitizeNodeId(node.getName()))
-                              .append("\n");
-                        }
-                    } else if (node.getType() == NodeType.SINK && !node.getTopics().isEmpty()) {
-                        for (String topicName : node.getTopics()) {
-                            sb.append("    ").append(sanitizeNodeId(node.getName()))
-                              .append(" --> ")
-                              .append(sanitizeNodeId(topicName))
-                              .append("\n");
-                        }
-                    }
+            for (int topic = graph.firstTopic(); topic < graph.firstStateStore(); topic++) {
+                for (int i = connections.consumersStart(topic); i < connections.consumersEnd(topic); i++) {
+                    sb.append("    ").append(nodeIds[topic])
+                      .append(" --> ")
+                      .append(nodeIds[connections.consumerAt(i)])
+                      .append("\n");
+                    addLink(links, diff, graph, topic, connections.consumerAt(i));
+                }
+                for (int i = connections.producersStart(topic); i < connections.producersEnd(topic); i++) {
+                    sb.append("    ").append(nodeIds[connections.producerAt(i)])
+                      .append(" --> ")
+                      .append(nodeIds[topic])
+                      .append("\n");
+                    addLink(links, diff, graph, connections.producerAt(i), topic);
                 }
             }
         }
 
         // Process state stores
-        if (!topology.getStateStores().isEmpty()) {
+        if (graph.firstGlobalStore() > graph.firstStateStore()) {
             sb.append("\n");
             sb.append("    %% State Stores\n");
-            for (TopologyNode stateStore : topology.getStateStores().values()) {
-                appendNodeDefinition(sb, stateStore, "");
+            for (int stateStore = graph.firstStateStore(); stateStore < graph.firstGlobalStore(); stateStore++) {
+                appendNodeDefinition(sb, graph, nodeIds, stateStore, "");
             }
 
             // Add connections from processors to state stores
-            for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if (node.getType() == NodeType.PROCESSOR && !node.getStores().isEmpty()) {
-                        for (String storeName : node.getStores()) {
-                            sb.append("    ").append(sanitizeNodeId(node.getName()))
-                              .append(" -.-> ")
-                              .append(sanitizeNodeId(storeName))
-                              .append("\n");
-                        }
-                    }
+            for (int store = graph.firstStateStore(); store < graph.firstGlobalStore(); store++) {
+                for (int i = connections.accessorsStart(store); i < connections.accessorsEnd(store); i++) {
+                    sb.append("    ").append(nodeIds[connections.accessorAt(i)])
+                      .append(" -.-> ")
+                      .append(nodeIds[store])
+                      .append("\n");
+                    addLink(links, diff, graph, connections.accessorAt(i), store);
                 }
             }
         }
 
         // Process global stores
-        if (!topology.getGlobalStores().isEmpty()) {
+        if (graph.nodeCount() > graph.firstGlobalStore()) {
             sb.append("\n");
             sb.append("    %% Global Stores\n");
-            for (TopologyNode globalStore : topology.getGlobalStores().values()) {
-                appendNodeDefinition(sb, globalStore, "");
+            for (int globalStore = graph.firstGlobalStore(); globalStore < graph.nodeCount(); globalStore++) {
+                appendNodeDefinition(sb, graph, nodeIds, globalStore, "");
             }
         }
 
@@ -124,33 +154,59 @@ public class MermaidFormatter implements TopologyFormatter {
         sb.append("    classDef topicStyle fill:#DDA0DD,stroke:#8B008B,stroke-width:2px\n");
         sb.append("    classDef stateStoreStyle fill:#FFA500,stroke:#FF6347,stroke-width:2px\n");
         sb.append("    classDef globalStoreStyle fill:#FFD700,stroke:#FF8C00,stroke-width:3px,stroke-dasharray: 5 5\n");
+        if (diff != null) {
+            sb.append("    classDef addedStyle fill:#C8E6C9,stroke:#2E7D32,stroke-width:3px\n");
+            sb.append("    classDef removedStyle fill:#FFCDD2,stroke:#C62828,stroke-width:3px,stroke-dasharray: 5 5\n");
+            sb.append("    classDef changedStyle fill:#FFF59D,stroke:#F9A825,stroke-width:3px\n");
+        }
 
-        // Apply styles to nodes
+        // Apply styles to nodes: subtopology nodes, topics, state stores and global stores in graph order
         sb.append("\n");
-        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
-            for (TopologyNode node : subtopology.getNodes().values()) {
-                appendNodeStyling(sb, node);
-            }
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            appendNodeStyling(sb, graph, nodeIds, node, diff);
         }
-        for (TopologyNode topic : topology.getTopics().values()) {
-            appendNodeStyling(sb, topic);
-        }
-        for (TopologyNode stateStore : topology.getStateStores().values()) {
-            appendNodeStyling(sb, stateStore);
-        }
-        for (TopologyNode globalStore : topology.getGlobalStores().values()) {
-            appendNodeStyling(sb, globalStore);
+
+        if (diff != null) {
+            appendDiffStyling(sb, graph, diff, links);
         }
 
         return sb.toString();
     }
 
-    private void appendNodeDefinition(StringBuilder sb, TopologyNode node, String indent) {
-        String nodeId = sanitizeNodeId(node.getName());
-        String label = buildNodeLabel(node);
+    private static void addLink(LinkStyles links, TopologyDiffView diff, TopologyGraph graph, int from, int to) {
+        if (links != null) {
+            links.add(diff.edgeChange(graph, from, to));
+        }
+    }
+
+    private void appendDiffStyling(StringBuilder sb, TopologyGraph graph, TopologyDiffView diff, LinkStyles links) {
+        for (int subtopology = 0; subtopology < graph.subtopologyCount(); subtopology++) {
+            int subtopologyId = graph.subtopologyId(subtopology);
+            TopologyDiff.Change change = diff.subtopologyChange(subtopologyId);
+            if (change != null) {
+                String style = switch (change) {
+                    case ADDED -> "stroke:#2E7D32,stroke-width:3px";
+                    case REMOVED -> "stroke:#C62828,stroke-width:3px,stroke-dasharray: 5 5";
+                    case CHANGED -> "stroke:#F9A825,stroke-width:3px";
+                };
+                sb.append("    style sub").append(subtopologyId).append(" ").append(style).append("\n");
+            }
+        }
+        if (links.added.length() > 0) {
+            sb.append("    linkStyle ").append(links.added).append(" stroke:#2E7D32,stroke-width:3px\n");
+        }
+        if (links.removed.length() > 0) {
+            sb.append("    linkStyle ").append(links.removed)
+              .append(" stroke:#C62828,stroke-width:3px,stroke-dasharray: 5 5\n");
+        }
+    }
+
+    private void appendNodeDefinition(StringBuilder sb, TopologyGraph graph, String[] nodeIds, int node,
+                                      String indent) {
+        String label = buildNodeLabel(graph, node);
 
         // Use different shapes for different node types
-        String nodeShape = switch (node.getType()) {
+        String nodeShape = switch (graph.type(node)) {
             case SOURCE -> "([" + label + "])";
             case PROCESSOR -> "[" + label + "]";
             case SINK -> "([" + label + "])";
@@ -159,12 +215,23 @@ public class MermaidFormatter implements TopologyFormatter {
             case GLOBAL_STORE -> "{{" + label + "}}";
         };
 
-        sb.append(indent).append("    ").append(nodeId).append(nodeShape).append("\n");
+        sb.append(indent).append("    ").append(nodeIds[node]).append(nodeShape).append("\n");
     }
 
-    private void appendNodeStyling(StringBuilder sb, TopologyNode node) {
-        String nodeId = sanitizeNodeId(node.getName());
-        String styleClass = switch (node.getType()) {
+    private void appendNodeStyling(StringBuilder sb, TopologyGraph graph, String[] nodeIds, int node,
+                                   TopologyDiffView diff) {
+        TopologyDiff.Change change = diff != null ? diff.nodeChange(node) : null;
+        if (change != null) {
+            String styleClass = switch (change) {
+                case ADDED -> "addedStyle";
+                case REMOVED -> "removedStyle";
+                case CHANGED -> "changedStyle";
+            };
+            sb.append("    class ").append(nodeIds[node]).append(" ").append(styleClass).append("\n");
+            return;
+        }
+
+        String styleClass = switch (graph.type(node)) {
             case SOURCE -> "sourceStyle";
             case PROCESSOR -> "processorStyle";
             case SINK -> "sinkStyle";
@@ -173,12 +240,25 @@ public class MermaidFormatter implements TopologyFormatter {
             case GLOBAL_STORE -> "globalStoreStyle";
         };
 
-        sb.append("    class ").append(nodeId).append(" ").append(styleClass).append("\n");
+        sb.append("    class ").append(nodeIds[node]).append(" ").append(styleClass).append("\n");
+    }
+
+    private static boolean isNone(TopologyGraph graph, int node) {
+        return "none".equals(graph.name(node));
     }
 
-    private String buildNodeLabel(TopologyNode node) {
+    private String buildNodeLabel(TopologyGraph graph, int node) {
         // Just return the node name - topics are now separate entities
-        return node.getName();
+        return graph.name(node);
+    }
+
+    private String[] sanitizeNodeIds(TopologyGraph graph) {
+        // Sanitize every name once rather than on each reference
+        String[] nodeIds = new String[graph.nodeCount()];
+        for (int node = 0; node < nodeIds.length; node++) {
+            nodeIds[node] = sanitizeNodeId(graph.name(node));
+        }
+        return nodeIds;
     }
 
     private String sanitizeNodeId(String name) {
@@ -190,4 +270,25 @@ public class MermaidFormatter implements TopologyFormatter {
     public String getFormatName() {
         return "mermaid";
     }
+
+    /**
+     * Collects the positions of the added and removed links, in the order in which they are drawn.
+     */
+    private static final class LinkStyles {
+        private final StringBuilder added = new StringBuilder();
+        private final StringBuilder removed = new StringBuilder();
+        private int count;
+
+        void add(TopologyDiff.Change change) {
+            StringBuilder positions = change == TopologyDiff.Change.ADDED ? added
+                    : change == TopologyDiff.Change.REMOVED ? removed : null;
+            if (positions != null) {
+                if (positions.length() > 0) {
+                    positions.append(',');
+                }
+                positions.append(count);
+            }
+            count++;
+        }
+    }
 }
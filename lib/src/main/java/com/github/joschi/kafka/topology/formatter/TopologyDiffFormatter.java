@@ -0,0 +1,18 @@
+package com.github.joschi.kafka.topology.formatter;
+
+import com.github.joschi.kafka.topology.model.TopologyDiff;
+
+/**
+ * Interface for formatters which can also draw the {@link TopologyDiff difference} between two topologies.
+ */
+public interface TopologyDiffFormatter extends TopologyFormatter {
+
+    /**
+     * Formats the union of both topologies of a diff, highlighting the added, removed and changed
+     * subtopologies, nodes, edges, topics and state stores.
+     *
+     * @param diff the diff to format
+     * @return the formatted string representation
+     */
+    String format(TopologyDiff diff);
+}
@@ -0,0 +1,231 @@
+package com.github.joschi.kafka.topology.formatter;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
+import com.github.joschi.kafka.topology.model.TopologyDiff.Change;
+import com.github.joschi.kafka.topology.model.TopologyDiff.Edge;
+import com.github.joschi.kafka.topology.model.TopologyGraph;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The union of both topologies of a {@link TopologyDiff} as drawn by the {@link TopologyDiffFormatter}s: the
+ * after topology, into which the removed nodes and the removed edges of changed nodes are merged, together
+ * with the change of every drawn node, edge and subtopology.
+ * <p>
+ * Removed nodes are drawn in the subtopology their old subtopology was matched with. Removed subtopologies
+ * keep their id unless the after topology has a subtopology with that id, in which case they are drawn under
+ * an unused id; {@link #describeSubtopology(int)} always shows the original id.
+ * <p>
+ * The graph of the union only has edges within a subtopology, so the changed edges of a node which moved to
+ * another subtopology are listed separately by {@link #crossEdges()}.
+ */
+final class TopologyDiffView {
+
+    private final Topology union;
+    private final Change[] nodeChanges;
+    private final Map<Edge, Change> edgeChanges;
+    private final int[] crossEdges;
+    private final Map<Integer, Change> subtopologyChanges = new HashMap<>();
+    private final Map<Integer, String> subtopologyLabels = new HashMap<>();
+
+    TopologyDiffView(TopologyDiff diff) {
+        Topology before = diff.getBefore();
+        Topology after = diff.getAfter();
+        Map<String, String> renamed = diff.getRenamedNodes();
+        Map<String, String> originalNames = new HashMap<>();
+        renamed.forEach((oldName, newName) -> originalNames.put(newName, oldName));
+
+        Map<Integer, Integer> beforeIds = new HashMap<>();
+        diff.getSubtopologyMatches().forEach((beforeId, afterId) -> beforeIds.put(afterId, beforeId));
+        Map<Integer, Map<String, TopologyNode>> subtopologies = new TreeMap<>();
+        for (TopologySubtopology subtopology : after.getSubtopologies().values()) {
+            int id = subtopology.getId();
+            subtopologies.put(id, new LinkedHashMap<>(subtopology.getNodes()));
+            Integer beforeId = beforeIds.get(id);
+            if (beforeId == null) {
+                describe(id, Change.ADDED, id + " (added)");
+            } else {
+                boolean changed = diff.getChangedSubtopologies().contains(id);
+                String was = beforeId != id ? "was " + beforeId : null;
+                String note = changed ? (was != null ? was + ", changed" : "changed") : was;
+                describe(id, changed ? Change.CHANGED : null, note != null ? id + " (" + note + ")" : String.valueOf(id));
+            }
+        }
+
+        Map<Integer, Integer> removedIds = new HashMap<>();
+        int unusedId = Math.max(maxId(before), maxId(after)) + 1;
+        for (int beforeId : diff.getRemovedSubtopologies()) {
+            int id = after.getSubtopologies().containsKey(beforeId) ? unusedId++ : beforeId;
+            removedIds.put(beforeId, id);
+            subtopologies.put(id, new LinkedHashMap<>());
+            describe(id, Change.REMOVED, beforeId + " (removed)");
+        }
+
+        Map<String, TopologyNode> globalStores = new LinkedHashMap<>(after.getGlobalStores());
+        for (Map.Entry<String, Change> entry : diff.getNodeChanges().entrySet()) {
+            String name = entry.getKey();
+            if (entry.getValue() == Change.CHANGED) {
+                TopologyNode oldNode = before.findNode(originalNames.getOrDefault(name, name)).orElseThrow();
+                TopologyNode merged = merge(after.findNode(name).orElseThrow(), oldNode, renamed);
+                OptionalInt id = after.findSubtopologyId(name);
+                if (id.isPresent()) {
+                    subtopologies.get(id.getAsInt()).put(name, merged);
+                } else {
+                    globalStores.put(name, merged);
+                }
+            } else if (entry.getValue() == Change.REMOVED) {
+                TopologyNode oldNode = before.findNode(name).orElseThrow();
+                TopologyNode translated = merge(TopologyNode.builder(name, oldNode.getType())
+                        .topicPattern(oldNode.getTopicPattern())
+                        .build(), oldNode, renamed);
+                OptionalInt beforeId = before.findSubtopologyId(name);
+                if (beforeId.isPresent()) {
+                    Integer id = diff.getSubtopologyMatches().get(beforeId.getAsInt());
+                    subtopologies.get(id != null ? id : removedIds.get(beforeId.getAsInt())).put(name, translated);
+                } else {
+                    globalStores.put(name, translated);
+                }
+            }
+        }
+
+        Topology.Builder builder = Topology.builder();
+        subtopologies.forEach((id, nodes) -> builder.addSubtopology(new TopologySubtopology(id, nodes)));
+        globalStores.values().forEach(builder::addGlobalStore);
+        this.union = builder.build();
+
+        TopologyGraph graph = union.graph();
+        this.nodeChanges = new Change[graph.nodeCount()];
+        diff.getNodeChanges().forEach((name, change) -> setNodeChange(graph.node(name), change));
+        diff.getTopicChanges().forEach((name, change) -> setNodeChange(graph.topic(name), change));
+        diff.getStoreChanges().forEach((name, change) -> setNodeChange(graph.store(name), change));
+        this.edgeChanges = diff.getEdgeChanges().isEmpty() ? Collections.emptyMap() : new HashMap<>(diff.getEdgeChanges());
+        this.crossEdges = crossEdges(graph, diff.getEdgeChanges());
+    }
+
+    /**
+     * Returns the topology to draw.
+     */
+    Topology union() {
+        return union;
+    }
+
+    /**
+     * Returns the change of the node with the given index in the graph of the {@link #union()}, or
+     * {@code null} if it did not change.
+     */
+    Change nodeChange(int node) {
+        return nodeChanges[node];
+    }
+
+    /**
+     * Returns the change of the edge between the nodes with the given indices in the graph of the
+     * {@link #union()}, or {@code null} if it did not change.
+     */
+    Change edgeChange(TopologyGraph graph, int from, int to) {
+        return edgeChanges.isEmpty() ? null : edgeChanges.get(new Edge(graph.name(from), graph.name(to)));
+    }
+
+    /**
+     * Returns the changed edges between nodes of different subtopologies, which the graph of the
+     * {@link #union()} does not contain, as consecutive pairs of node indices: {@code from, to, from, to, ...}.
+     */
+    int[] crossEdges() {
+        return crossEdges;
+    }
+
+    /**
+     * Returns the change of the subtopology with the given id in the {@link #union()}, or {@code null} if it
+     * did not change.
+     */
+    Change subtopologyChange(int id) {
+        return subtopologyChanges.get(id);
+    }
+
+    /**
+     * Returns the label of the subtopology with the given id in the {@link #union()}: its original id and how
+     * it changed, e.g. {@code 3 (was 2, changed)}.
+     */
+    String describeSubtopology(int id) {
+        return subtopologyLabels.getOrDefault(id, String.valueOf(id));
+    }
+
+    private void describe(int id, Change change, String label) {
+        if (change != null) {
+            subtopologyChanges.put(id, change);
+        }
+        subtopologyLabels.put(id, label);
+    }
+
+    private void setNodeChange(int node, Change change) {
+        if (node >= 0) {
+            nodeChanges[node] = change;
+        }
+    }
+
+    private static int[] crossEdges(TopologyGraph graph, Map<Edge, Change> changes) {
+        int[] edges = new int[0];
+        int count = 0;
+        for (Edge edge : changes.keySet()) {
+            // Edges to topics and stores are drawn through the topic and store tables
+            int from = graph.node(edge.getFrom());
+            int to = graph.node(edge.getTo());
+            if (from >= 0 && to >= 0 && !hasSuccessor(graph, from, to)) {
+                if (count == edges.length) {
+                    edges = Arrays.copyOf(edges, Math.max(8, edges.length * 2));
+                }
+                edges[count++] = from;
+                edges[count++] = to;
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    private static boolean hasSuccessor(TopologyGraph graph, int node, int successor) {
+        for (int edge = graph.successorsStart(node); edge < graph.successorsEnd(node); edge++) {
+            if (graph.successorAt(edge) == successor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the topics, stores and edges of the old version of a node to the new one, translating the names of
+     * renamed nodes.
+     */
+    private static TopologyNode merge(TopologyNode node, TopologyNode oldNode, Map<String, String> renamed) {
+        return node.toBuilder()
+                .topics(union(node.getTopics(), oldNode.getTopics(), Map.of()))
+                .stores(union(node.getStores(), oldNode.getStores(), Map.of()))
+                .successors(union(node.getSuccessors(), oldNode.getSuccessors(), renamed))
+                .predecessors(union(node.getPredecessors(), oldNode.getPredecessors(), renamed))
+                .build();
+    }
+
+    private static Set<String> union(Set<String> names, Set<String> oldNames, Map<String, String> renamed) {
+        Set<String> result = new HashSet<>(names);
+        for (String name : oldNames) {
+            result.add(renamed.getOrDefault(name, name));
+        }
+        return result;
+    }
+
+    private static int maxId(Topology topology) {
+        int max = -1;
+        for (int id : topology.getSubtopologies().keySet()) {
+            max = Math.max(max, id);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.joschi.kafka.topology.model;
+
+/**
+ * A stable 128-bit content fingerprint of a {@link TopologyNode}, {@link TopologySubtopology} or {@link Topology}.
+ * <p>
+ * Fingerprints are computed bottom-up like a Merkle tree: a subtopology hashes the fingerprints of its nodes and
+ * a topology those of its subtopologies and global stores. All names are hashed in sorted order, so a fingerprint
+ * only depends on the content and not on the iteration order of sets or maps, the JVM or the platform. Equal
+ * models have equal fingerprints; different models have different fingerprints with overwhelming probability.
+ * <p>
+ * The string form of 32 lower-case hex digits can be used as a key of caches on disk and parsed back with
+ * {@link #fromString(String)}.
+ */
+public final class Fingerprint {
+
+    private final long high;
+    private final long low;
+
+    Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Parses the string form of a fingerprint.
+     *
+     * @param hex 32 hex digits
+     * @return the fingerprint
+     * @throws IllegalArgumentException if the string is not a fingerprint
+     */
+    public static Fingerprint fromString(String hex) {
+        if (hex.length() != 32) {
+            throw new IllegalArgumentException("Fingerprint must have 32 hex digits: " + hex);
+        }
+        try {
+            return new Fingerprint(Long.parseUnsignedLong(hex, 0, 16, 16), Long.parseUnsignedLong(hex, 16, 32, 16));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Fingerprint must have 32 hex digits: " + hex, e);
+        }
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Fingerprint that = (Fingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        // The bits are already well mixed
+        return (int) low;
+    }
+
+    @Override
+    public String toString() {
+        return hex(high) + hex(low);
+    }
+
+    private static String hex(long value) {
+        String digits = Long.toHexString(value);
+        return "0".repeat(16 - digits.length()) + digits;
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Computes {@link Fingerprint}s as the 128-bit MurmurHash3 (x64 variant, seed 0) of a canonical encoding of
+ * the model: numbers as little-endian 64-bit values, strings as their length followed by their UTF-16 code
+ * units packed four to a value, and name sets as their size followed by the names in sorted order.
+ * <p>
+ * The encoding and hash function are part of the contract of {@link Fingerprint}; changing them changes
+ * every fingerprint.
+ */
+final class FingerprintHasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private long pending;
+    private boolean hasPending;
+    private long length;
+
+    static Fingerprint of(TopologyNode node) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.putString(node.getType().name());
+        hasher.putString(node.getName());
+        if (node.getTopicPattern() == null) {
+            hasher.putLong(-1);
+        } else {
+            hasher.putString(node.getTopicPattern());
+        }
+        hasher.putNames(node.getTopics());
+        hasher.putNames(node.getStores());
+        hasher.putNames(node.getSuccessors());
+        hasher.putNames(node.getPredecessors());
+        return hasher.finish();
+    }
+
+    static Fingerprint of(TopologySubtopology subtopology) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.putLong(subtopology.getId());
+        hasher.putNodes(subtopology);
+        return hasher.finish();
+    }
+
+    /**
+     * Computes the fingerprint of the nodes of a subtopology without its id, which stays the same when the
+     * subtopology is only renumbered. It is not cached.
+     */
+    static Fingerprint ofNodes(TopologySubtopology subtopology) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        hasher.putNodes(subtopology);
+        return hasher.finish();
+    }
+
+    static Fingerprint of(Topology topology) {
+        FingerprintHasher hasher = new FingerprintHasher();
+        int[] ids = topology.getSubtopologies().keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        hasher.putLong(ids.length);
+        for (int id : ids) {
+            hasher.putFingerprint(topology.getSubtopologies().get(id).fingerprint());
+        }
+        String[] names = sorted(topology.getGlobalStores().keySet());
+        hasher.putLong(names.length);
+        for (String name : names) {
+            hasher.putFingerprint(topology.getGlobalStores().get(name).fingerprint());
+        }
+        return hasher.finish();
+    }
+
+    private static String[] sorted(Collection<String> names) {
+        String[] sorted = names.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private void putNodes(TopologySubtopology subtopology) {
+        String[] names = sorted(subtopology.getNodes().keySet());
+        putLong(names.length);
+        for (String name : names) {
+            putFingerprint(subtopology.getNodes().get(name).fingerprint());
+        }
+    }
+
+    private void putNames(Collection<String> names) {
+        putLong(names.size());
+        if (names.size() == 1) {
+            putString(names.iterator().next());
+        } else {
+            for (String name : sorted(names)) {
+                putString(name);
+            }
+        }
+    }
+
+    private void putString(String value) {
+        putLong(value.length());
+        int i = 0;
+        for (; i + 4 <= value.length(); i += 4) {
+            putLong(value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+        if (i < value.length()) {
+            long packed = 0;
+            for (int shift = 0; i < value.length(); i++, shift += 16) {
+                packed |= (long) value.charAt(i) << shift;
+            }
+            putLong(packed);
+        }
+    }
+
+    private void putFingerprint(Fingerprint fingerprint) {
+        putLong(fingerprint.getHigh());
+        putLong(fingerprint.getLow());
+    }
+
+    private void putLong(long value) {
+        length += 8;
+        if (!hasPending) {
+            pending = value;
+            hasPending = true;
+            return;
+        }
+        hasPending = false;
+        long k1 = pending * C1;
+        k1 = Long.rotateLeft(k1, 31) * C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        long k2 = value * C2;
+        k2 = Long.rotateLeft(k2, 33) * C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private Fingerprint finish() {
+        if (hasPending) {
+            // A tail of eight bytes only affects the first half of the state
+            long k1 = pending * C1;
+            k1 = Long.rotateLeft(k1, 31) * C2;
+            h1 ^= k1;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Fingerprint(h1, h2);
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
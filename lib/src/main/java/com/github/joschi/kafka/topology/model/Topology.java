@@ -1,12 +1,14 @@
 package com.github.joschi.kafka.topology.model;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
 
 /**
  * Represents a complete Kafka Streams topology.
@@ -15,14 +17,31 @@ import java.util.Objects;
 public class Topology {
     private final Map<Integer, TopologySubtopology> subtopologies;
     private final Map<String, TopologyNode> globalStores;
-    private final Map<String, TopologyNode> stateStores;
-    private final Map<String, TopologyNode> topics;
+    private volatile Map<String, TopologyNode> stateStores;
+    private volatile Map<String, TopologyNode> topics;
+    private volatile TopologyGraph graph;
+    private volatile TopologyConnections connections;
+    private volatile TopologyAttributeIndex attributeIndex;
+    private volatile TopologyLineage lineage;
+    private volatile Fingerprint fingerprint;
+    private int hash;
 
     private Topology(Builder builder) {
-        this.subtopologies = Collections.unmodifiableMap(new LinkedHashMap<>(builder.subtopologies));
-        this.globalStores = Collections.unmodifiableMap(new LinkedHashMap<>(builder.globalStores));
-        this.stateStores = Collections.unmodifiableMap(new LinkedHashMap<>(builder.stateStores));
-        this.topics = Collections.unmodifiableMap(new LinkedHashMap<>(builder.topics));
+        this(Collections.unmodifiableMap(new LinkedHashMap<>(builder.subtopologies)),
+             Collections.unmodifiableMap(new LinkedHashMap<>(builder.globalStores)),
+             null, null);
+    }
+
+    /**
+     * Creates a topology from maps which are already unmodifiable and may be shared with other topologies.
+     * The topic and state store tables may be {@code null}, in which case they are derived on first access.
+     */
+    private Topology(Map<Integer, TopologySubtopology> subtopologies, Map<String, TopologyNode> globalStores,
+                     Map<String, TopologyNode> stateStores, Map<String, TopologyNode> topics) {
+        this.subtopologies = subtopologies;
+        this.globalStores = globalStores;
+        this.stateStores = stateStores;
+        this.topics = topics;
     }
 
     public Map<Integer, TopologySubtopology> getSubtopologies() {
@@ -33,14 +52,320 @@ public class Topology {
         return globalStores;
     }
 
+    /**
+     * Returns the state stores accessed by the processors of all subtopologies.
+     * The table is derived on first access and cached.
+     *
+     * @return the state store nodes by name, in topology order
+     */
     public Map<String, TopologyNode> getStateStores() {
-        return stateStores;
+        Map<String, TopologyNode> result = stateStores;
+        if (result == null) {
+            result = Collections.unmodifiableMap(collectStateStores(subtopologies.values()));
+            stateStores = result;
+        }
+        return result;
     }
 
+    /**
+     * Returns the topics read or written by the sources and sinks of all subtopologies and by the global
+     * stores. The table is derived on first access and cached.
+     *
+     * @return the topic nodes by name, in topology order
+     */
     public Map<String, TopologyNode> getTopics() {
+        Map<String, TopologyNode> result = topics;
+        if (result == null) {
+            result = Collections.unmodifiableMap(collectTopics(subtopologies.values(), globalStores.values()));
+            topics = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a compact graph view of this topology in which nodes are identified by dense indices.
+     * The graph is built on first access and cached.
+     *
+     * @return the graph view
+     */
+    public TopologyGraph graph() {
+        TopologyGraph result = graph;
+        if (result == null) {
+            result = TopologyGraph.of(this);
+            graph = result;
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the subtopology node or global store with the given name through the name index of the
+     * {@link #graph()}.
+     *
+     * @param name the node name
+     * @return the node, or an empty optional if there is no such node
+     */
+    public Optional<TopologyNode> findNode(String name) {
+        TopologyGraph graph = graph();
+        int node = graph.node(name);
+        if (node < 0) {
+            return Optional.empty();
+        }
+        int subtopology = graph.subtopologyOf(node);
+        if (subtopology < 0) {
+            return Optional.ofNullable(globalStores.get(name));
+        }
+        return Optional.ofNullable(subtopologies.get(graph.subtopologyId(subtopology)).getNodes().get(name));
+    }
+
+    /**
+     * Looks up the id of the subtopology owning the node with the given name through the name index of the
+     * {@link #graph()}.
+     *
+     * @param name the node name
+     * @return the subtopology id, or an empty optional if there is no such node or it is a global store
+     */
+    public OptionalInt findSubtopologyId(String name) {
+        TopologyGraph graph = graph();
+        int node = graph.node(name);
+        int subtopology = node < 0 ? -1 : graph.subtopologyOf(node);
+        return subtopology < 0 ? OptionalInt.empty() : OptionalInt.of(graph.subtopologyId(subtopology));
+    }
+
+    /**
+     * Returns a topology in which the given subtopology is added, or replaces the subtopology with the same id.
+     * <p>
+     * All other subtopologies, their nodes and the global stores are shared with this topology; only the
+     * subtopology table is copied. The topic and state store tables are shared as well unless the new
+     * subtopology refers to different topics or stores than the one it replaces.
+     *
+     * @param subtopology the new subtopology
+     * @return the derived topology
+     */
+    public Topology withSubtopology(TopologySubtopology subtopology) {
+        TopologySubtopology previous = subtopologies.get(subtopology.getId());
+        if (previous == subtopology) {
+            return this;
+        }
+        Map<Integer, TopologySubtopology> newSubtopologies = new LinkedHashMap<>(subtopologies);
+        newSubtopologies.put(subtopology.getId(), subtopology);
+        Set<String> previousTopics = previous != null ? previous.getTopics() : Set.of();
+        Set<String> previousStores = previous != null ? previous.getStores() : Set.of();
+        return derive(newSubtopologies, globalStores,
+                      previousTopics.equals(subtopology.getTopics()),
+                      previousStores.equals(subtopology.getStores()));
+    }
+
+    /**
+     * Returns a topology without the subtopology with the given id, sharing all other parts with this topology.
+     *
+     * @param subtopologyId the id of the subtopology to remove
+     * @return the derived topology, or this topology if it has no such subtopology
+     */
+    public Topology withoutSubtopology(int subtopologyId) {
+        TopologySubtopology previous = subtopologies.get(subtopologyId);
+        if (previous == null) {
+            return this;
+        }
+        Map<Integer, TopologySubtopology> newSubtopologies = new LinkedHashMap<>(subtopologies);
+        newSubtopologies.remove(subtopologyId);
+        return derive(newSubtopologies, globalStores, previous.getTopics().isEmpty(), previous.getStores().isEmpty());
+    }
+
+    /**
+     * Returns a topology in which the given node is added to, or replaces a node of, a subtopology.
+     *
+     * @param subtopologyId the id of the subtopology
+     * @param node the new node
+     * @return the derived topology
+     * @throws IllegalArgumentException if there is no subtopology with the given id
+     * @see TopologySubtopology#withNode(TopologyNode)
+     */
+    public Topology withNode(int subtopologyId, TopologyNode node) {
+        TopologySubtopology subtopology = subtopologies.get(subtopologyId);
+        if (subtopology == null) {
+            throw new IllegalArgumentException("Unknown subtopology: " + subtopologyId);
+        }
+        return withSubtopology(subtopology.withNode(node));
+    }
+
+    /**
+     * Returns a topology without the node with the given name, which is either a node of a subtopology or
+     * a global store. Edges to and from a removed subtopology node are removed as well.
+     *
+     * @param name the name of the node
+     * @return the derived topology, or this topology if it has no such node
+     * @see TopologySubtopology#withoutNode(String)
+     */
+    public Topology withoutNode(String name) {
+        // Use the name index if the graph has been built already, but do not build it for a single removal
+        TopologyGraph current = graph;
+        if (current != null) {
+            int node = current.node(name);
+            int subtopology = node < 0 ? -1 : current.subtopologyOf(node);
+            if (subtopology >= 0) {
+                return withSubtopology(subtopologies.get(current.subtopologyId(subtopology)).withoutNode(name));
+            }
+            return withoutGlobalStore(name);
+        }
+        for (TopologySubtopology subtopology : subtopologies.values()) {
+            if (subtopology.getNodes().containsKey(name)) {
+                return withSubtopology(subtopology.withoutNode(name));
+            }
+        }
+        return withoutGlobalStore(name);
+    }
+
+    /**
+     * Returns a topology in which the given global store is added, or replaces the global store with the same
+     * name, sharing all subtopologies with this topology.
+     *
+     * @param globalStore the new global store
+     * @return the derived topology
+     * @throws IllegalArgumentException if the node is not a global store
+     */
+    public Topology withGlobalStore(TopologyNode globalStore) {
+        if (globalStore.getType() != NodeType.GLOBAL_STORE) {
+            throw new IllegalArgumentException("Node must be of type GLOBAL_STORE");
+        }
+        TopologyNode previous = globalStores.get(globalStore.getName());
+        if (previous == globalStore) {
+            return this;
+        }
+        Map<String, TopologyNode> newGlobalStores = new LinkedHashMap<>(globalStores);
+        newGlobalStores.put(globalStore.getName(), globalStore);
+        Set<String> previousTopics = previous != null ? previous.getTopics() : Set.of();
+        return derive(subtopologies, newGlobalStores, previousTopics.equals(globalStore.getTopics()), true);
+    }
+
+    /**
+     * Returns a topology without the global store with the given name, sharing all subtopologies with this
+     * topology.
+     *
+     * @param name the name of the global store
+     * @return the derived topology, or this topology if it has no such global store
+     */
+    public Topology withoutGlobalStore(String name) {
+        TopologyNode previous = globalStores.get(name);
+        if (previous == null) {
+            return this;
+        }
+        Map<String, TopologyNode> newGlobalStores = new LinkedHashMap<>(globalStores);
+        newGlobalStores.remove(name);
+        return derive(subtopologies, newGlobalStores, previous.getTopics().isEmpty(), true);
+    }
+
+    private Topology derive(Map<Integer, TopologySubtopology> newSubtopologies,
+                            Map<String, TopologyNode> newGlobalStores,
+                            boolean sameTopics, boolean sameStores) {
+        Map<Integer, TopologySubtopology> sharedSubtopologies = newSubtopologies == subtopologies
+                ? subtopologies : Collections.unmodifiableMap(newSubtopologies);
+        Map<String, TopologyNode> sharedGlobalStores = newGlobalStores == globalStores
+                ? globalStores : Collections.unmodifiableMap(newGlobalStores);
+        // Unchanged tables are shared, if they have been derived already; changed ones are derived on demand
+        return new Topology(sharedSubtopologies, sharedGlobalStores,
+                            sameStores ? stateStores : null, sameTopics ? topics : null);
+    }
+
+    /**
+     * Collects the topics of all source and sink nodes and global stores.
+     */
+    private static Map<String, TopologyNode> collectTopics(Collection<TopologySubtopology> subtopologies,
+                                                           Collection<TopologyNode> globalStores) {
+        // The per-subtopology topic sets are cached, so reused subtopologies are not scanned again
+        Map<String, TopologyNode> topics = new LinkedHashMap<>();
+        for (TopologySubtopology subtopology : subtopologies) {
+            for (String topicName : subtopology.getTopics()) {
+                topics.computeIfAbsent(topicName, name -> node(name, NodeType.TOPIC));
+            }
+        }
+        for (TopologyNode globalStore : globalStores) {
+            Set<String> topicNames = new LinkedHashSet<>();
+            TopologySubtopology.addSorted(topicNames, globalStore.getTopics());
+            for (String topicName : topicNames) {
+                topics.computeIfAbsent(topicName, name -> node(name, NodeType.TOPIC));
+            }
+        }
         return topics;
     }
 
+    /**
+     * Collects the state stores of all processor nodes.
+     */
+    private static Map<String, TopologyNode> collectStateStores(Collection<TopologySubtopology> subtopologies) {
+        Map<String, TopologyNode> stateStores = new LinkedHashMap<>();
+        for (TopologySubtopology subtopology : subtopologies) {
+            for (String storeName : subtopology.getStores()) {
+                stateStores.computeIfAbsent(storeName, name -> node(name, NodeType.STATE_STORE));
+            }
+        }
+        return stateStores;
+    }
+
+    private static TopologyNode node(String name, NodeType type) {
+        return TopologyNode.builder(name, type).build();
+    }
+
+    /**
+     * Returns the index of the connections through topics and state stores, e.g. the sources reading a topic
+     * or the subtopologies downstream of a subtopology. The index is built on first access and cached.
+     *
+     * @return the connection index
+     */
+    public TopologyConnections connections() {
+        TopologyConnections result = connections;
+        if (result == null) {
+            result = TopologyConnections.of(graph());
+            connections = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bit set index of node attributes, for filtering nodes by type, statefulness, subtopology
+     * and attached topics or stores. The index is built on first access and cached.
+     *
+     * @return the attribute index
+     */
+    public TopologyAttributeIndex attributeIndex() {
+        TopologyAttributeIndex result = attributeIndex;
+        if (result == null) {
+            result = TopologyAttributeIndex.of(graph(), connections());
+            attributeIndex = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lineage index answering which nodes, topics and stores are upstream or downstream of a node.
+     * The index is built on first access and cached.
+     *
+     * @return the lineage index
+     */
+    public TopologyLineage lineage() {
+        TopologyLineage result = lineage;
+        if (result == null) {
+            result = TopologyLineage.of(graph(), connections());
+            lineage = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the content fingerprint of this topology, computed from the fingerprints of its subtopologies in
+     * id order and of its global stores in name order. It is computed on first access and cached; a topology
+     * derived with one of the {@code with}/{@code without} methods only hashes the subtopologies it changes.
+     *
+     * @return the fingerprint
+     */
+    public Fingerprint fingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            result = FingerprintHasher.of(this);
+            fingerprint = result;
+        }
+        return result;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -50,15 +375,21 @@ public class Topology {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Topology topology = (Topology) o;
-        return Objects.equals(subtopologies, topology.subtopologies) &&
-               Objects.equals(globalStores, topology.globalStores) &&
-               Objects.equals(stateStores, topology.stateStores) &&
-               Objects.equals(topics, topology.topics);
+        // The topic and state store tables are derived from the subtopologies and global stores
+        return hashCode() == topology.hashCode() &&
+               Objects.equals(subtopologies, topology.subtopologies) &&
+               Objects.equals(globalStores, topology.globalStores);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(subtopologies, globalStores, stateStores, topics);
+        // Computed once; unchanged subtopologies shared with other topologies contribute their cached hashes
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(subtopologies, globalStores);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -66,16 +397,14 @@ public class Topology {
         return "Topology{" +
                "subtopologies=" + subtopologies +
                ", globalStores=" + globalStores +
-               ", stateStores=" + stateStores +
-               ", topics=" + topics +
+               ", stateStores=" + getStateStores() +
+               ", topics=" + getTopics() +
                '}';
     }
 
     public static class Builder {
         private final Map<Integer, TopologySubtopology> subtopologies = new LinkedHashMap<>();
         private final Map<String, TopologyNode> globalStores = new LinkedHashMap<>();
-        private final Map<String, TopologyNode> stateStores = new LinkedHashMap<>();
-        private final Map<String, TopologyNode> topics = new LinkedHashMap<>();
 
         private Builder() {
         }
@@ -93,91 +422,14 @@ public class Topology {
             return this;
         }
 
+        /**
+         * Builds the topology. Only the subtopology and global store tables are copied; the topic and
+         * state store tables are derived when they are first accessed.
+         *
+         * @return the topology
+         */
         public Topology build() {
-            // Extract topics from source and sink nodes
-            extractTopics();
-            // Extract state stores from processor nodes
-            extractStateStores();
-            // Auto-detect connections between subtopologies
-            detectSubtopologyConnections();
             return new Topology(this);
         }
-
-        private void extractTopics() {
-            // Collect all unique topics from source and sink nodes
-            for (TopologySubtopology subtopology : subtopologies.values()) {
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if ((node.getType() == NodeType.SOURCE || node.getType() == NodeType.SINK)
-                        && !node.getTopics().isEmpty()) {
-                        for (String topicName : node.getTopics()) {
-                            // Create a topic node if it doesn't already exist
-                            if (!topics.containsKey(topicName)) {
-                                TopologyNode topicNode = TopologyNode.builder(topicName, NodeType.TOPIC)
-                                        .build();
-                                topics.put(topicName, topicNode);
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Also extract topics from global stores
-            for (TopologyNode globalStore : globalStores.values()) {
-                for (String topicName : globalStore.getTopics()) {
-                    if (!topics.containsKey(topicName)) {
-                        TopologyNode topicNode = TopologyNode.builder(topicName, NodeType.TOPIC)
-                                .build();
-                        topics.put(topicName, topicNode);
-                    }
-                }
-            }
-        }
-
-        private void extractStateStores() {
-            // Collect all unique state stores from processor nodes
-            for (TopologySubtopology subtopology : subtopologies.values()) {
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if (node.getType() == NodeType.PROCESSOR && !node.getStores().isEmpty()) {
-                        for (String storeName : node.getStores()) {
-                            // Create a state store node if it doesn't already exist
-                            if (!stateStores.containsKey(storeName)) {
-                                TopologyNode storeNode = TopologyNode.builder(storeName, NodeType.STATE_STORE)
-                                        .build();
-                                stateStores.put(storeName, storeNode);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        private void detectSubtopologyConnections() {
-            // Map topics to their source nodes
-            Map<String, List<SourceInfo>> topicToSources = new HashMap<>();
-            for (Map.Entry<Integer, TopologySubtopology> entry : subtopologies.entrySet()) {
-                int subtopologyId = entry.getKey();
-                TopologySubtopology subtopology = entry.getValue();
-
-                for (TopologyNode node : subtopology.getNodes().values()) {
-                    if (node.getType() == NodeType.SOURCE) {
-                        for (String topic : node.getTopics()) {
-                            topicToSources
-                                .computeIfAbsent(topic, k -> new ArrayList<>())
-                                .add(new SourceInfo(subtopologyId, node.getName()));
-                        }
-                    }
-                }
-            }
-        }
-
-        private static class SourceInfo {
-            final int subtopologyId;
-            final String nodeName;
-
-            SourceInfo(int subtopologyId, String nodeName) {
-                this.subtopologyId = subtopologyId;
-                this.nodeName = nodeName;
-            }
-        }
     }
 }
@@ -0,0 +1,235 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Bit set index of node attributes over the dense node numbering of a {@link TopologyGraph}.
+ * <p>
+ * Every query returns a new {@link BitSet} in which bit {@code n} is set for the matching graph node {@code n},
+ * so that queries can be combined with {@link BitSet#and(BitSet)}, {@link BitSet#or(BitSet)} and
+ * {@link BitSet#andNot(BitSet)}, e.g. all stateful processors of the subtopologies 3 to 17:
+ * <pre>{@code
+ * TopologyAttributeIndex index = topology.attributeIndex();
+ * BitSet nodes = index.stateful();
+ * nodes.and(index.inSubtopologies(3, 17));
+ * for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+ *     String name = topology.graph().name(node);
+ * }
+ * }</pre>
+ * Instances are obtained from {@link Topology#attributeIndex()}.
+ */
+public final class TopologyAttributeIndex {
+
+    private final TopologyGraph graph;
+    private final TopologyConnections connections;
+    private final BitSet[] byType;
+    private final BitSet stateful;
+    private final BitSet withTopics;
+
+    private TopologyAttributeIndex(TopologyGraph graph, TopologyConnections connections) {
+        this.graph = graph;
+        this.connections = connections;
+        int nodeCount = graph.nodeCount();
+        NodeType[] types = NodeType.values();
+        this.byType = new BitSet[types.length];
+        for (NodeType type : types) {
+            byType[type.ordinal()] = new BitSet(nodeCount);
+        }
+        this.stateful = new BitSet(nodeCount);
+        this.withTopics = new BitSet(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            byType[graph.type(node).ordinal()].set(node);
+            if (graph.storesEnd(node) > graph.storesStart(node)) {
+                stateful.set(node);
+            }
+            if (graph.topicsEnd(node) > graph.topicsStart(node)) {
+                withTopics.set(node);
+            }
+        }
+    }
+
+    /**
+     * Builds the attribute index in a single pass over the nodes of the graph.
+     *
+     * @param graph the graph of the topology
+     * @param connections the connection index of the topology
+     * @return the attribute index
+     */
+    static TopologyAttributeIndex of(TopologyGraph graph, TopologyConnections connections) {
+        return new TopologyAttributeIndex(graph, connections);
+    }
+
+    /**
+     * Returns all nodes of the given type.
+     *
+     * @param type the node type
+     * @return the matching graph nodes
+     */
+    public BitSet ofType(NodeType type) {
+        return (BitSet) byType[type.ordinal()].clone();
+    }
+
+    /**
+     * Returns all nodes accessing at least one state store.
+     *
+     * @return the matching graph nodes
+     */
+    public BitSet stateful() {
+        return (BitSet) stateful.clone();
+    }
+
+    /**
+     * Returns all sources, sinks and global stores attached to at least one topic.
+     *
+     * @return the matching graph nodes
+     */
+    public BitSet withTopics() {
+        return (BitSet) withTopics.clone();
+    }
+
+    /**
+     * Returns all nodes of the subtopology with the given id.
+     *
+     * @param subtopologyId the subtopology id
+     * @return the matching graph nodes; empty for unknown subtopologies
+     */
+    public BitSet inSubtopology(int subtopologyId) {
+        return inSubtopologies(subtopologyId, subtopologyId);
+    }
+
+    /**
+     * Returns all nodes of the subtopologies with ids in the given range.
+     *
+     * @param fromId the smallest subtopology id, inclusive
+     * @param toId the largest subtopology id, inclusive
+     * @return the matching graph nodes
+     */
+    public BitSet inSubtopologies(int fromId, int toId) {
+        return inSubtopologies(id -> id >= fromId && id <= toId);
+    }
+
+    /**
+     * Returns all nodes of the subtopologies whose ids match the given predicate.
+     *
+     * @param subtopologyIds the predicate on subtopology ids
+     * @return the matching graph nodes
+     */
+    public BitSet inSubtopologies(IntPredicate subtopologyIds) {
+        // The nodes of a subtopology are numbered consecutively, so each subtopology is a single range
+        BitSet result = new BitSet(graph.nodeCount());
+        for (int subtopology = 0; subtopology < graph.subtopologyCount(); subtopology++) {
+            if (subtopologyIds.test(graph.subtopologyId(subtopology))) {
+                result.set(graph.subtopologyStart(subtopology), graph.subtopologyEnd(subtopology));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all topics whose name matches the given predicate.
+     *
+     * @param names the predicate on topic names
+     * @return the matching graph nodes
+     */
+    public BitSet topics(Predicate<String> names) {
+        BitSet result = new BitSet(graph.nodeCount());
+        for (int topic = graph.firstTopic(); topic < graph.firstStateStore(); topic++) {
+            if (names.test(graph.name(topic))) {
+                result.set(topic);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all sources reading from a topic whose name matches the given predicate.
+     *
+     * @param topics the predicate on topic names
+     * @return the matching graph nodes
+     */
+    public BitSet readingFrom(Predicate<String> topics) {
+        return readingFrom(topics(topics));
+    }
+
+    /**
+     * Returns all sources reading from one of the given topic nodes.
+     *
+     * @param topicNodes graph nodes of topics, e.g. the {@link #internalTopics()}
+     * @return the matching graph nodes
+     */
+    public BitSet readingFrom(BitSet topicNodes) {
+        BitSet result = new BitSet(graph.nodeCount());
+        for (int topic = topicNodes.nextSetBit(graph.firstTopic());
+             topic >= 0 && topic < graph.firstStateStore();
+             topic = topicNodes.nextSetBit(topic + 1)) {
+            for (int i = connections.consumersStart(topic); i < connections.consumersEnd(topic); i++) {
+                result.set(connections.consumerAt(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all sinks writing to a topic whose name matches the given predicate.
+     *
+     * @param topics the predicate on topic names
+     * @return the matching graph nodes
+     */
+    public BitSet writingTo(Predicate<String> topics) {
+        return writingTo(topics(topics));
+    }
+
+    /**
+     * Returns all sinks writing to one of the given topic nodes.
+     *
+     * @param topicNodes graph nodes of topics, e.g. the {@link #internalTopics()}
+     * @return the matching graph nodes
+     */
+    public BitSet writingTo(BitSet topicNodes) {
+        BitSet result = new BitSet(graph.nodeCount());
+        for (int topic = topicNodes.nextSetBit(graph.firstTopic());
+             topic >= 0 && topic < graph.firstStateStore();
+             topic = topicNodes.nextSetBit(topic + 1)) {
+            for (int i = connections.producersStart(topic); i < connections.producersEnd(topic); i++) {
+                result.set(connections.producerAt(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all processors accessing a state store whose name matches the given predicate.
+     *
+     * @param stores the predicate on store names
+     * @return the matching graph nodes
+     */
+    public BitSet accessing(Predicate<String> stores) {
+        BitSet result = new BitSet(graph.nodeCount());
+        for (int store = graph.firstStateStore(); store < graph.firstGlobalStore(); store++) {
+            if (stores.test(graph.name(store))) {
+                for (int i = connections.accessorsStart(store); i < connections.accessorsEnd(store); i++) {
+                    result.set(connections.accessorAt(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all topics which are both written and read within the topology, such as repartition topics.
+     *
+     * @return the matching graph nodes
+     */
+    public BitSet internalTopics() {
+        BitSet result = new BitSet(graph.nodeCount());
+        for (int topic = graph.firstTopic(); topic < graph.firstStateStore(); topic++) {
+            if (connections.producersEnd(topic) > connections.producersStart(topic)
+                    && connections.consumersEnd(topic) > connections.consumersStart(topic)) {
+                result.set(topic);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,343 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Index of the connections of a {@link Topology} through its topics and state stores:
+ * <ul>
+ *   <li>topic → sinks writing to it</li>
+ *   <li>topic → sources reading from it</li>
+ *   <li>state store → processors accessing it</li>
+ *   <li>subtopology → downstream subtopologies, which read a topic written by the subtopology, and the
+ *       reverse upstream relation</li>
+ * </ul>
+ * The index refers to nodes and subtopologies by their {@link TopologyGraph} indices, using the same
+ * compressed sparse row layout as the graph; name based accessors, which resolve names through the hash
+ * indices of the graph, are provided for convenience. Only
+ * sources and sinks of subtopologies are considered, global stores are not.
+ * <p>
+ * Instances are obtained from {@link Topology#connections()}.
+ */
+public final class TopologyConnections {
+
+    private final TopologyGraph graph;
+    private final int[] producerOffsets;
+    private final int[] producerTargets;
+    private final int[] consumerOffsets;
+    private final int[] consumerTargets;
+    private final int[] accessorOffsets;
+    private final int[] accessorTargets;
+    private final int[] downstreamOffsets;
+    private final int[] downstreamTargets;
+    private final int[] upstreamOffsets;
+    private final int[] upstreamTargets;
+
+    private TopologyConnections(TopologyGraph graph) {
+        this.graph = graph;
+        int topicCount = graph.firstStateStore() - graph.firstTopic();
+        int storeCount = graph.firstGlobalStore() - graph.firstStateStore();
+
+        // Count the references of every topic and store, then fill the target arrays in node order
+        int[] producerCounts = new int[topicCount + 1];
+        int[] consumerCounts = new int[topicCount + 1];
+        int[] accessorCounts = new int[storeCount + 1];
+        for (int node = 0; node < graph.firstTopic(); node++) {
+            int[] counts = topicCounts(graph.type(node), producerCounts, consumerCounts);
+            if (counts != null) {
+                for (int i = graph.topicsStart(node); i < graph.topicsEnd(node); i++) {
+                    counts[graph.topicAt(i) - graph.firstTopic() + 1]++;
+                }
+            }
+            if (graph.type(node) == NodeType.PROCESSOR) {
+                for (int i = graph.storesStart(node); i < graph.storesEnd(node); i++) {
+                    accessorCounts[graph.storeAt(i) - graph.firstStateStore() + 1]++;
+                }
+            }
+        }
+        this.producerOffsets = prefixSums(producerCounts);
+        this.consumerOffsets = prefixSums(consumerCounts);
+        this.accessorOffsets = prefixSums(accessorCounts);
+        this.producerTargets = new int[producerOffsets[topicCount]];
+        this.consumerTargets = new int[consumerOffsets[topicCount]];
+        this.accessorTargets = new int[accessorOffsets[storeCount]];
+
+        int[] nextProducer = Arrays.copyOf(producerOffsets, topicCount);
+        int[] nextConsumer = Arrays.copyOf(consumerOffsets, topicCount);
+        int[] nextAccessor = Arrays.copyOf(accessorOffsets, storeCount);
+        for (int node = 0; node < graph.firstTopic(); node++) {
+            NodeType type = graph.type(node);
+            if (type == NodeType.SINK || type == NodeType.SOURCE) {
+                int[] targets = type == NodeType.SINK ? producerTargets : consumerTargets;
+                int[] next = type == NodeType.SINK ? nextProducer : nextConsumer;
+                for (int i = graph.topicsStart(node); i < graph.topicsEnd(node); i++) {
+                    targets[next[graph.topicAt(i) - graph.firstTopic()]++] = node;
+                }
+            } else if (type == NodeType.PROCESSOR) {
+                for (int i = graph.storesStart(node); i < graph.storesEnd(node); i++) {
+                    accessorTargets[nextAccessor[graph.storeAt(i) - graph.firstStateStore()]++] = node;
+                }
+            }
+        }
+
+        // Derive the subtopology relation from the writers and readers of every topic
+        int subtopologyCount = graph.subtopologyCount();
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        for (int topic = 0; topic < topicCount; topic++) {
+            for (int p = producerOffsets[topic]; p < producerOffsets[topic + 1]; p++) {
+                int upstream = graph.subtopologyOf(producerTargets[p]);
+                for (int c = consumerOffsets[topic]; c < consumerOffsets[topic + 1]; c++) {
+                    int downstream = graph.subtopologyOf(consumerTargets[c]);
+                    if (upstream != downstream) {
+                        if (pairCount == pairs.length) {
+                            pairs = Arrays.copyOf(pairs, pairCount * 2);
+                        }
+                        pairs[pairCount++] = (long) upstream << 32 | downstream;
+                    }
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int[] downstreamCounts = new int[subtopologyCount + 1];
+        int[] upstreamCounts = new int[subtopologyCount + 1];
+        int unique = 0;
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                pairs[unique++] = pairs[i];
+                downstreamCounts[(int) (pairs[i] >>> 32) + 1]++;
+                upstreamCounts[(int) pairs[i] + 1]++;
+            }
+        }
+        this.downstreamOffsets = prefixSums(downstreamCounts);
+        this.upstreamOffsets = prefixSums(upstreamCounts);
+        this.downstreamTargets = new int[unique];
+        this.upstreamTargets = new int[unique];
+        int[] nextUpstream = Arrays.copyOf(upstreamOffsets, subtopologyCount);
+        for (int i = 0; i < unique; i++) {
+            int upstream = (int) (pairs[i] >>> 32);
+            int downstream = (int) pairs[i];
+            // The pairs are sorted by upstream subtopology, so the downstream lists are filled in order
+            downstreamTargets[i] = downstream;
+            upstreamTargets[nextUpstream[downstream]++] = upstream;
+        }
+    }
+
+    /**
+     * Builds the connection index of the given graph in time linear in the number of its topic references.
+     *
+     * @param graph the graph of the topology
+     * @return the connection index
+     */
+    static TopologyConnections of(TopologyGraph graph) {
+        return new TopologyConnections(graph);
+    }
+
+    /**
+     * Returns the start of the sinks writing to the given topic.
+     *
+     * @param topic the graph index of the topic node
+     * @return the position of the first sink in {@link #producerAt(int)}
+     */
+    public int producersStart(int topic) {
+        return producerOffsets[topic - graph.firstTopic()];
+    }
+
+    public int producersEnd(int topic) {
+        return producerOffsets[topic - graph.firstTopic() + 1];
+    }
+
+    public int producerAt(int position) {
+        return producerTargets[position];
+    }
+
+    /**
+     * Returns the start of the sources reading from the given topic.
+     *
+     * @param topic the graph index of the topic node
+     * @return the position of the first source in {@link #consumerAt(int)}
+     */
+    public int consumersStart(int topic) {
+        return consumerOffsets[topic - graph.firstTopic()];
+    }
+
+    public int consumersEnd(int topic) {
+        return consumerOffsets[topic - graph.firstTopic() + 1];
+    }
+
+    public int consumerAt(int position) {
+        return consumerTargets[position];
+    }
+
+    /**
+     * Returns the start of the processors accessing the given state store.
+     *
+     * @param store the graph index of the state store node
+     * @return the position of the first processor in {@link #accessorAt(int)}
+     */
+    public int accessorsStart(int store) {
+        return accessorOffsets[store - graph.firstStateStore()];
+    }
+
+    public int accessorsEnd(int store) {
+        return accessorOffsets[store - graph.firstStateStore() + 1];
+    }
+
+    public int accessorAt(int position) {
+        return accessorTargets[position];
+    }
+
+    /**
+     * Returns the start of the subtopologies reading a topic written by the given subtopology.
+     *
+     * @param subtopology the position of the subtopology in the graph
+     * @return the position of the first downstream subtopology in {@link #downstreamAt(int)}
+     */
+    public int downstreamStart(int subtopology) {
+        return downstreamOffsets[subtopology];
+    }
+
+    public int downstreamEnd(int subtopology) {
+        return downstreamOffsets[subtopology + 1];
+    }
+
+    public int downstreamAt(int position) {
+        return downstreamTargets[position];
+    }
+
+    /**
+     * Returns the start of the subtopologies writing a topic read by the given subtopology.
+     *
+     * @param subtopology the position of the subtopology in the graph
+     * @return the position of the first upstream subtopology in {@link #upstreamAt(int)}
+     */
+    public int upstreamStart(int subtopology) {
+        return upstreamOffsets[subtopology];
+    }
+
+    public int upstreamEnd(int subtopology) {
+        return upstreamOffsets[subtopology + 1];
+    }
+
+    public int upstreamAt(int position) {
+        return upstreamTargets[position];
+    }
+
+    /**
+     * Returns the names of the sinks writing to the given topic.
+     *
+     * @param topic the topic name
+     * @return the sink names, in topology order; empty for unknown topics
+     */
+    public Set<String> getProducers(String topic) {
+        int index = graph.topic(topic);
+        return index < 0 ? Set.of() : names(producerTargets, producersStart(index), producersEnd(index));
+    }
+
+    /**
+     * Returns the names of the sources reading from the given topic.
+     *
+     * @param topic the topic name
+     * @return the source names, in topology order; empty for unknown topics
+     */
+    public Set<String> getConsumers(String topic) {
+        int index = graph.topic(topic);
+        return index < 0 ? Set.of() : names(consumerTargets, consumersStart(index), consumersEnd(index));
+    }
+
+    /**
+     * Returns the names of the processors accessing the given state store.
+     *
+     * @param store the store name
+     * @return the processor names, in topology order; empty for unknown stores
+     */
+    public Set<String> getAccessors(String store) {
+        int index = graph.store(store);
+        return index < 0 ? Set.of() : names(accessorTargets, accessorsStart(index), accessorsEnd(index));
+    }
+
+    /**
+     * Returns the ids of the subtopologies writing to the given topic.
+     *
+     * @param topic the topic name
+     * @return the subtopology ids, in topology order; empty for unknown topics
+     */
+    public Set<Integer> getWritingSubtopologies(String topic) {
+        int index = graph.topic(topic);
+        return index < 0 ? Set.of() : owners(producerTargets, producersStart(index), producersEnd(index));
+    }
+
+    /**
+     * Returns the ids of the subtopologies reading from the given topic.
+     *
+     * @param topic the topic name
+     * @return the subtopology ids, in topology order; empty for unknown topics
+     */
+    public Set<Integer> getReadingSubtopologies(String topic) {
+        int index = graph.topic(topic);
+        return index < 0 ? Set.of() : owners(consumerTargets, consumersStart(index), consumersEnd(index));
+    }
+
+    /**
+     * Returns the ids of the subtopologies reading a topic written by the given subtopology.
+     *
+     * @param subtopologyId the subtopology id
+     * @return the downstream subtopology ids; empty for unknown subtopologies
+     */
+    public Set<Integer> getDownstreamSubtopologies(int subtopologyId) {
+        int index = graph.subtopologyIndex(subtopologyId);
+        return index < 0 ? Set.of() : ids(downstreamTargets, downstreamStart(index), downstreamEnd(index));
+    }
+
+    /**
+     * Returns the ids of the subtopologies writing a topic read by the given subtopology.
+     *
+     * @param subtopologyId the subtopology id
+     * @return the upstream subtopology ids; empty for unknown subtopologies
+     */
+    public Set<Integer> getUpstreamSubtopologies(int subtopologyId) {
+        int index = graph.subtopologyIndex(subtopologyId);
+        return index < 0 ? Set.of() : ids(upstreamTargets, upstreamStart(index), upstreamEnd(index));
+    }
+
+    private Set<String> names(int[] nodes, int start, int end) {
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = start; i < end; i++) {
+            names.add(graph.name(nodes[i]));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private Set<Integer> ids(int[] subtopologies, int start, int end) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = start; i < end; i++) {
+            ids.add(graph.subtopologyId(subtopologies[i]));
+        }
+        return Collections.unmodifiableSet(ids);
+    }
+
+    private Set<Integer> owners(int[] nodes, int start, int end) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = start; i < end; i++) {
+            ids.add(graph.subtopologyId(graph.subtopologyOf(nodes[i])));
+        }
+        return Collections.unmodifiableSet(ids);
+    }
+
+    private static int[] topicCounts(NodeType type, int[] producerCounts, int[] consumerCounts) {
+        return switch (type) {
+            case SINK -> producerCounts;
+            case SOURCE -> consumerCounts;
+            default -> null;
+        };
+    }
+
+    private static int[] prefixSums(int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,760 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * The structural difference between two versions of a {@link Topology}: the subtopologies, nodes, edges,
+ * topics and state stores which were added, removed or changed from the {@code before} to the {@code after}
+ * topology.
+ * <p>
+ * Subtopologies are matched in rounds, each considering only the subtopologies left over by the previous ones:
+ * <ol>
+ *   <li>subtopologies with the same id and {@link TopologySubtopology#fingerprint() fingerprint}, which are
+ *       skipped without looking at their nodes,</li>
+ *   <li>subtopologies with the same nodes under a different id,</li>
+ *   <li>subtopologies sharing the most node names,</li>
+ *   <li>subtopologies sharing the most input topics, which are read by no other subtopology,</li>
+ *   <li>subtopologies with the same id.</li>
+ * </ol>
+ * Nodes are matched by name, then the remaining ones by edges. Kafka Streams generates ten digit numbers for
+ * operator names, which shift for all later operators when an operator is inserted, so the nodes left over
+ * in a pair of matched subtopologies are paired as {@linkplain #getRenamedNodes() renamed} if they only differ
+ * in these numbers and both subtopologies have the same number of such nodes; they are paired in name order.
+ * Of the nodes still left over, a node is paired with the counterpart of a matched neighbour if that is the
+ * only unmatched node of the same type and name apart from the numbers connected the same way.
+ * <p>
+ * Edges are the connections drawn by the formatters: from a node to its successors, from a topic to the
+ * sources reading it, from a sink to its topics and from a processor to the state stores it accesses. Nodes
+ * and edges are reported under their names in the after topology; removed nodes and edges under their names
+ * in the before topology, with renamed nodes translated to their new names.
+ * <p>
+ * All matching goes through hash tables, so a diff takes time linear in the size of the subtopologies which
+ * differ, plus sorting the reported changes; nodes are never compared pairwise. Instances are immutable.
+ */
+public final class TopologyDiff {
+
+    /**
+     * The kind of a change.
+     */
+    public enum Change {
+        /**
+         * Only present in the after topology.
+         */
+        ADDED,
+
+        /**
+         * Only present in the before topology.
+         */
+        REMOVED,
+
+        /**
+         * Present in both topologies, with different content or connections.
+         */
+        CHANGED
+    }
+
+    /**
+     * A directed edge between two nodes, topics or state stores, identified by their names.
+     */
+    public static final class Edge implements Comparable<Edge> {
+        private final String from;
+        private final String to;
+
+        public Edge(String from, String to) {
+            this.from = Objects.requireNonNull(from, "from cannot be null");
+            this.to = Objects.requireNonNull(to, "to cannot be null");
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        @Override
+        public int compareTo(Edge other) {
+            int result = from.compareTo(other.from);
+            return result != 0 ? result : to.compareTo(other.to);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Edge that = (Edge) o;
+            return from.equals(that.from) && to.equals(that.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * from.hashCode() + to.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + to;
+        }
+    }
+
+    private final Topology before;
+    private final Topology after;
+    private final Map<Integer, Integer> subtopologyMatches;
+    private final Set<Integer> addedSubtopologies;
+    private final Set<Integer> removedSubtopologies;
+    private final Set<Integer> changedSubtopologies;
+    private final Map<String, String> renamedNodes;
+    private final Map<String, Change> nodeChanges;
+    private final Map<Edge, Change> edgeChanges;
+    private final Map<String, Change> topicChanges;
+    private final Map<String, Change> storeChanges;
+
+    private TopologyDiff(Matcher matcher) {
+        this.before = matcher.before;
+        this.after = matcher.after;
+        this.subtopologyMatches = Collections.unmodifiableMap(new TreeMap<>(matcher.matches));
+
+        Set<Integer> added = new TreeSet<>(after.getSubtopologies().keySet());
+        added.removeAll(matcher.matchedAfter);
+        Set<Integer> removed = new TreeSet<>(before.getSubtopologies().keySet());
+        removed.removeAll(matcher.matches.keySet());
+        Set<Integer> changed = new TreeSet<>();
+        for (Map.Entry<Integer, Integer> match : matcher.matches.entrySet()) {
+            if (!matcher.identical.contains(match.getKey())) {
+                changed.add(match.getValue());
+            }
+        }
+        this.addedSubtopologies = Collections.unmodifiableSet(added);
+        this.removedSubtopologies = Collections.unmodifiableSet(removed);
+        this.changedSubtopologies = Collections.unmodifiableSet(changed);
+
+        this.renamedNodes = Collections.unmodifiableMap(new TreeMap<>(matcher.renames));
+        this.nodeChanges = Collections.unmodifiableMap(new TreeMap<>(matcher.nodeChanges));
+        this.edgeChanges = Collections.unmodifiableMap(new TreeMap<>(matcher.edgeChanges));
+        this.topicChanges = Collections.unmodifiableMap(new TreeMap<>(matcher.topicChanges));
+        this.storeChanges = Collections.unmodifiableMap(new TreeMap<>(matcher.storeChanges));
+    }
+
+    /**
+     * Computes the difference between two topologies.
+     *
+     * @param before the old topology
+     * @param after the new topology
+     * @return the difference
+     */
+    public static TopologyDiff between(Topology before, Topology after) {
+        Matcher matcher = new Matcher(Objects.requireNonNull(before, "before cannot be null"),
+                Objects.requireNonNull(after, "after cannot be null"));
+        matcher.matchSubtopologies();
+        matcher.matchNodes();
+        return new TopologyDiff(matcher);
+    }
+
+    public Topology getBefore() {
+        return before;
+    }
+
+    public Topology getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns the matched subtopologies, including unchanged ones.
+     *
+     * @return the ids of the matched subtopologies in the after topology by their id in the before topology,
+     * in id order
+     */
+    public Map<Integer, Integer> getSubtopologyMatches() {
+        return subtopologyMatches;
+    }
+
+    /**
+     * Returns the subtopologies of the after topology which were not matched.
+     *
+     * @return the subtopology ids, in id order
+     */
+    public Set<Integer> getAddedSubtopologies() {
+        return addedSubtopologies;
+    }
+
+    /**
+     * Returns the subtopologies of the before topology which were not matched.
+     *
+     * @return the subtopology ids, in id order
+     */
+    public Set<Integer> getRemovedSubtopologies() {
+        return removedSubtopologies;
+    }
+
+    /**
+     * Returns the subtopologies of the after topology whose nodes differ from the subtopology they were
+     * matched with.
+     *
+     * @return the subtopology ids, in id order
+     */
+    public Set<Integer> getChangedSubtopologies() {
+        return changedSubtopologies;
+    }
+
+    /**
+     * Returns the nodes which only differ in the numbers generated for their names. A renamed node is only
+     * reported as {@link Change#CHANGED changed} if it differs otherwise, too.
+     *
+     * @return the new node names by old node name, in name order
+     */
+    public Map<String, String> getRenamedNodes() {
+        return renamedNodes;
+    }
+
+    /**
+     * Returns the added, removed and changed subtopology nodes and global stores. A node is changed if its
+     * type, topics, stores or edges differ or if it moved to a different subtopology than the one its old
+     * subtopology was matched with.
+     *
+     * @return the changes by node name, in name order
+     */
+    public Map<String, Change> getNodeChanges() {
+        return nodeChanges;
+    }
+
+    /**
+     * Returns the added and removed edges.
+     *
+     * @return the changes by edge, in edge order
+     */
+    public Map<Edge, Change> getEdgeChanges() {
+        return edgeChanges;
+    }
+
+    /**
+     * Returns the added and removed topics, and the topics in both topologies which gained or lost an edge.
+     *
+     * @return the changes by topic name, in name order
+     */
+    public Map<String, Change> getTopicChanges() {
+        return topicChanges;
+    }
+
+    /**
+     * Returns the added and removed state stores, and the state stores in both topologies which gained or lost
+     * an accessing processor.
+     *
+     * @return the changes by store name, in name order
+     */
+    public Map<String, Change> getStoreChanges() {
+        return storeChanges;
+    }
+
+    /**
+     * Returns whether both topologies are the same, apart from the iteration order of their nodes.
+     *
+     * @return {@code true} if no subtopology was added, removed, changed or renumbered
+     */
+    public boolean isEmpty() {
+        if (!addedSubtopologies.isEmpty() || !removedSubtopologies.isEmpty() || !changedSubtopologies.isEmpty()
+                || !nodeChanges.isEmpty() || !renamedNodes.isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<Integer, Integer> match : subtopologyMatches.entrySet()) {
+            if (!match.getKey().equals(match.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TopologyDiff{" +
+               "subtopologyMatches=" + subtopologyMatches +
+               ", addedSubtopologies=" + addedSubtopologies +
+               ", removedSubtopologies=" + removedSubtopologies +
+               ", renamedNodes=" + renamedNodes +
+               ", nodeChanges=" + nodeChanges +
+               ", edgeChanges=" + edgeChanges +
+               ", topicChanges=" + topicChanges +
+               ", storeChanges=" + storeChanges +
+               '}';
+    }
+
+    /**
+     * A node together with the id of its subtopology, which is {@code null} for global stores.
+     */
+    private static final class Located {
+        final TopologyNode node;
+        final Integer subtopologyId;
+
+        Located(TopologyNode node, Integer subtopologyId) {
+            this.node = node;
+            this.subtopologyId = subtopologyId;
+        }
+    }
+
+    /**
+     * Working state of the computation of a diff.
+     */
+    private static final class Matcher {
+        private final Topology before;
+        private final Topology after;
+        private final Map<Integer, Integer> matches = new HashMap<>();
+        private final Set<Integer> matchedAfter = new HashSet<>();
+        // Before ids of the matches with the same nodes, whose nodes are not compared
+        private final Set<Integer> identical = new HashSet<>();
+        private final Map<String, String> renames = new HashMap<>();
+        private final Map<String, Change> nodeChanges = new HashMap<>();
+        private final Map<Edge, Change> edgeChanges = new HashMap<>();
+        private final Map<String, Change> topicChanges = new HashMap<>();
+        private final Map<String, Change> storeChanges = new HashMap<>();
+
+        Matcher(Topology before, Topology after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        void matchSubtopologies() {
+            Map<Integer, TopologySubtopology> afterSubtopologies = after.getSubtopologies();
+            // Unchanged subtopologies usually keep their id; in derived topologies they are even the same objects
+            for (TopologySubtopology subtopology : before.getSubtopologies().values()) {
+                TopologySubtopology other = afterSubtopologies.get(subtopology.getId());
+                if (other != null
+                        && (other == subtopology || other.fingerprint().equals(subtopology.fingerprint()))) {
+                    match(subtopology.getId(), other.getId(), true);
+                }
+            }
+            if (matches.size() == before.getSubtopologies().size() || matchedAfter.size() == afterSubtopologies.size()) {
+                return;
+            }
+
+            // Renumbered subtopologies have the same nodes under a different id
+            Map<Fingerprint, Deque<Integer>> unmatchedByNodes = new HashMap<>();
+            for (int id : sortedIds(afterSubtopologies.keySet())) {
+                if (!matchedAfter.contains(id)) {
+                    unmatchedByNodes.computeIfAbsent(FingerprintHasher.ofNodes(afterSubtopologies.get(id)),
+                            key -> new ArrayDeque<>()).add(id);
+                }
+            }
+            for (int id : sortedIds(before.getSubtopologies().keySet())) {
+                if (!matches.containsKey(id)) {
+                    Deque<Integer> candidates =
+                            unmatchedByNodes.get(FingerprintHasher.ofNodes(before.getSubtopologies().get(id)));
+                    if (candidates != null && !candidates.isEmpty()) {
+                        match(id, candidates.poll(), true);
+                    }
+                }
+            }
+
+            matchByOverlap(subtopology -> subtopology.getNodes().keySet());
+            matchByOverlap(Matcher::inputTopics);
+            for (int id : sortedIds(before.getSubtopologies().keySet())) {
+                if (!matches.containsKey(id) && afterSubtopologies.containsKey(id) && !matchedAfter.contains(id)) {
+                    match(id, id, false);
+                }
+            }
+        }
+
+        private void match(int beforeId, int afterId, boolean sameNodes) {
+            matches.put(beforeId, afterId);
+            matchedAfter.add(afterId);
+            if (sameNodes) {
+                identical.add(beforeId);
+            }
+        }
+
+        /**
+         * Matches the unmatched subtopologies sharing the most keys, counting only keys which belong to a single
+         * unmatched subtopology of the after topology.
+         */
+        private void matchByOverlap(Function<TopologySubtopology, Collection<String>> keys) {
+            Map<String, Integer> owners = new HashMap<>();
+            Set<String> ambiguous = new HashSet<>();
+            for (TopologySubtopology subtopology : after.getSubtopologies().values()) {
+                if (!matchedAfter.contains(subtopology.getId())) {
+                    for (String key : keys.apply(subtopology)) {
+                        Integer owner = owners.putIfAbsent(key, subtopology.getId());
+                        if (owner != null && owner != subtopology.getId()) {
+                            ambiguous.add(key);
+                        }
+                    }
+                }
+            }
+            owners.keySet().removeAll(ambiguous);
+            if (owners.isEmpty()) {
+                return;
+            }
+
+            // Count the shared keys per pair of subtopologies, packing both ids into one long
+            Map<Long, Integer> overlaps = new HashMap<>();
+            for (TopologySubtopology subtopology : before.getSubtopologies().values()) {
+                if (!matches.containsKey(subtopology.getId())) {
+                    for (String key : keys.apply(subtopology)) {
+                        Integer owner = owners.get(key);
+                        if (owner != null) {
+                            overlaps.merge((long) subtopology.getId() << 32 | (owner & 0xffffffffL), 1, Integer::sum);
+                        }
+                    }
+                }
+            }
+
+            // Take the pairs sharing the most keys first, preferring pairs which keep their id
+            List<Map.Entry<Long, Integer>> candidates = new ArrayList<>(overlaps.entrySet());
+            candidates.sort((a, b) -> {
+                int result = Integer.compare(b.getValue(), a.getValue());
+                if (result == 0) {
+                    result = Boolean.compare(!keepsId(a.getKey()), !keepsId(b.getKey()));
+                }
+                return result != 0 ? result : Long.compare(a.getKey(), b.getKey());
+            });
+            for (Map.Entry<Long, Integer> candidate : candidates) {
+                int beforeId = (int) (candidate.getKey() >> 32);
+                int afterId = (int) (long) candidate.getKey();
+                if (!matches.containsKey(beforeId) && !matchedAfter.contains(afterId)) {
+                    match(beforeId, afterId, false);
+                }
+            }
+        }
+
+        private static boolean keepsId(long pair) {
+            return (int) (pair >> 32) == (int) pair;
+        }
+
+        private static Collection<String> inputTopics(TopologySubtopology subtopology) {
+            List<String> topics = new ArrayList<>();
+            for (TopologyNode node : subtopology.getNodes().values()) {
+                if (node.getType() == NodeType.SOURCE) {
+                    topics.addAll(node.getTopics());
+                    if (node.getTopicPattern() != null) {
+                        topics.add(node.getTopicPattern());
+                    }
+                }
+            }
+            return topics;
+        }
+
+        void matchNodes() {
+            diffNames(before.getTopics().keySet(), after.getTopics().keySet(), topicChanges);
+            diffNames(before.getStateStores().keySet(), after.getStateStores().keySet(), storeChanges);
+
+            Set<Integer> identicalAfter = new HashSet<>();
+            for (int id : identical) {
+                identicalAfter.add(matches.get(id));
+            }
+            // Names are unique within a topology, so no node of an identical subtopology appears anywhere else
+            Map<String, Located> beforeNodes = collectNodes(before, identical);
+            Map<String, Located> afterNodes = collectNodes(after, identicalAfter);
+            detectRenames(beforeNodes, afterNodes);
+            detectRenamesByNeighbours(beforeNodes, afterNodes);
+
+            Set<String> renamedTo = new HashSet<>(renames.values());
+            for (Located located : beforeNodes.values()) {
+                String name = located.node.getName();
+                Located other = afterNodes.get(renames.getOrDefault(name, name));
+                if (other == null) {
+                    nodeChanges.put(name, Change.REMOVED);
+                    diffEdges(located.node, translate(located.node.getSuccessors()), null);
+                } else {
+                    compare(located, other);
+                }
+            }
+            for (Located located : afterNodes.values()) {
+                String name = located.node.getName();
+                if (!beforeNodes.containsKey(name) && !renamedTo.contains(name)) {
+                    nodeChanges.put(name, Change.ADDED);
+                    diffEdges(null, Set.of(), located.node);
+                }
+            }
+        }
+
+        private static Map<String, Located> collectNodes(Topology topology, Set<Integer> skipped) {
+            Map<String, Located> nodes = new HashMap<>();
+            for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+                if (!skipped.contains(subtopology.getId())) {
+                    Integer id = subtopology.getId();
+                    for (TopologyNode node : subtopology.getNodes().values()) {
+                        nodes.put(node.getName(), new Located(node, id));
+                    }
+                }
+            }
+            for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+                nodes.put(globalStore.getName(), new Located(globalStore, null));
+            }
+            return nodes;
+        }
+
+        /**
+         * Pairs the unmatched nodes of matched subtopologies which have the same signature, if both topologies
+         * have the same number of nodes with that signature in the pair of subtopologies.
+         */
+        private void detectRenames(Map<String, Located> beforeNodes, Map<String, Located> afterNodes) {
+            Map<String, List<String>> removedBySignature = new HashMap<>();
+            for (Located located : beforeNodes.values()) {
+                Integer target = located.subtopologyId == null ? null : matches.get(located.subtopologyId);
+                if (target != null && !afterNodes.containsKey(located.node.getName())) {
+                    removedBySignature.computeIfAbsent(target + " " + signature(located.node), key -> new ArrayList<>())
+                            .add(located.node.getName());
+                }
+            }
+            if (removedBySignature.isEmpty()) {
+                return;
+            }
+            Map<String, List<String>> addedBySignature = new HashMap<>();
+            for (Located located : afterNodes.values()) {
+                if (located.subtopologyId != null && matchedAfter.contains(located.subtopologyId)
+                        && !beforeNodes.containsKey(located.node.getName())) {
+                    addedBySignature.computeIfAbsent(located.subtopologyId + " " + signature(located.node),
+                            key -> new ArrayList<>()).add(located.node.getName());
+                }
+            }
+            for (Map.Entry<String, List<String>> entry : removedBySignature.entrySet()) {
+                List<String> removed = entry.getValue();
+                List<String> added = addedBySignature.get(entry.getKey());
+                if (added != null && added.size() == removed.size()) {
+                    Collections.sort(removed);
+                    Collections.sort(added);
+                    for (int i = 0; i < removed.size(); i++) {
+                        renames.put(removed.get(i), added.get(i));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Pairs the nodes left over by {@link #detectRenames} which are the only unmatched node of the same type
+         * and name apart from generated numbers next to the counterparts of their matched neighbours. Pairs
+         * propagate along the edges, since a paired node is a matched neighbour for the nodes next to it.
+         */
+        private void detectRenamesByNeighbours(Map<String, Located> beforeNodes, Map<String, Located> afterNodes) {
+            Set<String> renamedTo = new HashSet<>(renames.values());
+            Map<String, String> unmatchedAfter = new HashMap<>();
+            for (Located located : afterNodes.values()) {
+                String name = located.node.getName();
+                if (!beforeNodes.containsKey(name) && !renamedTo.contains(name)) {
+                    unmatchedAfter.put(name, looseSignature(located.node));
+                }
+            }
+            if (unmatchedAfter.isEmpty()) {
+                return;
+            }
+            List<String> unmatchedBefore = new ArrayList<>();
+            for (String name : beforeNodes.keySet()) {
+                if (!afterNodes.containsKey(name) && !renames.containsKey(name)) {
+                    unmatchedBefore.add(name);
+                }
+            }
+            Collections.sort(unmatchedBefore);
+
+            Deque<String> queue = new ArrayDeque<>(unmatchedBefore);
+            Set<String> candidates = new HashSet<>();
+            while (!queue.isEmpty() && !unmatchedAfter.isEmpty()) {
+                String name = queue.poll();
+                if (renames.containsKey(name)) {
+                    continue;
+                }
+                TopologyNode node = beforeNodes.get(name).node;
+                String signature = looseSignature(node);
+                candidates.clear();
+                collectCandidates(node.getPredecessors(), true, signature, afterNodes, unmatchedAfter, candidates);
+                collectCandidates(node.getSuccessors(), false, signature, afterNodes, unmatchedAfter, candidates);
+                if (candidates.size() != 1) {
+                    continue;
+                }
+                String renamed = candidates.iterator().next();
+                renames.put(name, renamed);
+                unmatchedAfter.remove(renamed);
+                // The unmatched neighbours of the node may have a single candidate now
+                for (Set<String> neighbours : List.of(node.getPredecessors(), node.getSuccessors())) {
+                    for (String neighbour : neighbours) {
+                        if (beforeNodes.containsKey(neighbour) && !afterNodes.containsKey(neighbour)
+                                && !renames.containsKey(neighbour)) {
+                            queue.add(neighbour);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Collects the unmatched nodes with the given signature among the successors (or predecessors) of the
+         * counterparts of the given matched predecessors (or successors) of a node.
+         */
+        private void collectCandidates(Set<String> neighbours, boolean successors, String signature,
+                                       Map<String, Located> afterNodes, Map<String, String> unmatchedAfter,
+                                       Set<String> candidates) {
+            for (String neighbour : neighbours) {
+                Located counterpart = afterNodes.get(renames.getOrDefault(neighbour, neighbour));
+                if (counterpart == null) {
+                    continue;
+                }
+                for (String name : successors ? counterpart.node.getSuccessors() : counterpart.node.getPredecessors()) {
+                    if (signature.equals(unmatchedAfter.get(name))) {
+                        candidates.add(name);
+                    }
+                }
+            }
+        }
+
+        private static String looseSignature(TopologyNode node) {
+            return appendWithoutNumbers(new StringBuilder(node.getType().name()).append('\n'), node.getName())
+                    .toString();
+        }
+
+        /**
+         * Describes a node without the generated numbers in its name and in the names of its topics and stores.
+         */
+        private static String signature(TopologyNode node) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(node.getType().name()).append('\n');
+            appendWithoutNumbers(sb, node.getName());
+            sb.append('\n').append(node.getTopicPattern()).append('\n');
+            appendWithoutNumbers(sb, node.getTopics());
+            sb.append('\n');
+            appendWithoutNumbers(sb, node.getStores());
+            return sb.toString();
+        }
+
+        private static void appendWithoutNumbers(StringBuilder sb, Set<String> names) {
+            String[] stripped = new String[names.size()];
+            int i = 0;
+            for (String name : names) {
+                stripped[i++] = appendWithoutNumbers(new StringBuilder(), name).toString();
+            }
+            Arrays.sort(stripped);
+            for (String name : stripped) {
+                sb.append(name).append(',');
+            }
+        }
+
+        private static StringBuilder appendWithoutNumbers(StringBuilder sb, String name) {
+            int i = 0;
+            while (i < name.length()) {
+                int end = i;
+                while (end < name.length() && name.charAt(end) >= '0' && name.charAt(end) <= '9') {
+                    end++;
+                }
+                if (end - i >= 10) {
+                    // Kafka Streams numbers operators with ten digits
+                    sb.append('#');
+                    i = end;
+                } else if (end > i) {
+                    sb.append(name, i, end);
+                    i = end;
+                } else {
+                    sb.append(name.charAt(i++));
+                }
+            }
+            return sb;
+        }
+
+        private void compare(Located before, Located after) {
+            Integer expectedId = before.subtopologyId == null ? null : matches.get(before.subtopologyId);
+            boolean moved = !Objects.equals(expectedId, after.subtopologyId);
+            TopologyNode oldNode = before.node;
+            TopologyNode newNode = after.node;
+            if (!moved && renames.isEmpty() && oldNode.equals(newNode)) {
+                return;
+            }
+            Set<String> successors = translate(oldNode.getSuccessors());
+            boolean changed = moved
+                    || oldNode.getType() != newNode.getType()
+                    || !Objects.equals(oldNode.getTopicPattern(), newNode.getTopicPattern())
+                    || !oldNode.getTopics().equals(newNode.getTopics())
+                    || !oldNode.getStores().equals(newNode.getStores())
+                    || !successors.equals(newNode.getSuccessors())
+                    || !translate(oldNode.getPredecessors()).equals(newNode.getPredecessors());
+            if (changed) {
+                nodeChanges.put(newNode.getName(), Change.CHANGED);
+                diffEdges(oldNode, successors, newNode);
+            }
+        }
+
+        /**
+         * Records the edges of a node which differ, given the old node with its successors under their new
+         * names and the new node, either of which may be {@code null}.
+         */
+        private void diffEdges(TopologyNode oldNode, Set<String> oldSuccessors, TopologyNode newNode) {
+            String name = newNode != null ? newNode.getName() : oldNode.getName();
+            diffEdges(oldSuccessors, newNode == null ? Set.of() : newNode.getSuccessors(), name, true, null);
+            diffEdges(topics(oldNode, NodeType.SOURCE), topics(newNode, NodeType.SOURCE), name, false, topicChanges);
+            diffEdges(topics(oldNode, NodeType.SINK), topics(newNode, NodeType.SINK), name, true, topicChanges);
+            diffEdges(stores(oldNode), stores(newNode), name, true, storeChanges);
+        }
+
+        private void diffEdges(Set<String> oldNames, Set<String> newNames, String node, boolean outgoing,
+                               Map<String, Change> endpointChanges) {
+            for (String name : newNames) {
+                if (!oldNames.contains(name)) {
+                    recordEdge(node, name, outgoing, Change.ADDED, endpointChanges);
+                }
+            }
+            for (String name : oldNames) {
+                if (!newNames.contains(name)) {
+                    recordEdge(node, name, outgoing, Change.REMOVED, endpointChanges);
+                }
+            }
+        }
+
+        private void recordEdge(String node, String other, boolean outgoing, Change change,
+                                Map<String, Change> endpointChanges) {
+            edgeChanges.put(outgoing ? new Edge(node, other) : new Edge(other, node), change);
+            if (endpointChanges != null) {
+                // Added and removed topics and stores have been recorded already
+                endpointChanges.putIfAbsent(other, Change.CHANGED);
+            }
+        }
+
+        private static Set<String> topics(TopologyNode node, NodeType type) {
+            return node != null && node.getType() == type ? node.getTopics() : Set.of();
+        }
+
+        private static Set<String> stores(TopologyNode node) {
+            return node != null && node.getType() == NodeType.PROCESSOR ? node.getStores() : Set.of();
+        }
+
+        private Set<String> translate(Set<String> names) {
+            if (renames.isEmpty()) {
+                return names;
+            }
+            for (String name : names) {
+                if (renames.containsKey(name)) {
+                    Set<String> translated = new HashSet<>();
+                    for (String other : names) {
+                        translated.add(renames.getOrDefault(other, other));
+                    }
+                    return translated;
+                }
+            }
+            return names;
+        }
+
+        private static void diffNames(Set<String> oldNames, Set<String> newNames, Map<String, Change> changes) {
+            for (String name : newNames) {
+                if (!oldNames.contains(name)) {
+                    changes.put(name, Change.ADDED);
+                }
+            }
+            for (String name : oldNames) {
+                if (!newNames.contains(name)) {
+                    changes.put(name, Change.REMOVED);
+                }
+            }
+        }
+
+        private static int[] sortedIds(Set<Integer> ids) {
+            return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+    }
+}
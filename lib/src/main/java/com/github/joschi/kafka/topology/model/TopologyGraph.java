@@ -0,0 +1,442 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, immutable graph view of a {@link Topology} in which every node is identified by a dense index.
+ * <p>
+ * The nodes are numbered in the following order:
+ * <ol>
+ *   <li>the nodes of all subtopologies, subtopology by subtopology in topology order, {@code [0, firstTopic())}</li>
+ *   <li>the topics, {@code [firstTopic(), firstStateStore())}</li>
+ *   <li>the state stores, {@code [firstStateStore(), firstGlobalStore())}</li>
+ *   <li>the global stores, {@code [firstGlobalStore(), nodeCount())}</li>
+ * </ol>
+ * Names and node types are held in flat arrays; the edges between nodes, and the topics and stores
+ * referenced by a node, are held in compressed sparse row form: the entries of node {@code n} are the
+ * positions {@code [xStart(n), xEnd(n))} of the corresponding target array. Graph traversals can therefore
+ * iterate all edges without looking up node names:
+ * <pre>{@code
+ * for (int e = graph.successorsStart(node); e < graph.successorsEnd(node); e++) {
+ *     int successor = graph.successorAt(e);
+ * }
+ * }</pre>
+ * Successors are resolved against the nodes of the same subtopology; successors which are not declared in
+ * the subtopology are not part of the graph. The predecessors are derived from the successors, so both
+ * directions are always consistent.
+ * <p>
+ * Names and subtopology ids are resolved to indices in constant time through hash indices built together
+ * with the graph, e.g. {@link #node(String)} and {@link #topic(String)}.
+ * <p>
+ * Instances are obtained from {@link Topology#graph()}.
+ */
+public final class TopologyGraph {
+
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+
+    private final String[] names;
+    private final byte[] types;
+    private final int[] subtopologyOfNode;
+    private final int[] subtopologyIds;
+    private final int[] subtopologyOffsets;
+    private final int firstTopic;
+    private final int firstStateStore;
+    private final int firstGlobalStore;
+    private final int[] successorOffsets;
+    private final int[] successorTargets;
+    private final int[] predecessorOffsets;
+    private final int[] predecessorTargets;
+    private final int[] topicOffsets;
+    private final int[] topicTargets;
+    private final int[] storeOffsets;
+    private final int[] storeTargets;
+    private final Map<String, Integer> nodeIndex;
+    private final Map<String, Integer> topicIndex;
+    private final Map<String, Integer> storeIndex;
+    private final Map<Integer, Integer> subtopologyIndex;
+
+    private TopologyGraph(Builder builder) {
+        this.names = builder.names;
+        this.types = builder.types;
+        this.subtopologyOfNode = builder.subtopologyOfNode;
+        this.subtopologyIds = builder.subtopologyIds;
+        this.subtopologyOffsets = builder.subtopologyOffsets;
+        this.firstTopic = builder.firstTopic;
+        this.firstStateStore = builder.firstStateStore;
+        this.firstGlobalStore = builder.firstGlobalStore;
+        this.successorOffsets = builder.successorOffsets;
+        this.successorTargets = Arrays.copyOf(builder.successorTargets, builder.successorOffsets[names.length]);
+        this.topicOffsets = builder.topicOffsets;
+        this.topicTargets = Arrays.copyOf(builder.topicTargets, builder.topicOffsets[names.length]);
+        this.storeOffsets = builder.storeOffsets;
+        this.storeTargets = Arrays.copyOf(builder.storeTargets, builder.storeOffsets[names.length]);
+        this.nodeIndex = builder.nodeIndex;
+        this.topicIndex = builder.topicIndex;
+        this.storeIndex = builder.storeIndex;
+        this.subtopologyIndex = builder.subtopologyIndex;
+
+        // Transpose the successor lists into the predecessor lists
+        int nodeCount = names.length;
+        int[] offsets = new int[nodeCount + 1];
+        for (int target : successorTargets) {
+            offsets[target + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] targets = new int[successorTargets.length];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int e = successorOffsets[node]; e < successorOffsets[node + 1]; e++) {
+                targets[next[successorTargets[e]]++] = node;
+            }
+        }
+        this.predecessorOffsets = offsets;
+        this.predecessorTargets = targets;
+    }
+
+    /**
+     * Builds the graph of the given topology in a single pass over its nodes.
+     *
+     * @param topology the topology
+     * @return the graph view
+     */
+    static TopologyGraph of(Topology topology) {
+        return new Builder(topology).build();
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of edges between the nodes of the subtopologies.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return successorTargets.length;
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    public NodeType type(int node) {
+        return NODE_TYPES[types[node]];
+    }
+
+    /**
+     * Returns the index of the subtopology node or global store with the given name.
+     *
+     * @param name the node name
+     * @return the node index, or {@code -1} if there is no such node
+     */
+    public int node(String name) {
+        return nodeIndex.getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the index of the topic node with the given name.
+     *
+     * @param name the topic name
+     * @return the node index, or {@code -1} if there is no such topic
+     */
+    public int topic(String name) {
+        return topicIndex.getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the index of the state store node with the given name.
+     *
+     * @param name the store name
+     * @return the node index, or {@code -1} if there is no such store
+     */
+    public int store(String name) {
+        return storeIndex.getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the index of the first topic node, which is also the number of nodes in all subtopologies.
+     *
+     * @return the index of the first topic node
+     */
+    public int firstTopic() {
+        return firstTopic;
+    }
+
+    public int firstStateStore() {
+        return firstStateStore;
+    }
+
+    public int firstGlobalStore() {
+        return firstGlobalStore;
+    }
+
+    public int subtopologyCount() {
+        return subtopologyIds.length;
+    }
+
+    /**
+     * Returns the id of the subtopology at the given position in topology order.
+     *
+     * @param subtopology the position of the subtopology
+     * @return the subtopology id
+     */
+    public int subtopologyId(int subtopology) {
+        return subtopologyIds[subtopology];
+    }
+
+    /**
+     * Returns the position of the subtopology with the given id.
+     *
+     * @param subtopologyId the subtopology id
+     * @return the position of the subtopology, or {@code -1} if there is no such subtopology
+     */
+    public int subtopologyIndex(int subtopologyId) {
+        return subtopologyIndex.getOrDefault(subtopologyId, -1);
+    }
+
+    public int subtopologyStart(int subtopology) {
+        return subtopologyOffsets[subtopology];
+    }
+
+    public int subtopologyEnd(int subtopology) {
+        return subtopologyOffsets[subtopology + 1];
+    }
+
+    /**
+     * Returns the position of the subtopology containing the given node.
+     *
+     * @param node the node index
+     * @return the position of the subtopology, or {@code -1} for topics, state stores and global stores
+     */
+    public int subtopologyOf(int node) {
+        return node < firstTopic ? subtopologyOfNode[node] : -1;
+    }
+
+    public int successorsStart(int node) {
+        return successorOffsets[node];
+    }
+
+    public int successorsEnd(int node) {
+        return successorOffsets[node + 1];
+    }
+
+    public int successorAt(int edge) {
+        return successorTargets[edge];
+    }
+
+    public int predecessorsStart(int node) {
+        return predecessorOffsets[node];
+    }
+
+    public int predecessorsEnd(int node) {
+        return predecessorOffsets[node + 1];
+    }
+
+    public int predecessorAt(int edge) {
+        return predecessorTargets[edge];
+    }
+
+    /**
+     * Returns the start of the topics read or written by the given source, sink or global store.
+     *
+     * @param node the node index
+     * @return the position of the first topic in {@link #topicAt(int)}
+     */
+    public int topicsStart(int node) {
+        return topicOffsets[node];
+    }
+
+    public int topicsEnd(int node) {
+        return topicOffsets[node + 1];
+    }
+
+    /**
+     * Returns the index of the topic node at the given position.
+     *
+     * @param position a position between {@link #topicsStart(int)} and {@link #topicsEnd(int)}
+     * @return the index of the topic node
+     */
+    public int topicAt(int position) {
+        return topicTargets[position];
+    }
+
+    /**
+     * Returns the start of the state stores accessed by the given processor.
+     *
+     * @param node the node index
+     * @return the position of the first store in {@link #storeAt(int)}
+     */
+    public int storesStart(int node) {
+        return storeOffsets[node];
+    }
+
+    public int storesEnd(int node) {
+        return storeOffsets[node + 1];
+    }
+
+    /**
+     * Returns the index of the state store node at the given position.
+     *
+     * @param position a position between {@link #storesStart(int)} and {@link #storesEnd(int)}
+     * @return the index of the state store node
+     */
+    public int storeAt(int position) {
+        return storeTargets[position];
+    }
+
+    @Override
+    public String toString() {
+        return "TopologyGraph{" +
+               "nodes=" + nodeCount() +
+               ", edges=" + edgeCount() +
+               ", subtopologies=" + subtopologyCount() +
+               '}';
+    }
+
+    private static final class Builder {
+        private final Topology topology;
+        private final String[] names;
+        private final byte[] types;
+        private final int[] subtopologyOfNode;
+        private final int[] subtopologyIds;
+        private final int[] subtopologyOffsets;
+        private final int firstTopic;
+        private final int firstStateStore;
+        private final int firstGlobalStore;
+        private final int[] successorOffsets;
+        private int[] successorTargets = new int[16];
+        private final int[] topicOffsets;
+        private int[] topicTargets = new int[16];
+        private final int[] storeOffsets;
+        private int[] storeTargets = new int[16];
+        private final Map<String, Integer> nodeIndex;
+        private final Map<String, Integer> topicIndex;
+        private final Map<String, Integer> storeIndex;
+        private final Map<Integer, Integer> subtopologyIndex;
+
+        private Builder(Topology topology) {
+            this.topology = topology;
+            Collection<TopologySubtopology> subtopologies = topology.getSubtopologies().values();
+            int subtopologyNodes = 0;
+            for (TopologySubtopology subtopology : subtopologies) {
+                subtopologyNodes += subtopology.getNodes().size();
+            }
+            this.firstTopic = subtopologyNodes;
+            this.firstStateStore = firstTopic + topology.getTopics().size();
+            this.firstGlobalStore = firstStateStore + topology.getStateStores().size();
+            int nodeCount = firstGlobalStore + topology.getGlobalStores().size();
+
+            this.names = new String[nodeCount];
+            this.types = new byte[nodeCount];
+            this.subtopologyOfNode = new int[subtopologyNodes];
+            this.subtopologyIds = new int[subtopologies.size()];
+            this.subtopologyOffsets = new int[subtopologies.size() + 1];
+            this.successorOffsets = new int[nodeCount + 1];
+            this.topicOffsets = new int[nodeCount + 1];
+            this.storeOffsets = new int[nodeCount + 1];
+            this.nodeIndex = new HashMap<>(capacity(subtopologyNodes + topology.getGlobalStores().size()));
+            this.topicIndex = index(topology.getTopics(), firstTopic);
+            this.storeIndex = index(topology.getStateStores(), firstStateStore);
+            this.subtopologyIndex = new HashMap<>(capacity(subtopologies.size()));
+        }
+
+        private TopologyGraph build() {
+            int node = 0;
+            int position = 0;
+            Map<String, Integer> local = new HashMap<>();
+            for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+                subtopologyIds[position] = subtopology.getId();
+                subtopologyIndex.put(subtopology.getId(), position);
+                subtopologyOffsets[position] = node;
+                local.clear();
+                int start = node;
+                for (TopologyNode topologyNode : subtopology.getNodes().values()) {
+                    local.put(topologyNode.getName(), node);
+                    nodeIndex.putIfAbsent(topologyNode.getName(), node);
+                    subtopologyOfNode[node] = position;
+                    node++;
+                }
+                node = start;
+                for (TopologyNode topologyNode : subtopology.getNodes().values()) {
+                    addNode(node++, topologyNode, local);
+                }
+                position++;
+            }
+            subtopologyOffsets[position] = node;
+
+            for (TopologyNode topic : topology.getTopics().values()) {
+                addNode(node++, topic, Map.of());
+            }
+            for (TopologyNode stateStore : topology.getStateStores().values()) {
+                addNode(node++, stateStore, Map.of());
+            }
+            for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+                nodeIndex.putIfAbsent(globalStore.getName(), node);
+                addNode(node++, globalStore, Map.of());
+            }
+            return new TopologyGraph(this);
+        }
+
+        private void addNode(int node, TopologyNode topologyNode, Map<String, Integer> local) {
+            names[node] = topologyNode.getName();
+            types[node] = (byte) topologyNode.getType().ordinal();
+
+            // The name sets of nodes have no stable iteration order, the targets are sorted by index instead
+            int successorCount = successorOffsets[node];
+            for (String successor : topologyNode.getSuccessors()) {
+                Integer target = local.get(successor);
+                if (target != null) {
+                    successorTargets = ensureCapacity(successorTargets, successorCount);
+                    successorTargets[successorCount++] = target;
+                }
+            }
+            Arrays.sort(successorTargets, successorOffsets[node], successorCount);
+            successorOffsets[node + 1] = successorCount;
+
+            int topicCount = topicOffsets[node];
+            for (String topic : topologyNode.getTopics()) {
+                Integer target = topicIndex.get(topic);
+                if (target != null) {
+                    topicTargets = ensureCapacity(topicTargets, topicCount);
+                    topicTargets[topicCount++] = target;
+                }
+            }
+            Arrays.sort(topicTargets, topicOffsets[node], topicCount);
+            topicOffsets[node + 1] = topicCount;
+
+            int storeCount = storeOffsets[node];
+            for (String store : topologyNode.getStores()) {
+                Integer target = storeIndex.get(store);
+                if (target != null) {
+                    storeTargets = ensureCapacity(storeTargets, storeCount);
+                    storeTargets[storeCount++] = target;
+                }
+            }
+            Arrays.sort(storeTargets, storeOffsets[node], storeCount);
+            storeOffsets[node + 1] = storeCount;
+        }
+
+        private static Map<String, Integer> index(Map<String, TopologyNode> nodes, int first) {
+            Map<String, Integer> index = new HashMap<>(capacity(nodes.size()));
+            int node = first;
+            for (String name : nodes.keySet()) {
+                index.put(name, node++);
+            }
+            return index;
+        }
+
+        private static int capacity(int size) {
+            return Math.max(16, size * 4 / 3 + 1);
+        }
+
+        private static int[] ensureCapacity(int[] array, int size) {
+            return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Lineage queries over a {@link Topology}: which nodes, topics and stores are upstream or downstream of a node,
+ * and how data flows from one node to another.
+ * <p>
+ * Data flows along the processor edges within a subtopology and from sinks through the topics they write to
+ * the sources and global stores reading them in other subtopologies. The state stores accessed by the
+ * processors on the way are part of the lineage, but the traversal does not continue through a store, since
+ * the direction in which processors share a store is not known; a query starting at a store follows all
+ * processors accessing it.
+ * <p>
+ * Queries are breadth-first searches over the compressed index of the {@link TopologyGraph} and
+ * {@link TopologyConnections}, so they take time linear in the size of the visited part of the topology and
+ * never look up node names. Nodes are identified by their graph index; {@link #topic(String)},
+ * {@link #node(String)} and {@link #store(String)} resolve names. Instances are obtained from
+ * {@link Topology#lineage()} and are safe for concurrent queries.
+ */
+public final class TopologyLineage {
+
+    private final TopologyGraph graph;
+    private final TopologyConnections connections;
+    private final int[] globalStoreOffsets;
+    private final int[] globalStoreTargets;
+
+    private TopologyLineage(TopologyGraph graph, TopologyConnections connections) {
+        this.graph = graph;
+        this.connections = connections;
+
+        // Global stores are not covered by the connection index; collect the global stores reading each topic
+        int topicCount = graph.firstStateStore() - graph.firstTopic();
+        int[] offsets = new int[topicCount + 1];
+        for (int globalStore = graph.firstGlobalStore(); globalStore < graph.nodeCount(); globalStore++) {
+            for (int i = graph.topicsStart(globalStore); i < graph.topicsEnd(globalStore); i++) {
+                offsets[graph.topicAt(i) - graph.firstTopic() + 1]++;
+            }
+        }
+        for (int topic = 0; topic < topicCount; topic++) {
+            offsets[topic + 1] += offsets[topic];
+        }
+        int[] targets = new int[offsets[topicCount]];
+        int[] next = Arrays.copyOf(offsets, topicCount);
+        for (int globalStore = graph.firstGlobalStore(); globalStore < graph.nodeCount(); globalStore++) {
+            for (int i = graph.topicsStart(globalStore); i < graph.topicsEnd(globalStore); i++) {
+                targets[next[graph.topicAt(i) - graph.firstTopic()]++] = globalStore;
+            }
+        }
+        this.globalStoreOffsets = offsets;
+        this.globalStoreTargets = targets;
+    }
+
+    /**
+     * Builds the lineage index of the given graph.
+     *
+     * @param graph the graph of the topology
+     * @param connections the connection index of the topology
+     * @return the lineage index
+     */
+    static TopologyLineage of(TopologyGraph graph, TopologyConnections connections) {
+        return new TopologyLineage(graph, connections);
+    }
+
+    /**
+     * Returns the graph index of the topic with the given name.
+     *
+     * @param name the topic name
+     * @return the graph index, or {@code -1} if there is no such topic
+     */
+    public int topic(String name) {
+        return graph.topic(name);
+    }
+
+    /**
+     * Returns the graph index of the subtopology node or global store with the given name.
+     *
+     * @param name the node name
+     * @return the graph index, or {@code -1} if there is no such node
+     */
+    public int node(String name) {
+        return graph.node(name);
+    }
+
+    /**
+     * Returns the graph index of the state store with the given name.
+     *
+     * @param name the store name
+     * @return the graph index, or {@code -1} if there is no such store
+     */
+    public int store(String name) {
+        return graph.store(name);
+    }
+
+    /**
+     * Returns everything the given node feeds: the nodes, topics, state stores and global stores which data
+     * flows to from it.
+     *
+     * @param node the graph index of the start node
+     * @return the downstream graph nodes, not including the start node itself
+     */
+    public BitSet downstream(int node) {
+        return traverse(node, true, null);
+    }
+
+    /**
+     * Returns everything feeding the given node: the nodes, topics and global stores which data flows from to
+     * it, and the state stores accessed on the way.
+     *
+     * @param node the graph index of the start node
+     * @return the upstream graph nodes, not including the start node itself
+     */
+    public BitSet upstream(int node) {
+        return traverse(node, false, null);
+    }
+
+    /**
+     * Returns a shortest path along which data flows from one node to another.
+     *
+     * @param from the graph index of the start node
+     * @param to the graph index of the target node
+     * @return the graph nodes of the path including both ends, or an empty array if {@code to} is not
+     * downstream of {@code from}
+     */
+    public int[] path(int from, int to) {
+        if (from == to) {
+            return new int[] {from};
+        }
+        int[] parents = new int[graph.nodeCount()];
+        BitSet reached = traverse(from, true, parents);
+        if (!reached.get(to)) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int node = to; node != from; node = parents[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = to, i = length - 1; i >= 0; node = parents[node], i--) {
+            path[i] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Breadth-first search from the given node, recording the node from which every node was reached into
+     * {@code parents} if given.
+     */
+    private BitSet traverse(int start, boolean downstream, int[] parents) {
+        BitSet visited = new BitSet(graph.nodeCount());
+        int[] queue = new int[graph.nodeCount()];
+        int head = 0;
+        int tail = 0;
+        visited.set(start);
+        if (graph.type(start) == NodeType.STATE_STORE) {
+            // A store only leads to the processors accessing it when the query starts there
+            for (int i = connections.accessorsStart(start); i < connections.accessorsEnd(start); i++) {
+                tail = visit(connections.accessorAt(i), start, visited, queue, tail, parents);
+            }
+        } else {
+            queue[tail++] = start;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            NodeType type = graph.type(node);
+            if (type == NodeType.TOPIC) {
+                if (downstream) {
+                    for (int i = connections.consumersStart(node); i < connections.consumersEnd(node); i++) {
+                        tail = visit(connections.consumerAt(i), node, visited, queue, tail, parents);
+                    }
+                    int topic = node - graph.firstTopic();
+                    for (int i = globalStoreOffsets[topic]; i < globalStoreOffsets[topic + 1]; i++) {
+                        tail = visit(globalStoreTargets[i], node, visited, queue, tail, parents);
+                    }
+                } else {
+                    for (int i = connections.producersStart(node); i < connections.producersEnd(node); i++) {
+                        tail = visit(connections.producerAt(i), node, visited, queue, tail, parents);
+                    }
+                }
+                continue;
+            }
+            if (type == NodeType.STATE_STORE || (type == NodeType.GLOBAL_STORE && downstream)) {
+                continue;
+            }
+            if (downstream) {
+                for (int e = graph.successorsStart(node); e < graph.successorsEnd(node); e++) {
+                    tail = visit(graph.successorAt(e), node, visited, queue, tail, parents);
+                }
+            } else {
+                for (int e = graph.predecessorsStart(node); e < graph.predecessorsEnd(node); e++) {
+                    tail = visit(graph.predecessorAt(e), node, visited, queue, tail, parents);
+                }
+            }
+            for (int i = graph.storesStart(node); i < graph.storesEnd(node); i++) {
+                tail = visit(graph.storeAt(i), node, visited, queue, tail, parents);
+            }
+            // Sinks write to their topics, sources and global stores read from theirs
+            if (downstream == (type == NodeType.SINK)) {
+                for (int i = graph.topicsStart(node); i < graph.topicsEnd(node); i++) {
+                    tail = visit(graph.topicAt(i), node, visited, queue, tail, parents);
+                }
+            }
+        }
+        visited.clear(start);
+        return visited;
+    }
+
+    private static int visit(int node, int from, BitSet visited, int[] queue, int tail, int[] parents) {
+        if (!visited.get(node)) {
+            visited.set(node);
+            queue[tail++] = node;
+            if (parents != null) {
+                parents[node] = from;
+            }
+        }
+        return tail;
+    }
+}
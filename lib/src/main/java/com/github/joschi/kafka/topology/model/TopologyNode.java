@@ -1,6 +1,7 @@
 package com.github.joschi.kafka.topology.model;
 
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -15,14 +16,19 @@ public class TopologyNode {
     private final Set<String> successors;
     private final Set<String> topics;
     private final Set<String> stores;
+    private final String topicPattern;
+    private int hash;
+    private volatile Fingerprint fingerprint;
 
     private TopologyNode(Builder builder) {
         this.name = Objects.requireNonNull(builder.name, "name cannot be null");
         this.type = Objects.requireNonNull(builder.type, "type cannot be null");
-        this.predecessors = Collections.unmodifiableSet(builder.predecessors);
-        this.successors = Collections.unmodifiableSet(builder.successors);
-        this.topics = Collections.unmodifiableSet(builder.topics);
-        this.stores = Collections.unmodifiableSet(builder.stores);
+        // The builder only holds immutable sets, which are shared with nodes derived through toBuilder()
+        this.predecessors = builder.predecessors;
+        this.successors = builder.successors;
+        this.topics = builder.topics;
+        this.stores = builder.stores;
+        this.topicPattern = builder.topicPattern;
     }
 
     public String getName() {
@@ -49,6 +55,78 @@ public class TopologyNode {
         return stores;
     }
 
+    /**
+     * Returns the regular expression of a source subscribed with a topic pattern, or {@code null} for nodes
+     * with a fixed set of topics. The topics of such a source are only known once the pattern has been
+     * resolved against the existing topics.
+     *
+     * @return the topic pattern, or {@code null}
+     */
+    public String getTopicPattern() {
+        return topicPattern;
+    }
+
+    /**
+     * Returns the content fingerprint of this node, covering its name, type, topic pattern and the sorted
+     * names of its topics, stores, successors and predecessors. It is computed on first access and cached.
+     *
+     * @return the fingerprint
+     */
+    public Fingerprint fingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            result = FingerprintHasher.of(this);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a builder initialised with all attributes of this node.
+     *
+     * @return a new builder
+     */
+    public Builder toBuilder() {
+        return new Builder(name, type)
+                .predecessors(predecessors)
+                .successors(successors)
+                .topics(topics)
+                .stores(stores)
+                .topicPattern(topicPattern);
+    }
+
+    /**
+     * Returns a node without the edge to the given successor, sharing all other attributes with this node.
+     *
+     * @param successor the name of the successor
+     * @return the derived node, or this node if it has no such successor
+     */
+    public TopologyNode withoutSuccessor(String successor) {
+        if (!successors.contains(successor)) {
+            return this;
+        }
+        return toBuilder().successors(without(successors, successor)).build();
+    }
+
+    /**
+     * Returns a node without the edge from the given predecessor, sharing all other attributes with this node.
+     *
+     * @param predecessor the name of the predecessor
+     * @return the derived node, or this node if it has no such predecessor
+     */
+    public TopologyNode withoutPredecessor(String predecessor) {
+        if (!predecessors.contains(predecessor)) {
+            return this;
+        }
+        return toBuilder().predecessors(without(predecessors, predecessor)).build();
+    }
+
+    private static Set<String> without(Set<String> names, String name) {
+        Set<String> result = new HashSet<>(names);
+        result.remove(name);
+        return result;
+    }
+
     public static Builder builder(String name, NodeType type) {
         return new Builder(name, type);
     }
@@ -58,17 +136,25 @@ public class TopologyNode {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TopologyNode that = (TopologyNode) o;
-        return Objects.equals(name, that.name) &&
+        return hashCode() == that.hashCode() &&
+               Objects.equals(name, that.name) &&
                type == that.type &&
                Objects.equals(predecessors, that.predecessors) &&
                Objects.equals(successors, that.successors) &&
                Objects.equals(topics, that.topics) &&
-               Objects.equals(stores, that.stores);
+               Objects.equals(stores, that.stores) &&
+               Objects.equals(topicPattern, that.topicPattern);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type, predecessors, successors, topics, stores);
+        // Nodes are immutable, so the hash is computed once; as with String, 0 means "not computed yet"
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, type, predecessors, successors, topics, stores, topicPattern);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -80,42 +166,49 @@ public class TopologyNode {
                ", successors=" + successors +
                ", topics=" + topics +
                ", stores=" + stores +
+               (topicPattern != null ? ", topicPattern='" + topicPattern + '\'' : "") +
                '}';
     }
 
     public static class Builder {
         private final String name;
         private final NodeType type;
-        private Set<String> predecessors = Collections.emptySet();
-        private Set<String> successors = Collections.emptySet();
-        private Set<String> topics = Collections.emptySet();
-        private Set<String> stores = Collections.emptySet();
+        private Set<String> predecessors = Set.of();
+        private Set<String> successors = Set.of();
+        private Set<String> topics = Set.of();
+        private Set<String> stores = Set.of();
+        private String topicPattern;
 
         private Builder(String name, NodeType type) {
             this.name = name;
             this.type = type;
         }
 
-        public Builder predecessors(Set<String> predecessors) {
+        public Builder predecessors(Collection<String> predecessors) {
             this.predecessors = Set.copyOf(predecessors);
             return this;
         }
 
-        public Builder successors(Set<String> successors) {
+        public Builder successors(Collection<String> successors) {
             this.successors = Set.copyOf(successors);
             return this;
         }
 
-        public Builder topics(Set<String> topics) {
+        public Builder topics(Collection<String> topics) {
             this.topics = Set.copyOf(topics);
             return this;
         }
 
-        public Builder stores(Set<String> stores) {
+        public Builder stores(Collection<String> stores) {
             this.stores = Set.copyOf(stores);
             return this;
         }
 
+        public Builder topicPattern(String topicPattern) {
+            this.topicPattern = topicPattern;
+            return this;
+        }
+
         public TopologyNode build() {
             return new TopologyNode(this);
         }
@@ -1,9 +1,12 @@
 package com.github.joschi.kafka.topology.model;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents a subtopology in a Kafka Streams topology.
@@ -12,12 +15,24 @@ import java.util.Objects;
 public class TopologySubtopology {
     private final int id;
     private final Map<String, TopologyNode> nodes;
+    private volatile Set<String> topics;
+    private volatile Set<String> stores;
+    private volatile Fingerprint fingerprint;
+    private int hash;
 
     public TopologySubtopology(int id, Map<String, TopologyNode> nodes) {
         this.id = id;
         this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
     }
 
+    /**
+     * Creates a subtopology from a node table which is not referenced anywhere else.
+     */
+    private TopologySubtopology(Map<String, TopologyNode> nodes, int id) {
+        this.id = id;
+        this.nodes = Collections.unmodifiableMap(nodes);
+    }
+
     public int getId() {
         return id;
     }
@@ -26,17 +41,133 @@ public class TopologySubtopology {
         return nodes;
     }
 
+    /**
+     * Returns the names of all topics read by the sources or written by the sinks of this subtopology.
+     * The result is computed on first access and cached.
+     *
+     * @return the topic names, in node order and by name within a node
+     */
+    public Set<String> getTopics() {
+        Set<String> result = topics;
+        if (result == null) {
+            Set<String> collected = new LinkedHashSet<>();
+            for (TopologyNode node : nodes.values()) {
+                if (node.getType() == NodeType.SOURCE || node.getType() == NodeType.SINK) {
+                    addSorted(collected, node.getTopics());
+                }
+            }
+            result = Collections.unmodifiableSet(collected);
+            topics = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names of all state stores accessed by the processors of this subtopology.
+     * The result is computed on first access and cached.
+     *
+     * @return the store names, in node order and by name within a node
+     */
+    public Set<String> getStores() {
+        Set<String> result = stores;
+        if (result == null) {
+            Set<String> collected = new LinkedHashSet<>();
+            for (TopologyNode node : nodes.values()) {
+                if (node.getType() == NodeType.PROCESSOR) {
+                    addSorted(collected, node.getStores());
+                }
+            }
+            result = Collections.unmodifiableSet(collected);
+            stores = result;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the given names in name order, since the name sets of nodes have no stable iteration order.
+     */
+    static void addSorted(Set<String> target, Set<String> names) {
+        if (names.size() < 2) {
+            target.addAll(names);
+        } else {
+            String[] sorted = names.toArray(new String[0]);
+            Arrays.sort(sorted);
+            Collections.addAll(target, sorted);
+        }
+    }
+
+    /**
+     * Returns the content fingerprint of this subtopology, computed from its id and the fingerprints of its
+     * nodes in name order. It is computed on first access and cached, like the fingerprints of the nodes,
+     * which derived subtopologies share.
+     *
+     * @return the fingerprint
+     */
+    public Fingerprint fingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            result = FingerprintHasher.of(this);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a subtopology in which the given node is added, or replaces the node with the same name.
+     * All other nodes are shared with this subtopology; the edges of the other nodes are not changed.
+     *
+     * @param node the new node
+     * @return the derived subtopology
+     */
+    public TopologySubtopology withNode(TopologyNode node) {
+        if (nodes.get(node.getName()) == node) {
+            return this;
+        }
+        Map<String, TopologyNode> newNodes = new LinkedHashMap<>(nodes);
+        newNodes.put(node.getName(), node);
+        return new TopologySubtopology(newNodes, id);
+    }
+
+    /**
+     * Returns a subtopology without the node with the given name. The edges from its predecessors and to its
+     * successors are removed as well; all other nodes are shared with this subtopology.
+     *
+     * @param name the name of the node
+     * @return the derived subtopology, or this subtopology if it has no such node
+     */
+    public TopologySubtopology withoutNode(String name) {
+        TopologyNode removed = nodes.get(name);
+        if (removed == null) {
+            return this;
+        }
+        Map<String, TopologyNode> newNodes = new LinkedHashMap<>(nodes);
+        newNodes.remove(name);
+        for (String predecessor : removed.getPredecessors()) {
+            newNodes.computeIfPresent(predecessor, (key, node) -> node.withoutSuccessor(name));
+        }
+        for (String successor : removed.getSuccessors()) {
+            newNodes.computeIfPresent(successor, (key, node) -> node.withoutPredecessor(name));
+        }
+        return new TopologySubtopology(newNodes, id);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TopologySubtopology that = (TopologySubtopology) o;
-        return id == that.id && Objects.equals(nodes, that.nodes);
+        return id == that.id && hashCode() == that.hashCode() && Objects.equals(nodes, that.nodes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, nodes);
+        // Computed once; the hashes of the nodes are cached as well
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(id, nodes);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
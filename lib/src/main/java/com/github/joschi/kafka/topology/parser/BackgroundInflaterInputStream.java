@@ -0,0 +1,150 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Inflates a gzip stream on a separate thread, so that decompression overlaps with parsing the output.
+ * <p>
+ * The inflater thread hands chunks of 64 KiB through a small bounded queue, so at most a few hundred KiB
+ * of decompressed data are buffered however large the input is. Closing this stream stops the thread but
+ * leaves the compressed source to its owner. The thread is stopped cooperatively rather than interrupted,
+ * since an interrupt would close a source reading from an interruptible channel, such as the streams
+ * returned by {@link java.nio.file.Files#newInputStream}.
+ */
+final class BackgroundInflaterInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUED_CHUNKS = 4;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+    private final Thread inflater;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private byte[] chunk = new byte[0];
+    private int position;
+    private boolean ended;
+
+    BackgroundInflaterInputStream(InputStream source) {
+        this.inflater = new Thread(() -> inflate(source), "topology-gzip-inflater");
+        this.inflater.setDaemon(true);
+        this.inflater.start();
+    }
+
+    private void inflate(InputStream source) {
+        try {
+            try {
+                // Not closed, that would close the source
+                GZIPInputStream gzip = new GZIPInputStream(source, CHUNK_SIZE);
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int length;
+                while ((length = gzip.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                    if (!hand(length == CHUNK_SIZE ? buffer.clone() : Arrays.copyOf(buffer, length))) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                failure = e;
+            }
+            hand(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands a chunk to the reader, returns {@code false} if the stream was closed. Checking before every
+     * {@code put} guarantees that a put never blocks after {@link #close()} emptied the queue.
+     */
+    private boolean hand(byte[] inflated) throws InterruptedException {
+        if (closed) {
+            return false;
+        }
+        chunks.put(inflated);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - position;
+    }
+
+    /**
+     * Makes sure the current chunk has unread bytes, returns {@code false} at the end of the input.
+     */
+    private boolean fill() throws IOException {
+        while (position == chunk.length) {
+            if (ended) {
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed input");
+            }
+            position = 0;
+            if (chunk == END) {
+                ended = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the inflater thread and waits for it, which takes at most until its current read of the source
+     * returns.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ended = true;
+        chunk = END;
+        position = 0;
+        // Make room, so that a put blocked on the full queue returns and the thread sees the closed flag
+        chunks.clear();
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while stopping the gzip inflater");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link CharSequence} view of a range of UTF-8 encoded bytes in a {@link ByteBuffer}.
+ * <p>
+ * Each byte is exposed as one character, which is sufficient for scanning the ASCII structure of a
+ * topology dump: bytes of UTF-8 multi-byte sequences never collide with ASCII delimiters. Sub-sequences
+ * are lightweight views sharing the buffer; only {@link #toString()} decodes the bytes into a String.
+ */
+final class ByteSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    ByteSequence(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public ByteSequence subSequence(int start, int end) {
+        return new ByteSequence(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Detects gzip compressed input by its magic bytes and decompresses it on the fly.
+ */
+final class GzipInput {
+
+    private static final int MAGIC_FIRST = 0x1f;
+    private static final int MAGIC_SECOND = 0x8b;
+
+    private GzipInput() {
+    }
+
+    /**
+     * Returns whether the given file starts with the gzip magic bytes.
+     */
+    static boolean isGzipped(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return inputStream.read() == MAGIC_FIRST && inputStream.read() == MAGIC_SECOND;
+        }
+    }
+
+    /**
+     * Opens the given file, decompressing it if it is gzipped. Closing the returned stream closes the file.
+     */
+    static InputStream open(Path path) throws IOException {
+        InputStream file = Files.newInputStream(path);
+        try {
+            InputStream content = decompressIfGzipped(file);
+            return new FilterInputStream(content) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        content.close();
+                    } finally {
+                        file.close();
+                    }
+                }
+            };
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a stream of the decompressed content if the given stream starts with the gzip magic bytes,
+     * otherwise a stream of the unchanged content.
+     * <p>
+     * Compressed input is inflated by a {@link BackgroundInflaterInputStream}, so the returned stream must be
+     * closed if it is not read to the end. Closing it never closes {@code inputStream}.
+     */
+    static InputStream decompressIfGzipped(InputStream inputStream) throws IOException {
+        InputStream markable = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        markable.mark(2);
+        boolean gzipped = markable.read() == MAGIC_FIRST && markable.read() == MAGIC_SECOND;
+        markable.reset();
+        if (gzipped) {
+            return new BackgroundInflaterInputStream(markable);
+        }
+        return new FilterInputStream(markable) {
+            @Override
+            public void close() {
+                // Owned by the caller
+            }
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Re-parses new versions of a topology text, reusing the immutable sub-topologies of a previous result
+ * for all sub-topology blocks whose text did not change.
+ * <p>
+ * The text is split at {@code Sub-topology:} headers and each block is hashed. The parser remembers the
+ * blocks of its last result; a block whose text is unchanged reuses the existing {@link TopologySubtopology}
+ * (or global store node) instead of being parsed again. Blocks are looked up by their hash and compared
+ * with the remembered text, so a hash collision never reuses the wrong sub-topology.
+ * <p>
+ * Instances are stateful sessions and not thread-safe: blocks are only reused if the previous version passed
+ * to {@link #parse(Topology, String)} is the topology returned by the last call on the same instance. For any
+ * other previous version, the whole text is parsed.
+ */
+public class IncrementalTopologyParser {
+
+    private final TopologyTextParser parser;
+    private Map<Long, Block> blocks = new HashMap<>();
+    private Topology lastResult;
+    private int reusedBlocks;
+
+    /**
+     * Creates a new incremental parser using a default {@link TopologyTextParser}.
+     */
+    public IncrementalTopologyParser() {
+        this(new TopologyTextParser());
+    }
+
+    /**
+     * Creates a new incremental parser.
+     *
+     * @param parser the parser to parse changed blocks with
+     */
+    public IncrementalTopologyParser(TopologyTextParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Parses a new version of the topology most recently parsed by this instance.
+     *
+     * @param topologyText the text representation of the topology
+     * @return the parsed Topology
+     * @see #parse(Topology, String)
+     */
+    public Topology parse(String topologyText) {
+        return parse(lastResult, topologyText);
+    }
+
+    /**
+     * Parses a new version of a topology, reusing unchanged sub-topologies of the previous version.
+     *
+     * @param previous     the previous version of the topology as returned by the last call on this instance,
+     *                     or {@code null} to parse everything
+     * @param topologyText the text representation of the new version
+     * @return the parsed Topology, equal to the result of {@link TopologyTextParser#parse(String)}
+     * @throws UncheckedIOException wrapping a {@link TopologyParseException} if the parser is in strict mode
+     *                              and the text contains problems
+     */
+    public Topology parse(Topology previous, String topologyText) {
+        Map<Long, Block> reusable = previous != null && previous == lastResult ? blocks : Map.of();
+        Map<Long, Block> parsedBlocks = new HashMap<>();
+        SymbolTable symbols = parser.symbolsForParse();
+        TopologyTextParser.ParseState result = parser.newState();
+        int reused = 0;
+
+        int length = topologyText.length();
+        int blockStart = TopologyTextParser.isSubtopologyHeader(topologyText, 0, length)
+                ? 0
+                : TopologyTextParser.findSubtopologyHeader(topologyText, 0, length);
+        // Keep line numbers of diagnostics in sync with the skipped "Topologies:" header
+        result.skipLines(countLines(topologyText, blockStart < 0 ? 0 : blockStart));
+        while (blockStart >= 0) {
+            int nextBlock = TopologyTextParser.findSubtopologyHeader(topologyText, blockStart, length);
+            int blockEnd = nextBlock < 0 ? length : nextBlock;
+
+            long hash = hash(topologyText, blockStart, blockEnd);
+            Block block = reusable.get(hash);
+            if (block != null && block.matches(topologyText, blockStart, blockEnd)) {
+                reused++;
+            } else {
+                block = new Block(topologyText, blockStart, blockEnd,
+                        parser.parseRange(topologyText, blockStart, blockEnd, symbols));
+            }
+            parsedBlocks.put(hash, block);
+            result.append(block.state);
+
+            blockStart = nextBlock;
+        }
+
+        Topology topology;
+        try {
+            topology = parser.finish(result);
+        } catch (TopologyParseException e) {
+            throw new UncheckedIOException(e);
+        }
+        blocks = parsedBlocks;
+        reusedBlocks = reused;
+        lastResult = topology;
+        return topology;
+    }
+
+    /**
+     * Returns the number of sub-topology blocks which were reused by the last call to {@code parse}.
+     */
+    int getReusedBlocks() {
+        return reusedBlocks;
+    }
+
+    private static int countLines(CharSequence text, int end) {
+        int lines = 0;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters in the given range, finalised with the length of the range
+     * and the MurmurHash3 mixing function.
+     */
+    private static long hash(CharSequence text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= end - start;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A parsed sub-topology block together with the range of the text it was parsed from.
+     */
+    private static final class Block {
+        private final String source;
+        private final int start;
+        private final int end;
+        private final TopologyTextParser.ParseState state;
+
+        Block(String source, int start, int end, TopologyTextParser.ParseState state) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.state = state;
+        }
+
+        boolean matches(String text, int start, int end) {
+            return end - start == this.end - this.start
+                    && text.regionMatches(start, source, this.start, end - start);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Splits text into lines without allocating a {@code String} per line.
+ * <p>
+ * Lines are exposed as a range of a {@link CharSequence} which is only valid until the next line is
+ * requested. The line terminator ({@code \n}) is not part of the range; a trailing {@code \r} is, and is
+ * treated as whitespace by the parser.
+ * <p>
+ * A scanner reading from a {@link Reader} consumes the input incrementally through a reusable buffer
+ * which only grows if a single line does not fit into it. The reader is not closed.
+ */
+final class LineScanner {
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private char[] buffer;
+    private CharBuffer text;
+    private int length;
+    private int position;
+    private int scanPosition;
+    private int lineStart;
+    private int lineEnd;
+    private boolean endOfInput;
+
+    LineScanner(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[INITIAL_BUFFER_SIZE];
+        this.text = CharBuffer.wrap(buffer);
+    }
+
+    /**
+     * Callback for a single line of input.
+     */
+    @FunctionalInterface
+    interface LineHandler {
+        /**
+         * Handles a line of input.
+         *
+         * @param text  the text containing the line
+         * @param start the index of the first character of the line
+         * @param end   the index after the last character of the line
+         * @throws IOException if the line cannot be handled
+         */
+        void line(CharSequence text, int start, int end) throws IOException;
+    }
+
+    /**
+     * Calls the handler for every line of the given text.
+     */
+    static void forEachLine(String text, LineHandler handler) throws IOException {
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            handler.line(text, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Calls the handler for every line read from the given reader. The reader is not closed.
+     */
+    static void forEachLine(Reader reader, LineHandler handler) throws IOException {
+        LineScanner scanner = new LineScanner(reader);
+        while (scanner.nextLine()) {
+            handler.line(scanner.text(), scanner.start(), scanner.end());
+        }
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return {@code false} if the input is exhausted
+     * @throws IOException if reading the input fails
+     */
+    boolean nextLine() throws IOException {
+        while (true) {
+            for (int i = scanPosition; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    lineStart = position;
+                    lineEnd = i;
+                    position = i + 1;
+                    scanPosition = position;
+                    return true;
+                }
+            }
+            scanPosition = length;
+
+            if (endOfInput) {
+                if (position < length) {
+                    lineStart = position;
+                    lineEnd = length;
+                    position = length;
+                    return true;
+                }
+                return false;
+            }
+
+            // Move the incomplete last line to the front of the buffer and read more input
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, length - position);
+                length -= position;
+                scanPosition -= position;
+                position = 0;
+            }
+            if (length == buffer.length) {
+                char[] grown = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, length);
+                buffer = grown;
+                text = CharBuffer.wrap(buffer);
+            }
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                length += read;
+            }
+        }
+    }
+
+    /**
+     * Returns the text containing the current line.
+     */
+    CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Returns the index of the first character of the current line in {@link #text()}.
+     */
+    int start() {
+        return lineStart;
+    }
+
+    /**
+     * Returns the index after the last character of the current line in {@link #text()}.
+     */
+    int end() {
+        return lineEnd;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Splits a memory-mapped, UTF-8 encoded file into lines without copying its content onto the heap.
+ * <p>
+ * Files larger than the mapping window (1 GiB by default) are mapped in consecutive windows. Every
+ * window after the first starts at the beginning of the last incomplete line of the previous window,
+ * so lines never straddle two windows.
+ */
+final class MappedFileScanner {
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private MappedFileScanner() {
+    }
+
+    /**
+     * Calls the handler for every line of the given file, using the default mapping window size.
+     */
+    static void forEachLine(Path path, LineScanner.LineHandler handler) throws IOException {
+        forEachLine(path, DEFAULT_WINDOW_SIZE, handler);
+    }
+
+    /**
+     * Calls the handler for every line of the given file, mapping at most {@code windowSize} bytes at a time.
+     *
+     * @throws IOException if the file cannot be mapped or contains a line longer than the window size
+     */
+    static void forEachLine(Path path, int windowSize, LineScanner.LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            forEachLine(channel, 0, channel.size(), windowSize, handler, () -> false);
+        }
+    }
+
+    /**
+     * Calls the handler for every line starting in the byte range {@code [start, end)} of the given channel.
+     * <p>
+     * Unless {@code start} is zero, the line in progress at {@code start} is skipped, because it belongs to the
+     * range before. After the last line starting in the range, further lines are passed to the handler as long
+     * as {@code continuePastEnd} returns {@code true}, which lets a block straddling the end of the range be
+     * read to its end. Consecutive ranges therefore see every line exactly once.
+     *
+     * @throws IOException if the file cannot be mapped or contains a line longer than the window size
+     */
+    static void forEachLine(FileChannel channel, long start, long end, int windowSize,
+                            LineScanner.LineHandler handler, BooleanSupplier continuePastEnd) throws IOException {
+        long size = channel.size();
+        long position = start > 0 ? alignToLine(channel, start, windowSize) : 0;
+        boolean pastEnd = false;
+        while (position < size) {
+            int windowLength = (int) Math.min(windowSize, size - position);
+            boolean lastWindow = position + windowLength == size;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+            ByteSequence text = new ByteSequence(buffer, 0, windowLength);
+
+            int lineStart = 0;
+            for (int i = 0; i < windowLength; i++) {
+                if (buffer.get(i) == '\n') {
+                    pastEnd = pastEnd || position + lineStart >= end;
+                    if (pastEnd && !continuePastEnd.getAsBoolean()) {
+                        return;
+                    }
+                    handler.line(text, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+
+            if (lastWindow && lineStart < windowLength) {
+                pastEnd = pastEnd || position + lineStart >= end;
+                if (!pastEnd || continuePastEnd.getAsBoolean()) {
+                    handler.line(text, lineStart, windowLength);
+                }
+            }
+            if (lastWindow) {
+                break;
+            }
+            if (lineStart == 0) {
+                throw new IOException("Line at offset " + position + " exceeds the mapping window of "
+                                      + windowSize + " bytes");
+            }
+            position += lineStart;
+        }
+    }
+
+    /**
+     * Returns the offset of the first line starting at or after {@code position}.
+     */
+    private static long alignToLine(FileChannel channel, long position, int windowSize) throws IOException {
+        long size = channel.size();
+        long offset = position - 1;
+        while (offset < size) {
+            int windowLength = (int) Math.min(windowSize, size - offset);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += windowLength;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.joschi.kafka.topology.parser;
+
+/**
+ * A problem found while parsing a topology text representation, such as a malformed node declaration
+ * or a line that is not part of the topology format.
+ */
+public final class ParseDiagnostic {
+
+    private final int line;
+    private final int column;
+    private final String snippet;
+    private final String reason;
+
+    /**
+     * Creates a new diagnostic.
+     *
+     * @param line    the 1-based line number
+     * @param column  the 1-based column of the offending text within the line
+     * @param snippet the offending line, trimmed and possibly shortened
+     * @param reason  a description of the problem
+     */
+    public ParseDiagnostic(int line, int column, String snippet, String reason) {
+        this.line = line;
+        this.column = column;
+        this.snippet = snippet;
+        this.reason = reason;
+    }
+
+    /**
+     * Returns the 1-based line number. For inputs with several topology dumps, lines are counted from the
+     * {@code Topologies:} header of the dump.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the 1-based column of the offending text within the line.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the offending line, trimmed and shortened to at most 80 characters.
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Returns a description of the problem.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns a copy of this diagnostic with the line number moved by the given number of lines.
+     */
+    ParseDiagnostic shift(int lines) {
+        return new ParseDiagnostic(line + lines, column, snippet, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "line " + line + ", column " + column + ": " + reason + ": " + snippet;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.joschi.kafka.topology.parser;
+
+/**
+ * Receives the problems found by a {@link TopologyTextParser}.
+ * <p>
+ * Diagnostics are reported in the order of the input once the parse of a topology is complete, on the
+ * thread which started the parse. A collector shared by concurrent parses must be thread-safe.
+ */
+@FunctionalInterface
+public interface ParseDiagnosticCollector {
+
+    /**
+     * Called for every problem found in the input.
+     *
+     * @param diagnostic the problem
+     */
+    void report(ParseDiagnostic diagnostic);
+}
@@ -0,0 +1,16 @@
+package com.github.joschi.kafka.topology.parser;
+
+/**
+ * How a {@link TopologyTextParser} deals with input it does not understand.
+ */
+public enum ParseMode {
+    /**
+     * Skip malformed and unknown lines and continue at the next node declaration.
+     */
+    LENIENT,
+
+    /**
+     * Fail the parse with a {@link TopologyParseException} if the input contains any problem.
+     */
+    STRICT
+}
@@ -0,0 +1,160 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable adjacency accumulator for the nodes of a single sub-topology while it is being parsed.
+ * <p>
+ * Edges are collected into growable per-node lists; {@code -->} and {@code <--} declarations are
+ * reconciled by recording every edge on both of its ends. The immutable {@link TopologyNode}s are
+ * materialised once, when the sub-topology is complete.
+ */
+final class SubtopologyAccumulator {
+
+    private Map<String, PendingNode> nodes = new LinkedHashMap<>();
+    private PendingNode current;
+
+    /**
+     * Declares a node, replacing the attributes of a placeholder created by an earlier edge.
+     * The declared node becomes the current node which subsequent edges refer to.
+     */
+    void declare(String name, NodeType type, Collection<String> topics, Collection<String> stores) {
+        declare(name, type, topics, stores, null);
+    }
+
+    /**
+     * Declares a node like {@link #declare(String, NodeType, Collection, Collection)}, for sources subscribed
+     * with a topic pattern.
+     */
+    void declare(String name, NodeType type, Collection<String> topics, Collection<String> stores,
+                 String topicPattern) {
+        PendingNode node = node(name);
+        node.type = type;
+        node.topics = topics;
+        node.stores = stores;
+        node.topicPattern = topicPattern;
+        current = node;
+    }
+
+    /**
+     * Returns whether a node has been declared in this sub-topology, i.e. whether edges can be attached.
+     */
+    boolean hasCurrent() {
+        return current != null;
+    }
+
+    /**
+     * Forgets the current node, so that subsequent edges are not attached to it.
+     */
+    void detach() {
+        current = null;
+    }
+
+    /**
+     * Records an edge from the current node to the given successor ({@code --> successor}).
+     */
+    void addSuccessor(String successor) {
+        current.successors.add(successor);
+        node(successor).predecessors.add(current.name);
+    }
+
+    /**
+     * Records an edge from the given predecessor to the current node ({@code <-- predecessor}).
+     */
+    void addPredecessor(String predecessor) {
+        current.predecessors.add(predecessor);
+        node(predecessor).successors.add(current.name);
+    }
+
+    boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Materialises the accumulated nodes as an immutable sub-topology.
+     */
+    TopologySubtopology toSubtopology(int id) {
+        Map<String, TopologyNode> result = new LinkedHashMap<>();
+        for (PendingNode node : nodes.values()) {
+            result.put(node.name, node.build());
+        }
+        return new TopologySubtopology(id, result);
+    }
+
+    /**
+     * Materialises the accumulated nodes of a global store block as a single global store node.
+     * <p>
+     * A global store consists of a source reading the global topic and the processor maintaining
+     * the store; it is represented by a single node named after the processor.
+     */
+    TopologyNode toGlobalStore() {
+        String storeName = null;
+        List<String> topics = new ArrayList<>();
+        for (PendingNode node : nodes.values()) {
+            if (node.type == NodeType.SOURCE) {
+                topics.addAll(node.topics);
+            } else if (node.type == NodeType.PROCESSOR && storeName == null) {
+                storeName = node.name;
+            }
+        }
+        if (storeName == null) {
+            storeName = nodes.keySet().iterator().next();
+        }
+        return TopologyNode.builder(storeName, NodeType.GLOBAL_STORE)
+                .topics(topics)
+                .build();
+    }
+
+    /**
+     * Drops all accumulated nodes so the accumulator can be reused for the next sub-topology.
+     * The node table is replaced rather than cleared so that the memory of a large sub-topology is released.
+     */
+    void clear() {
+        if (!nodes.isEmpty()) {
+            nodes = new LinkedHashMap<>();
+        }
+        current = null;
+    }
+
+    private PendingNode node(String name) {
+        PendingNode node = nodes.get(name);
+        if (node == null) {
+            // Placeholder for a node which is referenced before it is declared
+            node = new PendingNode(name);
+            nodes.put(name, node);
+        }
+        return node;
+    }
+
+    private static final class PendingNode {
+        private final String name;
+        private NodeType type = NodeType.PROCESSOR;
+        private Collection<String> topics = List.of();
+        private Collection<String> stores = List.of();
+        private String topicPattern;
+        private final List<String> successors = new ArrayList<>(2);
+        private final List<String> predecessors = new ArrayList<>(2);
+
+        private PendingNode(String name) {
+            this.name = name;
+        }
+
+        private TopologyNode build() {
+            return TopologyNode.builder(name, type)
+                    .topics(topics)
+                    .stores(stores)
+                    .successors(successors)
+                    .predecessors(predecessors)
+                    .topicPattern(topicPattern)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join task parsing a range of a topology text which starts at a {@code Sub-topology:} header
+ * (or at the beginning of the text).
+ * <p>
+ * Ranges larger than {@link #THRESHOLD} characters are split at the first sub-topology header after
+ * their midpoint, so that each half only contains complete sub-topology blocks. All tasks of a parse share
+ * one symbol table.
+ */
+final class SubtopologyBlockTask extends RecursiveTask<TopologyTextParser.ParseState> {
+
+    /**
+     * Number of characters below which a range is parsed sequentially.
+     */
+    static final int THRESHOLD = 32 * 1024;
+
+    private final TopologyTextParser parser;
+    private final CharSequence text;
+    private final int start;
+    private final int end;
+    private final SymbolTable symbols;
+
+    SubtopologyBlockTask(TopologyTextParser parser, CharSequence text, int start, int end, SymbolTable symbols) {
+        this.parser = parser;
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.symbols = symbols;
+    }
+
+    @Override
+    protected TopologyTextParser.ParseState compute() {
+        if (end - start > THRESHOLD) {
+            int split = TopologyTextParser.findSubtopologyHeader(text, start + (end - start) / 2, end);
+            if (split < 0) {
+                split = TopologyTextParser.findSubtopologyHeader(text, start, start + (end - start) / 2);
+            }
+            if (split > start) {
+                SubtopologyBlockTask left = new SubtopologyBlockTask(parser, text, start, split, symbols);
+                SubtopologyBlockTask right = new SubtopologyBlockTask(parser, text, split, end, symbols);
+                right.fork();
+                TopologyTextParser.ParseState result = left.compute();
+                return result.append(right.join());
+            }
+        }
+        return parser.parseRange(text, start, end, symbols);
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.joschi.kafka.topology.parser;
+
+/**
+ * Canonicalises node, topic and store names, so that every distinct name is held in memory only once.
+ * <p>
+ * Names can be looked up directly from a range of a {@link CharSequence}; a {@link String} is only created
+ * the first time a name is seen. The table is thread-safe and can be shared by any number of concurrent
+ * parses, e.g. for all topologies of a session or fleet. It is split into independently locked segments,
+ * so parallel parses rarely contend. Names are never removed; a table lives as long as the session using it.
+ */
+public final class SymbolTable {
+
+    private static final int SEGMENTS = 16;
+    private static final int DEFAULT_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * Creates a new, empty symbol table.
+     */
+    public SymbolTable() {
+        this(SEGMENTS * DEFAULT_SEGMENT_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new, empty symbol table sized for the given number of names.
+     *
+     * @param expectedSize the expected number of distinct names
+     */
+    public SymbolTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 / SEGMENTS, 8) - 1) << 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * Returns the canonical instance of the given name.
+     *
+     * @param name the name
+     * @return the canonical instance, equal to {@code name}
+     */
+    public String intern(String name) {
+        return segment(name.hashCode()).intern(name, 0, name.length(), name.hashCode(), name);
+    }
+
+    /**
+     * Returns the canonical instance of the name in {@code [start, end)} of the given text, without creating
+     * a String if the name is already known.
+     *
+     * @param text  the text containing the name
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the name
+     * @return the canonical instance of the name
+     */
+    public String intern(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80 && text instanceof ByteSequence) {
+                // Raw UTF-8 bytes only compare equal to the decoded name after decoding
+                return intern(text.subSequence(start, end).toString());
+            }
+            hash = 31 * hash + c;
+        }
+        return segment(hash).intern(text, start, end, hash, null);
+    }
+
+    /**
+     * Returns the number of distinct names in this table.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segment(int hash) {
+        // The low bits select the slot within a segment, the segment is taken from the high bits
+        return segments[(hash ^ (hash >>> 16)) >>> 28];
+    }
+
+    /**
+     * Open addressing hash set of names with linear probing. The hashes are kept next to the names, so that
+     * probing past other names does not have to load them.
+     */
+    private static final class Segment {
+        private String[] names;
+        private int[] hashes;
+        private int size;
+
+        Segment(int capacity) {
+            this.names = new String[capacity];
+            this.hashes = new int[capacity];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized String intern(CharSequence text, int start, int end, int hash, String value) {
+            int mask = names.length - 1;
+            int index = slot(hash) & mask;
+            String name;
+            while ((name = names[index]) != null) {
+                if (hashes[index] == hash && contentEquals(name, text, start, end)) {
+                    return name;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (value == null) {
+                value = text.subSequence(start, end).toString();
+            }
+            names[index] = value;
+            hashes[index] = hash;
+            if (++size > names.length * 3 / 4) {
+                resize();
+            }
+            return value;
+        }
+
+        private void resize() {
+            String[] previousNames = names;
+            int[] previousHashes = hashes;
+            names = new String[previousNames.length * 2];
+            hashes = new int[previousNames.length * 2];
+            int mask = names.length - 1;
+            for (int i = 0; i < previousNames.length; i++) {
+                if (previousNames[i] != null) {
+                    int index = slot(previousHashes[i]) & mask;
+                    while (names[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    names[index] = previousNames[i];
+                    hashes[index] = previousHashes[i];
+                }
+            }
+        }
+
+        /**
+         * Scrambles the hash before it is masked, since the String hashes of similar names, e.g. names with
+         * consecutive numeric suffixes, are consecutive and would form long probe sequences.
+         */
+        private static int slot(int hash) {
+            int h = hash * 0x9e3779b9;
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean contentEquals(String name, CharSequence text, int start, int end) {
+            if (name.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != text.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
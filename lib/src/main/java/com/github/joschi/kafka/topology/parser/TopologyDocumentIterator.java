@@ -0,0 +1,79 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator parsing the topology dumps read from a reader one at a time.
+ * <p>
+ * Dumps are delimited by {@code Topologies:} header lines; text before the first header only counts
+ * as a dump if it contains any sub-topologies.
+ */
+final class TopologyDocumentIterator implements Iterator<Topology> {
+
+    private final TopologyTextParser parser;
+    private final LineScanner lines;
+    private TopologyTextParser.ParseState state;
+    private boolean headerSeen;
+    private boolean exhausted;
+    private Topology next;
+
+    TopologyDocumentIterator(TopologyTextParser parser, Reader reader) {
+        this.parser = parser;
+        this.lines = new LineScanner(reader);
+        this.state = parser.newState();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Topology next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Topology result = next;
+        next = null;
+        return result;
+    }
+
+    private Topology readNext() throws IOException {
+        while (lines.nextLine()) {
+            CharSequence text = lines.text();
+            if (TopologyTextParser.isDocumentHeader(text, lines.start(), lines.end())) {
+                TopologyTextParser.ParseState previous = state.complete();
+                boolean previousHeaderSeen = headerSeen;
+                state = parser.newState();
+                state.skipLines(1);
+                headerSeen = true;
+                if (previousHeaderSeen || !previous.isEmpty()) {
+                    return parser.finish(previous);
+                }
+            } else {
+                parser.parseLine(text, lines.start(), lines.end(), state);
+            }
+        }
+
+        exhausted = true;
+        if (headerSeen || !state.complete().isEmpty()) {
+            Topology last = parser.finish(state);
+            state = null;
+            return last;
+        }
+        return null;
+    }
+}
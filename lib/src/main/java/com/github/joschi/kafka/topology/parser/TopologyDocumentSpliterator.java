@@ -0,0 +1,91 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator parsing the topology dumps in a range of text one at a time.
+ * <p>
+ * Dumps are delimited by {@code Topologies:} header lines. Splitting divides the remaining range at
+ * the first header after its midpoint, so each part only contains complete dumps.
+ */
+final class TopologyDocumentSpliterator implements Spliterator<Topology> {
+
+    /**
+     * Assumed size of a dump in characters, used to estimate the number of remaining dumps.
+     */
+    private static final int ESTIMATED_DOCUMENT_SIZE = 4096;
+
+    private final TopologyTextParser parser;
+    private final CharSequence text;
+    private int position;
+    private final int end;
+
+    TopologyDocumentSpliterator(TopologyTextParser parser, CharSequence text, int position, int end) {
+        this.parser = parser;
+        this.text = text;
+        this.position = position;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Topology> action) {
+        while (position < end) {
+            int documentStart = position;
+            int documentEnd = TopologyTextParser.findDocumentHeader(text, documentStart, end);
+            if (documentEnd < 0) {
+                documentEnd = end;
+            }
+            position = documentEnd;
+
+            TopologyTextParser.ParseState state = parser.parseRange(text, documentStart, documentEnd);
+            // Text before the first header only counts as a dump if it contains anything
+            if (!state.isEmpty() || startsWithDocumentHeader(documentStart, documentEnd)) {
+                action.accept(finish(state));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Topology finish(TopologyTextParser.ParseState state) {
+        try {
+            return parser.finish(state);
+        } catch (TopologyParseException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<Topology> trySplit() {
+        int middle = position + (end - position) / 2;
+        int split = TopologyTextParser.findDocumentHeader(text, middle, end);
+        if (split < 0 || split <= position) {
+            return null;
+        }
+        TopologyDocumentSpliterator prefix = new TopologyDocumentSpliterator(parser, text, position, split);
+        position = split;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return (end - position + ESTIMATED_DOCUMENT_SIZE - 1) / ESTIMATED_DOCUMENT_SIZE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    private boolean startsWithDocumentHeader(int start, int end) {
+        int lineEnd = start;
+        while (lineEnd < end && text.charAt(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        return TopologyTextParser.isDocumentHeader(text, start, lineEnd);
+    }
+}
@@ -0,0 +1,489 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses the JSON representation of a topology written by
+ * {@link com.github.joschi.kafka.topology.formatter.JsonFormatter} into the internal Topology model.
+ * <p>
+ * The input is read as a stream of tokens straight into {@link TopologyNode.Builder}s and a
+ * {@link Topology.Builder}, without building an intermediate tree, so apart from the resulting model only the
+ * sub-topology currently being parsed is held in memory. Keys may appear in any order, and unknown keys are
+ * skipped, so documents written by later versions with additional attributes can still be read. Names are
+ * canonicalised through a {@link SymbolTable} like in {@link TopologyTextParser}.
+ */
+public class TopologyJsonParser {
+
+    private final SymbolTable symbols;
+
+    /**
+     * Creates a new parser.
+     */
+    public TopologyJsonParser() {
+        this(null);
+    }
+
+    /**
+     * Creates a new parser canonicalising all node, topic and store names through the given symbol table.
+     *
+     * @param symbols the symbol table to share, or {@code null} to use a new table for every parse
+     */
+    public TopologyJsonParser(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Parses the JSON representation of a topology.
+     *
+     * @param json the JSON representation
+     * @return the parsed Topology
+     * @throws IOException if the input is not a valid topology document
+     */
+    public Topology parse(String json) throws IOException {
+        return parse(new StringReader(json));
+    }
+
+    /**
+     * Parses the JSON representation of a topology read from the given reader. The reader is consumed
+     * incrementally and not closed.
+     *
+     * @param reader the reader providing the JSON representation
+     * @return the parsed Topology
+     * @throws IOException if reading fails or the input is not a valid topology document
+     */
+    public Topology parse(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader, symbols != null ? symbols : new SymbolTable());
+        Topology topology = readTopology(json);
+        json.expectEnd();
+        return topology;
+    }
+
+    /**
+     * Parses a UTF-8 encoded file containing the JSON representation of a topology. The file may be gzip
+     * compressed.
+     *
+     * @param path the path of the file
+     * @return the parsed Topology
+     * @throws IOException if reading fails or the file is not a valid topology document
+     */
+    public Topology parse(Path path) throws IOException {
+        try (InputStream inputStream = GzipInput.open(path)) {
+            return parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Topology readTopology(JsonReader json) throws IOException {
+        Topology.Builder builder = Topology.builder();
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        json.expect('{');
+        while (json.nextKey()) {
+            if (json.keyEquals("subtopologies")) {
+                json.expect('[');
+                while (json.nextElement()) {
+                    builder.addSubtopology(readSubtopology(json, nodes));
+                }
+            } else if (json.keyEquals("globalStores")) {
+                json.expect('[');
+                while (json.nextElement()) {
+                    TopologyNode globalStore = readNode(json);
+                    if (globalStore.getType() != NodeType.GLOBAL_STORE) {
+                        throw json.error("Global store must be of type GLOBAL_STORE: " + globalStore.getName());
+                    }
+                    builder.addGlobalStore(globalStore);
+                }
+            } else {
+                json.skipValue();
+            }
+        }
+        return builder.build();
+    }
+
+    private static TopologySubtopology readSubtopology(JsonReader json, Map<String, TopologyNode> nodes)
+            throws IOException {
+        // The node table is reused for all subtopologies, which copy it
+        nodes.clear();
+        Integer id = null;
+        json.expect('{');
+        while (json.nextKey()) {
+            if (json.keyEquals("id")) {
+                id = json.readInt();
+            } else if (json.keyEquals("nodes")) {
+                json.expect('[');
+                while (json.nextElement()) {
+                    TopologyNode node = readNode(json);
+                    nodes.put(node.getName(), node);
+                }
+            } else {
+                json.skipValue();
+            }
+        }
+        if (id == null) {
+            throw json.error("Sub-topology without id");
+        }
+        return new TopologySubtopology(id, nodes);
+    }
+
+    private static TopologyNode readNode(JsonReader json) throws IOException {
+        String name = null;
+        NodeType type = null;
+        String topicPattern = null;
+        Set<String> topics = Set.of();
+        Set<String> stores = Set.of();
+        Set<String> successors = Set.of();
+        Set<String> predecessors = Set.of();
+        json.expect('{');
+        while (json.nextKey()) {
+            if (json.keyEquals("name")) {
+                name = json.readName();
+            } else if (json.keyEquals("type")) {
+                type = json.readNodeType();
+            } else if (json.keyEquals("topicPattern")) {
+                topicPattern = json.readNullableName();
+            } else if (json.keyEquals("topics")) {
+                topics = json.readNames();
+            } else if (json.keyEquals("stores")) {
+                stores = json.readNames();
+            } else if (json.keyEquals("successors")) {
+                successors = json.readNames();
+            } else if (json.keyEquals("predecessors")) {
+                predecessors = json.readNames();
+            } else {
+                json.skipValue();
+            }
+        }
+        if (name == null || type == null) {
+            throw json.error("Node without name or type");
+        }
+        return TopologyNode.builder(name, type)
+                .topicPattern(topicPattern)
+                .topics(topics)
+                .stores(stores)
+                .successors(successors)
+                .predecessors(predecessors)
+                .build();
+    }
+
+    /**
+     * Minimal pull tokenizer for JSON, reading the input in blocks and tracking the position for error messages.
+     */
+    private static final class JsonReader {
+        private static final NodeType[] NODE_TYPES = NodeType.values();
+
+        private final Reader reader;
+        private final SymbolTable symbols;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder text = new StringBuilder();
+        private int position;
+        private int limit;
+        private int line = 1;
+        private int lineStart;
+        // Whether the next call to nextKey() or nextElement() reads the first entry of the current container
+        private boolean first;
+
+        private JsonReader(Reader reader, SymbolTable symbols) {
+            this.reader = reader;
+            this.symbols = symbols;
+        }
+
+        void expect(char expected) throws IOException {
+            if (nextToken() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+            position++;
+            first = true;
+        }
+
+        void expectEnd() throws IOException {
+            if (nextToken() != -1) {
+                throw error("Unexpected content after the topology");
+            }
+        }
+
+        /**
+         * Advances to the next key of the current object and reads it into the text buffer.
+         *
+         * @return whether there is another key, {@code false} at the end of the object
+         */
+        boolean nextKey() throws IOException {
+            if (!nextEntry('}')) {
+                return false;
+            }
+            if (nextToken() != '"') {
+                throw error("Expected a key");
+            }
+            readString();
+            if (nextToken() != ':') {
+                throw error("Expected ':'");
+            }
+            position++;
+            return true;
+        }
+
+        /**
+         * Advances to the next element of the current array.
+         *
+         * @return whether there is another element, {@code false} at the end of the array
+         */
+        boolean nextElement() throws IOException {
+            return nextEntry(']');
+        }
+
+        private boolean nextEntry(char end) throws IOException {
+            int c = nextToken();
+            if (c == end) {
+                position++;
+                first = false;
+                return false;
+            }
+            if (!first) {
+                if (c != ',') {
+                    throw error("Expected ',' or '" + end + "'");
+                }
+                position++;
+            }
+            first = false;
+            return true;
+        }
+
+        boolean keyEquals(String key) {
+            return key.contentEquals(text);
+        }
+
+        String readName() throws IOException {
+            if (nextToken() != '"') {
+                throw error("Expected a string");
+            }
+            readString();
+            return symbols.intern(text, 0, text.length());
+        }
+
+        String readNullableName() throws IOException {
+            if (nextToken() == 'n') {
+                readLiteral("null");
+                return null;
+            }
+            if (nextToken() != '"') {
+                throw error("Expected a string or null");
+            }
+            readString();
+            return symbols.intern(text, 0, text.length());
+        }
+
+        NodeType readNodeType() throws IOException {
+            if (nextToken() != '"') {
+                throw error("Expected a node type");
+            }
+            readString();
+            for (NodeType type : NODE_TYPES) {
+                if (type.name().contentEquals(text)) {
+                    return type;
+                }
+            }
+            throw error("Unknown node type: " + text);
+        }
+
+        /**
+         * Reads an array of names as an immutable set, which the node builder adopts without copying it.
+         */
+        Set<String> readNames() throws IOException {
+            expect('[');
+            if (!nextElement()) {
+                return Set.of();
+            }
+            String name = readName();
+            if (!nextElement()) {
+                return Set.of(name);
+            }
+            List<String> names = new ArrayList<>(4);
+            names.add(name);
+            do {
+                names.add(readName());
+            } while (nextElement());
+            return Set.copyOf(names);
+        }
+
+        int readInt() throws IOException {
+            int c = nextToken();
+            boolean negative = c == '-';
+            if (negative) {
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while ((c = peek()) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                position++;
+                if (++digits > 10) {
+                    break;
+                }
+            }
+            value = negative ? -value : value;
+            if (digits == 0 || digits > 10 || value != (int) value || isNumberPart(peek())) {
+                throw error("Expected an integer");
+            }
+            return (int) value;
+        }
+
+        void skipValue() throws IOException {
+            int c = nextToken();
+            switch (c) {
+                case '{' -> {
+                    expect('{');
+                    while (nextKey()) {
+                        skipValue();
+                    }
+                }
+                case '[' -> {
+                    expect('[');
+                    while (nextElement()) {
+                        skipValue();
+                    }
+                }
+                case '"' -> readString();
+                case 't' -> readLiteral("true");
+                case 'f' -> readLiteral("false");
+                case 'n' -> readLiteral("null");
+                default -> {
+                    if (!isNumberPart(c)) {
+                        throw error("Unexpected character");
+                    }
+                    while (isNumberPart(peek())) {
+                        position++;
+                    }
+                }
+            }
+        }
+
+        private static boolean isNumberPart(int c) {
+            return c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+        }
+
+        private void readLiteral(String literal) throws IOException {
+            for (int i = 0; i < literal.length(); i++) {
+                if (peek() != literal.charAt(i)) {
+                    throw error("Expected " + literal);
+                }
+                position++;
+            }
+        }
+
+        /**
+         * Reads the string starting at the current quote into the text buffer, resolving escapes.
+         */
+        private void readString() throws IOException {
+            position++;
+            text.setLength(0);
+            while (true) {
+                // Copy runs of plain characters in one call
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position];
+                    if (c == '"' || c == '\\' || c < 0x20) {
+                        break;
+                    }
+                    position++;
+                }
+                text.append(buffer, start, position - start);
+                int c = peek();
+                if (c == '"') {
+                    position++;
+                    return;
+                }
+                if (c == '\\') {
+                    position++;
+                    text.append(readEscape());
+                } else if (c == -1) {
+                    throw error("Unterminated string");
+                } else if (c < 0x20) {
+                    throw error("Control character in string");
+                }
+            }
+        }
+
+        private char readEscape() throws IOException {
+            int c = peek();
+            position++;
+            return switch (c) {
+                case '"' -> '"';
+                case '\\' -> '\\';
+                case '/' -> '/';
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> {
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(peek(), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        value = value << 4 | digit;
+                        position++;
+                    }
+                    yield (char) value;
+                }
+                default -> throw error("Invalid escape");
+            };
+        }
+
+        /**
+         * Skips whitespace and returns the next character without consuming it, or {@code -1} at the end.
+         */
+        private int nextToken() throws IOException {
+            while (true) {
+                int c = peek();
+                if (c == '\n') {
+                    position++;
+                    line++;
+                    lineStart = position;
+                } else if (c == ' ' || c == '\t' || c == '\r') {
+                    position++;
+                } else {
+                    return c;
+                }
+            }
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+
+        private boolean fill() throws IOException {
+            lineStart -= limit;
+            position = 0;
+            limit = 0;
+            int read = reader.read(buffer);
+            if (read <= 0) {
+                return false;
+            }
+            limit = read;
+            return true;
+        }
+
+        IOException error(String message) {
+            int column = position - lineStart + 1;
+            return new IOException("Invalid topology JSON at line " + line + ", column " + column + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds and parses topology dumps ({@code TopologyDescription.toString()} output) in arbitrary application logs.
+ * <p>
+ * A dump starts at a line containing {@code Topologies:}. Each following line is searched for the first
+ * structural marker of the topology text ({@code Sub-topology:}, {@code Source:}, {@code Processor:},
+ * {@code Sink:}, {@code -->} or {@code <--}); everything in front of it, such as timestamps, log levels,
+ * thread and logger names, is stripped, as are ANSI colour codes. The dump ends at the first non-blank
+ * line without a marker, unless that line consists of nothing but the same logger prefix as the header line
+ * (the prefixed form of the blank lines between sub-topologies).
+ * <p>
+ * Diagnostics of the parser refer to lines counted from the {@code Topologies:} line of each dump and to
+ * columns counted from the first marker of a line.
+ * <p>
+ * Lines outside of dumps are only searched for the header with a plain character scan, and dump lines are
+ * fed straight into the {@link TopologyTextParser} without stitching the dump back together as a String.
+ */
+public class TopologyLogExtractor {
+
+    private static final String HEADER = "Topologies:";
+    private static final String[] MARKERS = {"Sub-topology:", "Source:", "Processor:", "Sink:", "-->", "<--"};
+    private static final char ESCAPE = '\u001B';
+    static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    private final TopologyTextParser parser;
+
+    /**
+     * Creates a new extractor using a default {@link TopologyTextParser}.
+     */
+    public TopologyLogExtractor() {
+        this(new TopologyTextParser());
+    }
+
+    /**
+     * Creates a new extractor.
+     *
+     * @param parser the parser for the extracted dumps
+     */
+    public TopologyLogExtractor(TopologyTextParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Extracts all topology dumps from the given log text.
+     *
+     * @param log the log text
+     * @return the parsed topologies, in the order they appear in the log
+     * @throws IOException if parsing fails
+     */
+    public List<Topology> extract(String log) throws IOException {
+        Extraction extraction = new Extraction();
+        LineScanner.forEachLine(log, extraction);
+        return extraction.finish();
+    }
+
+    /**
+     * Extracts all topology dumps from the log read from the given reader. The reader is not closed.
+     *
+     * @param reader the reader providing the log
+     * @return the parsed topologies, in the order they appear in the log
+     * @throws IOException if reading or parsing fails
+     */
+    public List<Topology> extract(Reader reader) throws IOException {
+        Extraction extraction = new Extraction();
+        LineScanner.forEachLine(reader, extraction);
+        return extraction.finish();
+    }
+
+    /**
+     * Extracts all topology dumps from the log read from the given input stream, which may be gzip compressed.
+     * The stream is not closed.
+     *
+     * @param inputStream the input stream providing the log
+     * @param charset     the charset of the log
+     * @return the parsed topologies, in the order they appear in the log
+     * @throws IOException if reading or parsing fails
+     */
+    public List<Topology> extract(InputStream inputStream, Charset charset) throws IOException {
+        try (InputStream content = GzipInput.decompressIfGzipped(inputStream)) {
+            return extract(new InputStreamReader(content, charset));
+        }
+    }
+
+    /**
+     * Extracts all topology dumps from a UTF-8 encoded log file, scanning the memory-mapped file. Gzip
+     * compressed files are inflated on a separate thread while they are scanned.
+     *
+     * @param path the path of the log file
+     * @return the parsed topologies, in the order they appear in the log
+     * @throws IOException if reading or parsing fails
+     */
+    public List<Topology> extract(Path path) throws IOException {
+        if (GzipInput.isGzipped(path)) {
+            try (InputStream inputStream = GzipInput.open(path)) {
+                return extract(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            }
+        }
+        Extraction extraction = new Extraction();
+        MappedFileScanner.forEachLine(path, extraction);
+        return extraction.finish();
+    }
+
+    /**
+     * Extracts all topology dumps from a UTF-8 encoded log file, scanning it with the given number of threads.
+     * <p>
+     * The file is split into byte ranges of equal size, aligned to line boundaries, which are scanned
+     * independently. A dump belongs to the range its {@code Topologies:} line starts in; a dump running over
+     * the end of its range is read to its end by the same thread, and the following range skips the lines
+     * in front of its first header. Files smaller than {@value #MIN_CHUNK_SIZE} bytes per thread are split
+     * into fewer ranges. Gzip compressed files cannot be split and are scanned like in {@link #extract(Path)}.
+     *
+     * @param path    the path of the log file
+     * @param threads the number of threads to scan with
+     * @return the parsed topologies, in the order they appear in the log
+     * @throws IOException if reading or parsing fails
+     */
+    public List<Topology> extractParallel(Path path, int threads) throws IOException {
+        return extractParallel(path, threads, MIN_CHUNK_SIZE);
+    }
+
+    List<Topology> extractParallel(Path path, int threads, long minChunkSize) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        if (GzipInput.isGzipped(path)) {
+            return extract(path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, Math.min(threads, size / minChunkSize));
+            if (chunks == 1) {
+                return extractRange(channel, 0, size);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(chunks);
+            try {
+                List<Future<List<Topology>>> futures = new ArrayList<>(chunks);
+                for (int i = 0; i < chunks; i++) {
+                    long start = size * i / chunks;
+                    long end = size * (i + 1) / chunks;
+                    futures.add(executor.submit(() -> extractRange(channel, start, end)));
+                }
+
+                List<Topology> topologies = new ArrayList<>();
+                for (Future<List<Topology>> future : futures) {
+                    topologies.addAll(await(future));
+                }
+                return topologies;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private List<Topology> extractRange(FileChannel channel, long start, long end) throws IOException {
+        Extraction extraction = new Extraction();
+        MappedFileScanner.forEachLine(channel, start, end, MappedFileScanner.DEFAULT_WINDOW_SIZE,
+                extraction, extraction::continuePastEnd);
+        return extraction.finish();
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning log file");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code value} in {@code [start, end)}, or {@code -1}.
+     */
+    static int indexOf(CharSequence text, String value, int start, int end) {
+        char first = value.charAt(0);
+        int last = end - value.length();
+        for (int i = start; i <= last; i++) {
+            if (text.charAt(i) == first && regionMatches(text, i + 1, value, 1)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first topology marker in {@code [start, end)}, or {@code -1}.
+     */
+    static int indexOfMarker(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == 'S' || c == 'P' || c == '-' || c == '<') {
+                for (String marker : MARKERS) {
+                    if (marker.charAt(0) == c && i + marker.length() <= end && regionMatches(text, i + 1, marker, 1)) {
+                        return i;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String value, int valueOffset) {
+        for (int i = valueOffset; i < value.length(); i++) {
+            if (text.charAt(offset + i - valueOffset) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes ANSI escape sequences ({@code ESC [ ... final-byte}) from the given range.
+     */
+    static void stripAnsi(CharSequence text, int start, int end, StringBuilder target) {
+        target.setLength(0);
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == ESCAPE) {
+                i = skipEscape(text, i, end);
+            } else {
+                target.append(c);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Removes ANSI escape sequences from the given range of UTF-8 bytes, keeping the remaining bytes
+     * encoded so that they are still decoded as UTF-8 when interned.
+     *
+     * @return the number of bytes written to {@code target}
+     */
+    static int stripAnsi(ByteSequence text, int start, int end, byte[] target) {
+        int length = 0;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == ESCAPE) {
+                i = skipEscape(text, i, end);
+            } else {
+                target[length++] = (byte) c;
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the position after the escape sequence starting with the {@code ESC} at {@code i}.
+     */
+    private static int skipEscape(CharSequence text, int i, int end) {
+        i++;
+        if (i < end && text.charAt(i) == '[') {
+            i++;
+            // Parameter and intermediate bytes, then a single final byte in the range @ to ~
+            while (i < end && (text.charAt(i) < '@' || text.charAt(i) > '~')) {
+                i++;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean contains(CharSequence text, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the last two whitespace-separated tokens in front of {@code end}, which identify the logger
+     * prefix independent of changing timestamps, or {@code null} if there is no prefix.
+     */
+    static String prefixTail(CharSequence text, int start, int end) {
+        int tailEnd = trimTrailing(text, start, end);
+        int tailStart = tailEnd;
+        int tokens = 0;
+        while (tailStart > start && tokens < 2) {
+            while (tailStart > start && text.charAt(tailStart - 1) > ' ') {
+                tailStart--;
+            }
+            tokens++;
+            if (tokens < 2) {
+                tailStart = trimTrailing(text, start, tailStart);
+            }
+        }
+        return tailStart == tailEnd ? null : text.subSequence(tailStart, tailEnd).toString();
+    }
+
+    private static boolean endsWith(CharSequence text, int start, int end, String suffix) {
+        int tailEnd = trimTrailing(text, start, end);
+        int tailStart = tailEnd - suffix.length();
+        return tailStart >= start && regionMatches(text, tailStart, suffix, 0);
+    }
+
+    private static int trimTrailing(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * State of a running extraction.
+     */
+    private final class Extraction implements LineScanner.LineHandler {
+        private final List<Topology> topologies = new ArrayList<>();
+        private final StringBuilder stripped = new StringBuilder();
+        private byte[] strippedBytes = new byte[0];
+        private TopologyTextParser.ParseState state;
+        private String prefixTail;
+        private boolean pastEnd;
+
+        @Override
+        public void line(CharSequence text, int start, int end) throws TopologyParseException {
+            if (contains(text, ESCAPE, start, end)) {
+                if (text instanceof ByteSequence) {
+                    // Mapped lines hold UTF-8 bytes, which must stay encoded to be decoded on interning
+                    if (strippedBytes.length < end - start) {
+                        strippedBytes = new byte[end - start];
+                    }
+                    int length = stripAnsi((ByteSequence) text, start, end, strippedBytes);
+                    text = new ByteSequence(ByteBuffer.wrap(strippedBytes), 0, length);
+                    start = 0;
+                    end = length;
+                } else {
+                    stripAnsi(text, start, end, stripped);
+                    text = stripped;
+                    start = 0;
+                    end = stripped.length();
+                }
+            }
+
+            int header = indexOf(text, HEADER, start, end);
+            if (header >= 0) {
+                finishDump();
+                if (pastEnd) {
+                    // The dump belongs to the next range
+                    return;
+                }
+                state = parser.newState();
+                state.skipLines(1);
+                prefixTail = prefixTail(text, start, header);
+                return;
+            }
+            if (state == null) {
+                return;
+            }
+
+            int marker = indexOfMarker(text, start, end);
+            if (marker >= 0) {
+                parser.parseLine(text, marker, end, state);
+            } else if (isBlank(text, start, end)
+                       || (prefixTail != null && endsWith(text, start, end, prefixTail))) {
+                state.skipLines(1);
+            } else {
+                finishDump();
+            }
+        }
+
+        /**
+         * Called for every line after the end of the scanned range, only continues while a dump is open.
+         */
+        private boolean continuePastEnd() {
+            pastEnd = true;
+            return state != null;
+        }
+
+        private void finishDump() throws TopologyParseException {
+            if (state != null) {
+                topologies.add(parser.finish(state));
+                state = null;
+            }
+        }
+
+        private List<Topology> finish() throws TopologyParseException {
+            finishDump();
+            return topologies;
+        }
+    }
+}
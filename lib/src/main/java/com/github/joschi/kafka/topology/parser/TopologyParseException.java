@@ -0,0 +1,37 @@
+package com.github.joschi.kafka.topology.parser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Thrown by a {@link TopologyTextParser} in {@link ParseMode#STRICT strict mode} if the input contains problems.
+ */
+public class TopologyParseException extends IOException {
+
+    private final transient List<ParseDiagnostic> diagnostics;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param diagnostics the problems found in the input, must not be empty
+     */
+    public TopologyParseException(List<ParseDiagnostic> diagnostics) {
+        super(message(diagnostics));
+        this.diagnostics = List.copyOf(diagnostics);
+    }
+
+    /**
+     * Returns all problems found in the input, in the order of the input.
+     */
+    public List<ParseDiagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    private static String message(List<ParseDiagnostic> diagnostics) {
+        String first = "Invalid topology at " + diagnostics.get(0);
+        if (diagnostics.size() == 1) {
+            return first;
+        }
+        return first + " (and " + (diagnostics.size() - 1) + " more problems)";
+    }
+}
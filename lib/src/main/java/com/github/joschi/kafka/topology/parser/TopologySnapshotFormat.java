@@ -0,0 +1,58 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+
+/**
+ * Constants of the binary topology snapshot format shared by {@link TopologySnapshotWriter} and
+ * {@link TopologySnapshotReader}.
+ * <p>
+ * A snapshot consists of, in this order:
+ * <ol>
+ *   <li>the magic bytes {@code KTSS}</li>
+ *   <li>the format version</li>
+ *   <li>the string table: the number of strings, then the UTF-8 byte length and bytes of every string</li>
+ *   <li>the number of subtopologies, then for every subtopology its zigzag encoded id, its number of nodes
+ *       and its nodes</li>
+ *   <li>the number of global stores, then the global stores</li>
+ * </ol>
+ * A node is encoded as its type code, the string index of its name, the string index of its topic pattern
+ * plus one (zero if it has none), and the lengths and string indices of its successors, predecessors, topics
+ * and stores. All numbers are unsigned LEB128 varints.
+ */
+final class TopologySnapshotFormat {
+
+    static final byte[] MAGIC = {'K', 'T', 'S', 'S'};
+
+    /**
+     * Version written by {@link TopologySnapshotWriter}; the reader supports all versions up to this one.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Node types by type code. The codes are part of the format and independent of the declaration order of
+     * {@link NodeType}; new types may only be appended.
+     */
+    private static final NodeType[] NODE_TYPES = {
+            NodeType.SOURCE, NodeType.PROCESSOR, NodeType.SINK,
+            NodeType.GLOBAL_STORE, NodeType.STATE_STORE, NodeType.TOPIC
+    };
+
+    private static final int[] TYPE_CODES = new int[NodeType.values().length];
+
+    static {
+        for (int code = 0; code < NODE_TYPES.length; code++) {
+            TYPE_CODES[NODE_TYPES[code].ordinal()] = code;
+        }
+    }
+
+    private TopologySnapshotFormat() {
+    }
+
+    static int typeCode(NodeType type) {
+        return TYPE_CODES[type.ordinal()];
+    }
+
+    static NodeType nodeType(int code) {
+        return code >= 0 && code < NODE_TYPES.length ? NODE_TYPES[code] : null;
+    }
+}
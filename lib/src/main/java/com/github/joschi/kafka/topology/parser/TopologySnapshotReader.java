@@ -0,0 +1,215 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads a {@link Topology} from a binary snapshot written by {@link TopologySnapshotWriter}.
+ * <p>
+ * Loading a snapshot does not scan any text: every name is decoded exactly once from the string table and all
+ * references are resolved by index, so apart from the string table only the model objects themselves are
+ * allocated. Snapshots of the current and all earlier versions of the format are supported.
+ */
+public class TopologySnapshotReader {
+
+    private final SymbolTable symbols;
+
+    /**
+     * Creates a new reader.
+     */
+    public TopologySnapshotReader() {
+        this(null);
+    }
+
+    /**
+     * Creates a new reader canonicalising all names through the given symbol table, e.g. to share the names
+     * of many loaded topologies with each other and with parsed ones.
+     *
+     * @param symbols the symbol table to share, or {@code null} to share names only within each snapshot
+     */
+    public TopologySnapshotReader(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Returns whether the given bytes start with the magic bytes of a snapshot.
+     *
+     * @param bytes the bytes, e.g. the beginning of a file
+     * @return whether the bytes look like a snapshot
+     */
+    public static boolean isSnapshot(byte[] bytes) {
+        return bytes.length >= TopologySnapshotFormat.MAGIC.length
+               && Arrays.equals(bytes, 0, TopologySnapshotFormat.MAGIC.length,
+                                TopologySnapshotFormat.MAGIC, 0, TopologySnapshotFormat.MAGIC.length);
+    }
+
+    /**
+     * Loads a topology from the given snapshot.
+     *
+     * @param snapshot the snapshot
+     * @return the topology
+     * @throws IOException if the bytes are not a snapshot, are truncated or corrupt, or have an unsupported version
+     */
+    public Topology read(byte[] snapshot) throws IOException {
+        if (!isSnapshot(snapshot)) {
+            throw new IOException("Not a topology snapshot");
+        }
+        Input input = new Input(snapshot, TopologySnapshotFormat.MAGIC.length);
+        try {
+            int version = input.readVarint();
+            Topology topology = switch (version) {
+                // Later versions add a case here; existing cases are kept so that old snapshots remain readable
+                case 1 -> readVersion1(input);
+                default -> throw new IOException("Unsupported topology snapshot version " + version
+                                                 + ", expected at most " + TopologySnapshotFormat.VERSION);
+            };
+            if (input.position != snapshot.length) {
+                throw new IOException("Corrupt topology snapshot: unexpected data at offset " + input.position);
+            }
+            return topology;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt topology snapshot", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt topology snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads a topology from a snapshot read from the given input stream up to its end. The input stream is
+     * not closed.
+     *
+     * @param inputStream the input stream providing the snapshot
+     * @return the topology
+     * @throws IOException if reading fails or the input is not a valid snapshot
+     */
+    public Topology read(InputStream inputStream) throws IOException {
+        return read(inputStream.readAllBytes());
+    }
+
+    /**
+     * Loads a topology from the given snapshot file.
+     *
+     * @param path the path of the file
+     * @return the topology
+     * @throws IOException if reading fails or the file is not a valid snapshot
+     */
+    public Topology read(Path path) throws IOException {
+        return read(Files.readAllBytes(path));
+    }
+
+    private Topology readVersion1(Input input) throws IOException {
+        String[] strings = new String[input.readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            int length = input.readCount();
+            String string = new String(input.bytes, input.position, length, StandardCharsets.UTF_8);
+            input.position += length;
+            strings[i] = symbols != null ? symbols.intern(string) : string;
+        }
+
+        Topology.Builder builder = Topology.builder();
+        // The node table is reused for all subtopologies, which copy it
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        int subtopologyCount = input.readCount();
+        for (int s = 0; s < subtopologyCount; s++) {
+            int zigzag = input.readVarint();
+            int id = zigzag >>> 1 ^ -(zigzag & 1);
+            int nodeCount = input.readCount();
+            nodes.clear();
+            for (int n = 0; n < nodeCount; n++) {
+                TopologyNode node = readNode(input, strings);
+                nodes.put(node.getName(), node);
+            }
+            builder.addSubtopology(new TopologySubtopology(id, nodes));
+        }
+        int globalStoreCount = input.readCount();
+        for (int g = 0; g < globalStoreCount; g++) {
+            builder.addGlobalStore(readNode(input, strings));
+        }
+        return builder.build();
+    }
+
+    private static TopologyNode readNode(Input input, String[] strings) throws IOException {
+        int code = input.readVarint();
+        NodeType type = TopologySnapshotFormat.nodeType(code);
+        if (type == null) {
+            throw new IOException("Corrupt topology snapshot: unknown node type " + code);
+        }
+        TopologyNode.Builder builder = TopologyNode.builder(strings[input.readVarint()], type);
+        int pattern = input.readVarint();
+        if (pattern != 0) {
+            builder.topicPattern(strings[pattern - 1]);
+        }
+        return builder
+                .successors(readNames(input, strings))
+                .predecessors(readNames(input, strings))
+                .topics(readNames(input, strings))
+                .stores(readNames(input, strings))
+                .build();
+    }
+
+    /**
+     * Reads a name set as an immutable set, which the node builder adopts without copying it.
+     */
+    private static Set<String> readNames(Input input, String[] strings) {
+        int count = input.readCount();
+        return switch (count) {
+            case 0 -> Set.of();
+            case 1 -> Set.of(strings[input.readVarint()]);
+            case 2 -> Set.of(strings[input.readVarint()], strings[input.readVarint()]);
+            default -> {
+                String[] names = new String[count];
+                for (int i = 0; i < count; i++) {
+                    names[i] = strings[input.readVarint()];
+                }
+                yield Set.of(names);
+            }
+        };
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint too long at offset " + position);
+        }
+
+        /**
+         * Reads the number of following elements, each of which takes at least one byte.
+         */
+        private int readCount() {
+            int start = position;
+            int count = readVarint();
+            if (count < 0 || count > bytes.length - position) {
+                throw new IllegalArgumentException("invalid length " + Integer.toUnsignedString(count)
+                                                   + " at offset " + start);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link Topology} as a compact binary snapshot, which {@link TopologySnapshotReader} loads much faster
+ * than {@link TopologyTextParser} parses the text representation.
+ * <p>
+ * Every name is stored once in a string table and referenced by its index, so a snapshot is typically a
+ * fraction of the size of the text representation. Snapshots are always written in the current version of
+ * the format.
+ */
+public class TopologySnapshotWriter {
+
+    /**
+     * Encodes the given topology as a snapshot.
+     *
+     * @param topology the topology
+     * @return the snapshot
+     */
+    public byte[] toByteArray(Topology topology) {
+        Output output = encode(topology);
+        return Arrays.copyOf(output.bytes, output.length);
+    }
+
+    /**
+     * Writes a snapshot of the given topology to the given output stream. The output stream is not closed.
+     *
+     * @param topology the topology
+     * @param outputStream the output stream
+     * @throws IOException if writing fails
+     */
+    public void write(Topology topology, OutputStream outputStream) throws IOException {
+        Output output = encode(topology);
+        outputStream.write(output.bytes, 0, output.length);
+    }
+
+    /**
+     * Writes a snapshot of the given topology to the given file, replacing an existing file.
+     *
+     * @param topology the topology
+     * @param path the path of the file
+     * @throws IOException if writing fails
+     */
+    public void write(Topology topology, Path path) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            write(topology, outputStream);
+        }
+    }
+
+    private static Output encode(Topology topology) {
+        StringTable strings = new StringTable();
+        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+            for (TopologyNode node : subtopology.getNodes().values()) {
+                strings.addAll(node);
+            }
+        }
+        for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+            strings.addAll(globalStore);
+        }
+
+        Output output = new Output(64 + strings.byteLength);
+        output.writeBytes(TopologySnapshotFormat.MAGIC);
+        output.writeVarint(TopologySnapshotFormat.VERSION);
+        output.writeVarint(strings.encoded.size());
+        for (byte[] string : strings.encoded) {
+            output.writeVarint(string.length);
+            output.writeBytes(string);
+        }
+
+        output.writeVarint(topology.getSubtopologies().size());
+        for (TopologySubtopology subtopology : topology.getSubtopologies().values()) {
+            int id = subtopology.getId();
+            output.writeVarint(id << 1 ^ id >> 31);
+            output.writeVarint(subtopology.getNodes().size());
+            for (TopologyNode node : subtopology.getNodes().values()) {
+                writeNode(output, strings, node);
+            }
+        }
+        output.writeVarint(topology.getGlobalStores().size());
+        for (TopologyNode globalStore : topology.getGlobalStores().values()) {
+            writeNode(output, strings, globalStore);
+        }
+        return output;
+    }
+
+    private static void writeNode(Output output, StringTable strings, TopologyNode node) {
+        output.writeVarint(TopologySnapshotFormat.typeCode(node.getType()));
+        output.writeVarint(strings.indexOf(node.getName()));
+        output.writeVarint(node.getTopicPattern() == null ? 0 : strings.indexOf(node.getTopicPattern()) + 1);
+        writeNames(output, strings, node.getSuccessors());
+        writeNames(output, strings, node.getPredecessors());
+        writeNames(output, strings, node.getTopics());
+        writeNames(output, strings, node.getStores());
+    }
+
+    private static void writeNames(Output output, StringTable strings, Collection<String> names) {
+        output.writeVarint(names.size());
+        for (String name : names) {
+            output.writeVarint(strings.indexOf(name));
+        }
+    }
+
+    /**
+     * Assigns string indices in the order in which the strings are first seen.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int byteLength;
+
+        private void addAll(TopologyNode node) {
+            add(node.getName());
+            if (node.getTopicPattern() != null) {
+                add(node.getTopicPattern());
+            }
+            node.getSuccessors().forEach(this::add);
+            node.getPredecessors().forEach(this::add);
+            node.getTopics().forEach(this::add);
+            node.getStores().forEach(this::add);
+        }
+
+        private void add(String string) {
+            if (!indices.containsKey(string)) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                indices.put(string, encoded.size());
+                encoded.add(bytes);
+                byteLength += bytes.length + 5;
+            }
+        }
+
+        private int indexOf(String string) {
+            return indices.get(string);
+        }
+    }
+
+    private static final class Output {
+        private byte[] bytes;
+        private int length;
+
+        private Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void writeBytes(byte[] source) {
+            ensureCapacity(source.length);
+            System.arraycopy(source, 0, bytes, length, source.length);
+            length += source.length;
+        }
+
+        private void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[length++] = (byte) (value & 0x7f | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+            }
+        }
+    }
+}
@@ -5,25 +5,107 @@ import com.github.joschi.kafka.topology.model.Topology;
 import com.github.joschi.kafka.topology.model.TopologyNode;
 import com.github.joschi.kafka.topology.model.TopologySubtopology;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Parses the text representation of a Kafka Streams topology (output from TopologyDescription.toString()).
+ * <p>
+ * The input is scanned line by line with a hand-written cursor instead of regular expressions:
+ * each line is classified by its prefix ({@code Sub-topology:}, {@code Source:}, {@code Processor:},
+ * {@code Sink:}, {@code -->}, {@code <--}) and names are cut directly out of the input.
+ * <p>
+ * Malformed and unknown lines are skipped. A parser created with a {@link ParseDiagnosticCollector} or in
+ * {@link ParseMode#STRICT strict mode} records them as {@link ParseDiagnostic}s; after a malformed node
+ * declaration, the lines up to the next node declaration are skipped, so a single mistake does not
+ * attach edges to the wrong node or cause a cascade of follow-up diagnostics. Without a collector in
+ * lenient mode, problems are not recorded at all.
  */
 public class TopologyTextParser {
 
-    private static final Pattern SUBTOPOLOGY_PATTERN = Pattern.compile("^\\s*Sub-topology:\\s*(\\d+)");
-    private static final Pattern GLOBAL_STORE_PATTERN = Pattern.compile("^\\s*Sub-topology:\\s*(.+?)\\s+for\\s+global\\s+store");
-    private static final Pattern SOURCE_PATTERN = Pattern.compile("^\\s*Source:\\s+(\\S+)\\s+\\(topics:\\s+\\[([^\\]]+)\\]\\)");
-    private static final Pattern PROCESSOR_PATTERN = Pattern.compile("^\\s*Processor:\\s+(\\S+)\\s+\\(stores:\\s+\\[([^\\]]*)\\]\\)");
-    private static final Pattern SINK_PATTERN = Pattern.compile("^\\s*Sink:\\s+(\\S+)\\s+\\(topic:\\s+(\\S+)\\)");
-    private static final Pattern ARROW_PATTERN = Pattern.compile("^\\s*-->\\s+(.+)$");
-    private static final Pattern BACK_ARROW_PATTERN = Pattern.compile("^\\s*<--\\s+(.+)$");
+    private static final String DOCUMENT_PREFIX = "Topologies:";
+    // Header of the dump of a single topology as printed by some tools: "Topology" followed by "Sub-topologies:"
+    private static final String TOPOLOGY_HEADER = "Topology";
+    private static final String SUBTOPOLOGIES_HEADER = "Sub-topologies:";
+    private static final String SUBTOPOLOGY_PREFIX = "Sub-topology:";
+    private static final String SOURCE_PREFIX = "Source:";
+    private static final String PROCESSOR_PREFIX = "Processor:";
+    private static final String SINK_PREFIX = "Sink:";
+    private static final String SUCCESSORS_PREFIX = "-->";
+    private static final String PREDECESSORS_PREFIX = "<--";
+    private static final String GLOBAL_STORE_MARKER = "for global store";
+    private static final String TOPICS_ATTRIBUTE = "topics:";
+    private static final String STORES_ATTRIBUTE = "stores:";
+    private static final String TOPIC_ATTRIBUTE = "topic:";
+    private static final String TOPIC_PATTERN_ATTRIBUTE = "topicPattern:";
+    private static final String EXTRACTOR_ATTRIBUTE = "extractor class:";
+    private static final String NO_NODE = "none";
+    private static final int MAX_SNIPPET_LENGTH = 80;
+
+    private final ParseMode mode;
+    private final ParseDiagnosticCollector collector;
+    private final SymbolTable symbols;
+
+    /**
+     * Creates a new lenient parser which silently skips lines it does not understand.
+     */
+    public TopologyTextParser() {
+        this(ParseMode.LENIENT, null);
+    }
+
+    /**
+     * Creates a new parser.
+     *
+     * @param mode the parse mode
+     */
+    public TopologyTextParser(ParseMode mode) {
+        this(mode, null);
+    }
+
+    /**
+     * Creates a new parser reporting problems in the input to the given collector.
+     *
+     * @param mode      the parse mode
+     * @param collector the collector for problems in the input, or {@code null}
+     */
+    public TopologyTextParser(ParseMode mode, ParseDiagnosticCollector collector) {
+        this(mode, collector, null);
+    }
+
+    /**
+     * Creates a new parser canonicalising all node, topic and store names through the given symbol table.
+     * <p>
+     * Sharing a table between parsers and parses keeps a single instance of every name across all parsed
+     * topologies. Without a shared table, names are canonicalised within each parse.
+     *
+     * @param mode      the parse mode
+     * @param collector the collector for problems in the input, or {@code null}
+     * @param symbols   the symbol table to share, or {@code null} to use a new table for every parse
+     */
+    public TopologyTextParser(ParseMode mode, ParseDiagnosticCollector collector, SymbolTable symbols) {
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.collector = collector;
+        this.symbols = symbols;
+    }
 
     /**
      * Parses a topology text representation into the internal Topology model.
@@ -33,203 +115,767 @@ public class TopologyTextParser {
      * @throws IOException if parsing fails
      */
     public Topology parse(String topologyText) throws IOException {
-        Topology.Builder builder = Topology.builder();
-        BufferedReader reader = new BufferedReader(new StringReader(topologyText));
+        ParseState state = newState();
+        LineScanner.forEachLine(topologyText, (text, start, end) -> parseLine(text, start, end, state));
+        return finish(state);
+    }
 
-        String line;
-        Integer currentSubtopologyId = null;
-        Map<String, TopologyNode.Builder> currentNodes = new LinkedHashMap<>();
-        String currentNodeName = null;
-        boolean inGlobalStore = false;
+    /**
+     * Parses a topology text representation read from the given reader into the internal Topology model.
+     * <p>
+     * The input is consumed incrementally, so apart from the resulting model only the sub-topology
+     * currently being parsed is held in memory. The reader is not closed.
+     *
+     * @param reader the reader providing the text representation of the topology
+     * @return the parsed Topology
+     * @throws IOException if reading or parsing fails
+     */
+    public Topology parse(Reader reader) throws IOException {
+        ParseState state = newState();
+        LineScanner.forEachLine(reader, (text, start, end) -> parseLine(text, start, end, state));
+        return finish(state);
+    }
 
-        while ((line = reader.readLine()) != null) {
-            line = line.trim();
-            if (line.isEmpty()) {
-                continue;
+    /**
+     * Parses a topology text representation read from the given input stream into the internal Topology model.
+     * Gzip compressed input is detected by its magic bytes and inflated on a separate thread while it is
+     * parsed. The input stream is not closed.
+     *
+     * @param inputStream the input stream providing the text representation of the topology
+     * @param charset     the charset of the input
+     * @return the parsed Topology
+     * @throws IOException if reading or parsing fails
+     * @see #parse(Reader)
+     */
+    public Topology parse(InputStream inputStream, Charset charset) throws IOException {
+        try (InputStream content = GzipInput.decompressIfGzipped(inputStream)) {
+            return parse(new InputStreamReader(content, charset));
+        }
+    }
+
+    /**
+     * Parses a UTF-8 encoded file containing a topology text representation into the internal Topology model.
+     * The file may be gzip compressed.
+     *
+     * @param path the path of the file
+     * @return the parsed Topology
+     * @throws IOException if reading or parsing fails
+     * @see #parse(Reader)
+     */
+    public Topology parse(Path path) throws IOException {
+        try (InputStream inputStream = GzipInput.open(path)) {
+            return parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Parses a UTF-8 encoded file containing a topology text representation by memory-mapping it.
+     * <p>
+     * The file is scanned directly in the mapped buffer (in consecutive windows for files larger than
+     * 1 GiB) and only node, topic and store names are decoded into Strings, so the file content is never
+     * copied onto the heap. This is the preferred mode for very large dump files. Gzip compressed files
+     * cannot be mapped and are streamed like in {@link #parse(Path)}.
+     *
+     * @param path the path of the file
+     * @return the parsed Topology
+     * @throws IOException if mapping or parsing the file fails
+     */
+    public Topology parseMapped(Path path) throws IOException {
+        return parseMapped(path, MappedFileScanner.DEFAULT_WINDOW_SIZE);
+    }
+
+    Topology parseMapped(Path path, int windowSize) throws IOException {
+        if (GzipInput.isGzipped(path)) {
+            return parse(path);
+        }
+        ParseState state = newState();
+        MappedFileScanner.forEachLine(path, windowSize, (text, start, end) -> parseLine(text, start, end, state));
+        return finish(state);
+    }
+
+    /**
+     * Lazily parses a text containing any number of concatenated topology dumps, each starting with a
+     * {@code Topologies:} header.
+     * <p>
+     * Text before the first header is treated as a dump of its own if it contains any sub-topologies.
+     * The returned stream is ordered and splits at {@code Topologies:} headers, so parallel streams
+     * parse the dumps on multiple cores.
+     *
+     * @param text the text containing the topology dumps
+     * @return a lazy stream of the parsed topologies, in the order of the input
+     */
+    public Stream<Topology> parseAll(CharSequence text) {
+        return StreamSupport.stream(new TopologyDocumentSpliterator(this, text, 0, text.length()), false);
+    }
+
+    /**
+     * Lazily parses concatenated topology dumps read from the given reader, one dump at a time.
+     * <p>
+     * Closing the returned stream closes the reader.
+     *
+     * @param reader the reader providing the topology dumps
+     * @return a lazy, sequential stream of the parsed topologies, in the order of the input
+     * @see #iterateAll(Reader)
+     */
+    public Stream<Topology> parseAll(Reader reader) {
+        Spliterator<Topology> spliterator = Spliterators.spliteratorUnknownSize(iterateAll(reader),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        });
+    }
 
-            // Check for subtopology header
-            Matcher subtopologyMatcher = SUBTOPOLOGY_PATTERN.matcher(line);
-            Matcher globalStoreMatcher = GLOBAL_STORE_PATTERN.matcher(line);
+    /**
+     * Lazily parses concatenated topology dumps from a UTF-8 encoded file.
+     * <p>
+     * Files up to 2 GiB are memory-mapped and the stream can be split for parallel processing; larger and
+     * gzip compressed files are read sequentially. The returned stream should be closed to release the file.
+     *
+     * @param path the path of the file
+     * @return a lazy stream of the parsed topologies, in the order of the input
+     * @throws IOException if the file cannot be opened
+     */
+    public Stream<Topology> parseAll(Path path) throws IOException {
+        if (GzipInput.isGzipped(path)) {
+            return parseAll(new InputStreamReader(GzipInput.open(path), StandardCharsets.UTF_8));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                // The mapping stays valid after the channel has been closed
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return parseAll(new ByteSequence(buffer, 0, (int) size));
+            }
+        }
+        return parseAll(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
 
-            if (subtopologyMatcher.find()) {
-                // Save previous subtopology if exists
-                if (currentSubtopologyId != null && !currentNodes.isEmpty()) {
-                    saveSubtopology(builder, currentSubtopologyId, currentNodes, inGlobalStore);
-                }
+    /**
+     * Returns an iterator which lazily parses concatenated topology dumps read from the given reader.
+     * <p>
+     * Only the dump currently being parsed is held in memory. I/O errors are reported as
+     * {@link UncheckedIOException}. The reader is not closed.
+     *
+     * @param reader the reader providing the topology dumps
+     * @return an iterator over the parsed topologies, in the order of the input
+     */
+    public Iterator<Topology> iterateAll(Reader reader) {
+        return new TopologyDocumentIterator(this, reader);
+    }
 
-                currentSubtopologyId = Integer.parseInt(subtopologyMatcher.group(1));
-                currentNodes = new LinkedHashMap<>();
-                currentNodeName = null;
-                inGlobalStore = false;
-            } else if (globalStoreMatcher.find()) {
-                // Save previous subtopology if exists
-                if (currentSubtopologyId != null && !currentNodes.isEmpty()) {
-                    saveSubtopology(builder, currentSubtopologyId, currentNodes, inGlobalStore);
-                }
+    /**
+     * Parses a topology text representation using the common fork/join pool.
+     *
+     * @param topologyText the text representation of the topology
+     * @return the parsed Topology, identical to the result of {@link #parse(String)}
+     * @see #parseParallel(CharSequence, ForkJoinPool)
+     */
+    public Topology parseParallel(String topologyText) {
+        return parseParallel(topologyText, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses a topology text representation, splitting it at {@code Sub-topology:} headers and parsing
+     * the independent blocks on the given fork/join pool.
+     * <p>
+     * The blocks are merged in their original order, so the result is identical to the sequential parse.
+     * In strict mode, problems in the input are reported as an {@link UncheckedIOException} wrapping the
+     * {@link TopologyParseException}.
+     *
+     * @param topologyText the text representation of the topology
+     * @param pool         the pool to parse the blocks on
+     * @return the parsed Topology
+     */
+    public Topology parseParallel(CharSequence topologyText, ForkJoinPool pool) {
+        SymbolTable parseSymbols = symbolsForParse();
+        ParseState state = pool.invoke(new SubtopologyBlockTask(this, topologyText, 0, topologyText.length(), parseSymbols));
+        try {
+            return finish(state);
+        } catch (TopologyParseException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates the state for a new parse, recording diagnostics only if anyone is interested in them.
+     */
+    ParseState newState() {
+        return newState(symbolsForParse());
+    }
+
+    private ParseState newState(SymbolTable parseSymbols) {
+        return new ParseState(collector != null || mode == ParseMode.STRICT, parseSymbols);
+    }
+
+    /**
+     * Returns the shared symbol table, or a new one for a single parse.
+     */
+    SymbolTable symbolsForParse() {
+        return symbols != null ? symbols : new SymbolTable();
+    }
+
+    /**
+     * Builds the topology of a parse and reports the problems found in the input.
+     *
+     * @throws TopologyParseException in strict mode, if there were any problems
+     */
+    Topology finish(ParseState state) throws TopologyParseException {
+        Topology topology = state.finish();
+        List<ParseDiagnostic> diagnostics = state.diagnostics();
+        if (!diagnostics.isEmpty()) {
+            if (collector != null) {
+                diagnostics.forEach(collector::report);
+            }
+            if (mode == ParseMode.STRICT) {
+                throw new TopologyParseException(diagnostics);
+            }
+        }
+        return topology;
+    }
+
+    /**
+     * Parses the lines of the given range of text into a fresh parse state.
+     */
+    ParseState parseRange(CharSequence text, int start, int end) {
+        return parseRange(text, start, end, symbolsForParse());
+    }
+
+    /**
+     * Parses the lines of the given range of text into a fresh parse state, canonicalising names through the
+     * given symbol table.
+     */
+    ParseState parseRange(CharSequence text, int start, int end, SymbolTable parseSymbols) {
+        ParseState state = newState(parseSymbols);
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = indexOf(text, '\n', lineStart, end);
+            parseLine(text, lineStart, lineEnd, state);
+            lineStart = lineEnd + 1;
+        }
+        return state.complete();
+    }
+
+    /**
+     * Finds the start of the first line in {@code [from, to)} which is a {@code Sub-topology:} header.
+     * {@code from} does not need to be at the start of a line; the line containing it is skipped.
+     *
+     * @return the index of the header line, or {@code -1} if there is none
+     */
+    static int findSubtopologyHeader(CharSequence text, int from, int to) {
+        return findHeaderLine(text, from, to, SUBTOPOLOGY_PREFIX);
+    }
+
+    /**
+     * Finds the start of the first line in {@code [from, to)} which is a {@code Topologies:} header.
+     * {@code from} does not need to be at the start of a line; the line containing it is skipped.
+     *
+     * @return the index of the header line, or {@code -1} if there is none
+     */
+    static int findDocumentHeader(CharSequence text, int from, int to) {
+        return findHeaderLine(text, from, to, DOCUMENT_PREFIX);
+    }
+
+    /**
+     * Checks whether the line in {@code [start, end)} is a {@code Sub-topology:} header.
+     */
+    static boolean isSubtopologyHeader(CharSequence text, int start, int end) {
+        return startsWith(text, skipWhitespace(text, start, end), end, SUBTOPOLOGY_PREFIX);
+    }
 
-                String globalStoreName = globalStoreMatcher.group(1);
-                currentNodes = new LinkedHashMap<>();
-                currentNodeName = null;
-                inGlobalStore = true;
-                currentSubtopologyId = -1; // Use -1 for global stores temporarily
-            } else if (line.startsWith("Source:")) {
-                Matcher sourceMatcher = SOURCE_PATTERN.matcher(line);
-                if (sourceMatcher.find()) {
-                    String nodeName = sourceMatcher.group(1);
-                    String topicsStr = sourceMatcher.group(2);
-                    Set<String> topics = parseTopics(topicsStr);
-
-                    TopologyNode.Builder nodeBuilder = TopologyNode.builder(nodeName, NodeType.SOURCE)
-                            .topics(topics);
-                    currentNodes.put(nodeName, nodeBuilder);
-                    currentNodeName = nodeName;
+    /**
+     * Checks whether the line in {@code [start, end)} is a {@code Topologies:} header.
+     */
+    static boolean isDocumentHeader(CharSequence text, int start, int end) {
+        return startsWith(text, skipWhitespace(text, start, end), end, DOCUMENT_PREFIX);
+    }
+
+    private static int findHeaderLine(CharSequence text, int from, int to, String prefix) {
+        int lineStart = indexOf(text, '\n', from, to) + 1;
+        while (lineStart < to) {
+            // Only skip the indentation, a blank line must not be mistaken for the start of the next header
+            int pos = lineStart;
+            while (pos < to && text.charAt(pos) != '\n' && isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            if (startsWith(text, pos, to, prefix)) {
+                return lineStart;
+            }
+            lineStart = indexOf(text, '\n', pos, to) + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a single line of the topology text.
+     *
+     * @param text  the text containing the line
+     * @param start the index of the first character of the line
+     * @param end   the index after the last character of the line (excluding the line terminator)
+     * @param state the state of the running parse
+     */
+    void parseLine(CharSequence text, int start, int end, ParseState state) {
+        state.line++;
+        state.lineStart = start;
+        int pos = skipWhitespace(text, start, end);
+        end = trimTrailingWhitespace(text, pos, end);
+        if (pos == end) {
+            return;
+        }
+
+        switch (text.charAt(pos)) {
+            case 'S' -> {
+                if (startsWith(text, pos, end, SUBTOPOLOGY_PREFIX)) {
+                    state.resyncing = false;
+                    parseSubtopologyHeader(text, pos + SUBTOPOLOGY_PREFIX.length(), end, state);
+                } else if (startsWith(text, pos, end, SOURCE_PREFIX)) {
+                    state.resyncing = false;
+                    parseSource(text, pos + SOURCE_PREFIX.length(), end, state);
+                } else if (startsWith(text, pos, end, SINK_PREFIX)) {
+                    state.resyncing = false;
+                    parseSink(text, pos + SINK_PREFIX.length(), end, state);
+                } else if (!regionMatches(text, pos, end, SUBTOPOLOGIES_HEADER)) {
+                    state.report(text, pos, end, "Unrecognised line");
                 }
-            } else if (line.startsWith("Processor:")) {
-                Matcher processorMatcher = PROCESSOR_PATTERN.matcher(line);
-                if (processorMatcher.find()) {
-                    String nodeName = processorMatcher.group(1);
-                    String storesStr = processorMatcher.group(2);
-
-                    TopologyNode.Builder nodeBuilder = TopologyNode.builder(nodeName, NodeType.PROCESSOR);
-                    if (!storesStr.isEmpty()) {
-                        Set<String> stores = parseStores(storesStr);
-                        nodeBuilder.stores(stores);
-                    }
-                    currentNodes.put(nodeName, nodeBuilder);
-                    currentNodeName = nodeName;
+            }
+            case 'P' -> {
+                if (startsWith(text, pos, end, PROCESSOR_PREFIX)) {
+                    state.resyncing = false;
+                    parseProcessor(text, pos + PROCESSOR_PREFIX.length(), end, state);
+                } else {
+                    state.report(text, pos, end, "Unrecognised line");
                 }
-            } else if (line.startsWith("Sink:")) {
-                Matcher sinkMatcher = SINK_PATTERN.matcher(line);
-                if (sinkMatcher.find()) {
-                    String nodeName = sinkMatcher.group(1);
-                    String topic = sinkMatcher.group(2);
-
-                    TopologyNode.Builder nodeBuilder = TopologyNode.builder(nodeName, NodeType.SINK)
-                            .topics(Set.of(topic));
-                    currentNodes.put(nodeName, nodeBuilder);
-                    currentNodeName = nodeName;
+            }
+            case '-' -> {
+                if (startsWith(text, pos, end, SUCCESSORS_PREFIX)) {
+                    parseEdges(text, pos, pos + SUCCESSORS_PREFIX.length(), end, state, true);
+                } else {
+                    state.report(text, pos, end, "Unrecognised line");
                 }
-            } else if (line.startsWith("-->")) {
-                // Successor relationship
-                Matcher arrowMatcher = ARROW_PATTERN.matcher(line);
-                if (arrowMatcher.find() && currentNodeName != null) {
-                    String successors = arrowMatcher.group(1);
-                    Set<String> successorNames = parseNodeNames(successors);
-                    TopologyNode.Builder currentNodeBuilder = currentNodes.get(currentNodeName);
-                    if (currentNodeBuilder != null) {
-                        currentNodeBuilder.successors(successorNames);
-                    }
-
-                    // Add this node as predecessor to successors
-                    for (String successorName : successorNames) {
-                        TopologyNode.Builder successorBuilder = currentNodes.get(successorName);
-                        if (successorBuilder == null) {
-                            // Create placeholder if successor not yet encountered
-                            successorBuilder = TopologyNode.builder(successorName, NodeType.PROCESSOR);
-                            currentNodes.put(successorName, successorBuilder);
-                        }
-                        Set<String> predecessors = new HashSet<>();
-                        if (successorBuilder.build().getPredecessors() != null) {
-                            predecessors.addAll(successorBuilder.build().getPredecessors());
-                        }
-                        predecessors.add(currentNodeName);
-
-                        // Rebuild with updated predecessors
-                        TopologyNode oldNode = successorBuilder.build();
-                        successorBuilder = TopologyNode.builder(oldNode.getName(), oldNode.getType())
-                                .topics(oldNode.getTopics())
-                                .stores(oldNode.getStores())
-                                .successors(oldNode.getSuccessors())
-                                .predecessors(predecessors);
-                        currentNodes.put(successorName, successorBuilder);
-                    }
+            }
+            case '<' -> {
+                if (startsWith(text, pos, end, PREDECESSORS_PREFIX)) {
+                    parseEdges(text, pos, pos + PREDECESSORS_PREFIX.length(), end, state, false);
+                } else {
+                    state.report(text, pos, end, "Unrecognised line");
                 }
-            } else if (line.startsWith("<--")) {
-                // Predecessor relationship
-                Matcher backArrowMatcher = BACK_ARROW_PATTERN.matcher(line);
-                if (backArrowMatcher.find() && currentNodeName != null) {
-                    String predecessors = backArrowMatcher.group(1);
-                    Set<String> predecessorNames = parseNodeNames(predecessors);
-                    TopologyNode.Builder currentNodeBuilder = currentNodes.get(currentNodeName);
-                    if (currentNodeBuilder != null) {
-                        currentNodeBuilder.predecessors(predecessorNames);
-                    }
+            }
+            default -> {
+                if (!startsWith(text, pos, end, DOCUMENT_PREFIX) && !regionMatches(text, pos, end, TOPOLOGY_HEADER)) {
+                    state.report(text, pos, end, "Unrecognised line");
                 }
             }
         }
+    }
+
+    private void parseSubtopologyHeader(CharSequence text, int pos, int end, ParseState state) {
+        pos = skipWhitespace(text, pos, end);
+        int idEnd = pos;
+        while (idEnd < end && !isWhitespace(text.charAt(idEnd))) {
+            idEnd++;
+        }
+        if (idEnd == pos) {
+            state.report(text, pos, end, "Missing sub-topology id");
+            state.startSubtopology(-1);
+            return;
+        }
 
-        // Save last subtopology
-        if (currentSubtopologyId != null && !currentNodes.isEmpty()) {
-            saveSubtopology(builder, currentSubtopologyId, currentNodes, inGlobalStore);
+        int rest = skipWhitespace(text, idEnd, end);
+        if (startsWith(text, rest, end, GLOBAL_STORE_MARKER)) {
+            // "Sub-topology: 0 for global store (will not generate tasks)"
+            state.startGlobalStore();
+            return;
         }
 
-        return builder.build();
+        int id = parseInt(text, pos, idEnd);
+        if (id < 0) {
+            state.report(text, pos, end, "Invalid sub-topology id");
+        }
+        // Nodes of a sub-topology without a valid id are parsed but dropped
+        state.startSubtopology(id);
     }
 
-    private void saveSubtopology(Topology.Builder builder, int subtopologyId,
-                                 Map<String, TopologyNode.Builder> nodeBuilders, boolean isGlobalStore) {
-        if (isGlobalStore) {
-            // Handle global stores
-            for (Map.Entry<String, TopologyNode.Builder> entry : nodeBuilders.entrySet()) {
-                TopologyNode.Builder nodeBuilder = entry.getValue();
-                TopologyNode node = nodeBuilder.build();
-                // Create a global store node
-                TopologyNode globalStoreNode = TopologyNode.builder(entry.getKey(), NodeType.GLOBAL_STORE)
-                        .topics(node.getTopics())
-                        .build();
-                builder.addGlobalStore(globalStoreNode);
+    private void parseSource(CharSequence text, int pos, int end, ParseState state) {
+        int nameStart = skipWhitespace(text, pos, end);
+        int nameEnd = scanName(text, nameStart, end);
+        if (nameEnd == nameStart) {
+            state.reportMalformed(text, nameStart, end, "Missing node name");
+            return;
+        }
+
+        List<String> topics = List.of();
+        String topicPattern = null;
+        int attributeStart = skipWhitespace(text, nameEnd, end);
+        if (attributeStart < end && text.charAt(attributeStart) == '(') {
+            int valueStart = skipWhitespace(text, attributeStart + 1, end);
+            if (startsWith(text, valueStart, end, TOPICS_ATTRIBUTE)) {
+                int topicsStart = skipWhitespace(text, valueStart + TOPICS_ATTRIBUTE.length(), end);
+                if (isTopicPattern(text, topicsStart, end)) {
+                    // Sources subscribed with a pattern print the bare regex: "(topics: orders-.*)"
+                    topicPattern = state.symbols.intern(text, topicsStart, trimTrailingWhitespace(text, topicsStart, end - 1));
+                } else {
+                    topics = parseList(text, topicsStart, end, state);
+                }
+            } else if (startsWith(text, valueStart, end, TOPIC_PATTERN_ATTRIBUTE)) {
+                // Written by some tools instead of the bare regex: "(topicPattern: orders-.*)"
+                int patternStart = skipWhitespace(text, valueStart + TOPIC_PATTERN_ATTRIBUTE.length(), end);
+                if (patternStart < end - 1 && text.charAt(end - 1) == ')') {
+                    topicPattern = state.symbols.intern(text, patternStart, trimTrailingWhitespace(text, patternStart, end - 1));
+                } else {
+                    state.report(text, patternStart, end, "Expected topic pattern");
+                }
+            } else {
+                state.report(text, valueStart, end, "Expected 'topics:' attribute");
             }
-        } else {
-            // Build all nodes
-            Map<String, TopologyNode> nodes = new LinkedHashMap<>();
-            for (Map.Entry<String, TopologyNode.Builder> entry : nodeBuilders.entrySet()) {
-                nodes.put(entry.getKey(), entry.getValue().build());
+        } else if (attributeStart < end) {
+            state.report(text, attributeStart, end, "Unexpected text after node name");
+        }
+
+        state.accumulator.declare(state.symbols.intern(text, nameStart, nameEnd), NodeType.SOURCE, topics, List.of(), topicPattern);
+    }
+
+    /**
+     * Checks whether the value of a {@code topics:} attribute in {@code [start, end)} is a topic pattern rather
+     * than a bracketed list: the attribute is closed by the last {@code )} of the line, and a list ends with
+     * {@code ]} right before it. Patterns which are nothing but a character class are taken for a list.
+     */
+    private static boolean isTopicPattern(CharSequence text, int start, int end) {
+        if (start >= end || end - start < 2 || text.charAt(end - 1) != ')') {
+            return false;
+        }
+        if (text.charAt(start) != '[') {
+            return true;
+        }
+        int valueEnd = trimTrailingWhitespace(text, start, end - 1);
+        return text.charAt(valueEnd - 1) != ']';
+    }
+
+    private void parseProcessor(CharSequence text, int pos, int end, ParseState state) {
+        int nameStart = skipWhitespace(text, pos, end);
+        int nameEnd = scanName(text, nameStart, end);
+        if (nameEnd == nameStart) {
+            state.reportMalformed(text, nameStart, end, "Missing node name");
+            return;
+        }
+
+        List<String> stores = List.of();
+        int attributeStart = skipWhitespace(text, nameEnd, end);
+        if (attributeStart < end && text.charAt(attributeStart) == '(') {
+            int valueStart = skipWhitespace(text, attributeStart + 1, end);
+            if (startsWith(text, valueStart, end, STORES_ATTRIBUTE)) {
+                stores = parseList(text, valueStart + STORES_ATTRIBUTE.length(), end, state);
+            } else {
+                state.report(text, valueStart, end, "Expected 'stores:' attribute");
             }
-            builder.addSubtopology(new TopologySubtopology(subtopologyId, nodes));
+        } else if (attributeStart < end) {
+            state.report(text, attributeStart, end, "Unexpected text after node name");
         }
+        state.accumulator.declare(state.symbols.intern(text, nameStart, nameEnd), NodeType.PROCESSOR, List.of(), stores);
     }
 
-    private Set<String> parseTopics(String topicsStr) {
-        if (topicsStr == null || topicsStr.trim().isEmpty()) {
-            return Set.of();
+    private void parseSink(CharSequence text, int pos, int end, ParseState state) {
+        int nameStart = skipWhitespace(text, pos, end);
+        int nameEnd = scanName(text, nameStart, end);
+        if (nameEnd == nameStart) {
+            state.reportMalformed(text, nameStart, end, "Missing node name");
+            return;
         }
-        String[] topics = topicsStr.split(",");
-        Set<String> result = new HashSet<>();
-        for (String topic : topics) {
-            result.add(topic.trim());
+
+        List<String> topics = List.of();
+        int attributeStart = skipWhitespace(text, nameEnd, end);
+        if (attributeStart < end && text.charAt(attributeStart) == '(') {
+            int valueStart = skipWhitespace(text, attributeStart + 1, end);
+            if (startsWith(text, valueStart, end, TOPIC_ATTRIBUTE)) {
+                int topicStart = skipWhitespace(text, valueStart + TOPIC_ATTRIBUTE.length(), end);
+                int topicEnd = topicStart;
+                while (topicEnd < end && text.charAt(topicEnd) != ')' && !isWhitespace(text.charAt(topicEnd))) {
+                    topicEnd++;
+                }
+                if (topicEnd > topicStart) {
+                    topics = List.of(state.symbols.intern(text, topicStart, topicEnd));
+                } else {
+                    state.report(text, topicStart, end, "Missing topic name");
+                }
+            } else if (!startsWith(text, valueStart, end, EXTRACTOR_ATTRIBUTE)) {
+                state.report(text, valueStart, end, "Expected 'topic:' attribute");
+            }
+        } else if (attributeStart < end) {
+            state.report(text, attributeStart, end, "Unexpected text after node name");
         }
-        return result;
+        state.accumulator.declare(state.symbols.intern(text, nameStart, nameEnd), NodeType.SINK, topics, List.of());
     }
 
-    private Set<String> parseNodeNames(String nodeNamesStr) {
-        if (nodeNamesStr == null || nodeNamesStr.trim().isEmpty()) {
-            return Set.of();
+    /**
+     * Parses the node names of a {@code -->} or {@code <--} line and records the edges for the current node.
+     */
+    private void parseEdges(CharSequence text, int linePos, int pos, int end, ParseState state, boolean successors) {
+        SubtopologyAccumulator accumulator = state.accumulator;
+        if (!accumulator.hasCurrent()) {
+            if (!state.resyncing) {
+                state.report(text, linePos, end, "Edge declaration without a preceding node");
+            }
+            return;
         }
-        String[] names = nodeNamesStr.split(",");
-        Set<String> result = new HashSet<>();
-        for (String name : names) {
-            String trimmedName = name.trim();
-            // Filter out "none" - it's a special marker for nodes with no outputs
-            if (!trimmedName.equals("none")) {
-                result.add(trimmedName);
+        while (pos < end) {
+            int nameStart = skipWhitespace(text, pos, end);
+            int separator = indexOf(text, ',', nameStart, end);
+            int nameEnd = trimTrailingWhitespace(text, nameStart, separator);
+            if (isNodeName(text, nameStart, nameEnd)) {
+                String name = state.symbols.intern(text, nameStart, nameEnd);
+                if (successors) {
+                    accumulator.addSuccessor(name);
+                } else {
+                    accumulator.addPredecessor(name);
+                }
             }
+            pos = separator + 1;
         }
-        return result;
     }
 
-    private Set<String> parseStores(String storesStr) {
-        if (storesStr == null || storesStr.trim().isEmpty()) {
-            return Set.of();
+    /**
+     * Parses a bracketed, comma-separated list such as {@code [a, b, c]}, starting at {@code pos}.
+     */
+    private List<String> parseList(CharSequence text, int pos, int end, ParseState state) {
+        pos = skipWhitespace(text, pos, end);
+        if (pos >= end || text.charAt(pos) != '[') {
+            state.report(text, pos, end, "Expected '['");
+            return List.of();
+        }
+        int listEnd = indexOf(text, ']', pos + 1, end);
+        if (listEnd == end) {
+            state.report(text, pos, end, "Unterminated list");
+        }
+        List<String> result = null;
+        pos++;
+        while (pos < listEnd) {
+            int elementStart = skipWhitespace(text, pos, listEnd);
+            int separator = indexOf(text, ',', elementStart, listEnd);
+            int elementEnd = trimTrailingWhitespace(text, elementStart, separator);
+            if (elementEnd > elementStart) {
+                if (result == null) {
+                    result = new ArrayList<>(2);
+                }
+                result.add(state.symbols.intern(text, elementStart, elementEnd));
+            }
+            pos = separator + 1;
+        }
+        return result == null ? List.of() : result;
+    }
+
+    /**
+     * Checks whether the given range is a node name, i.e. neither empty nor the {@code none} marker
+     * used for nodes without successors or predecessors.
+     */
+    private static boolean isNodeName(CharSequence text, int start, int end) {
+        return end > start && !regionMatches(text, start, end, NO_NODE);
+    }
+
+    private static String slice(CharSequence text, int start, int end) {
+        return text.subSequence(start, end).toString();
+    }
+
+    private static int scanName(CharSequence text, int pos, int end) {
+        if (pos < end && text.charAt(pos) == '(') {
+            // The attributes of a node without a name
+            return pos;
+        }
+        while (pos < end && !isWhitespace(text.charAt(pos))) {
+            pos++;
         }
-        String[] stores = storesStr.split(",");
-        Set<String> result = new HashSet<>();
-        for (String store : stores) {
-            String trimmedStore = store.trim();
-            if (!trimmedStore.isEmpty()) {
-                result.add(trimmedStore);
+        return pos;
+    }
+
+    private static int indexOf(CharSequence text, char c, int pos, int end) {
+        while (pos < end && text.charAt(pos) != c) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int parseInt(CharSequence text, int start, int end) {
+        if (end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean startsWith(CharSequence text, int pos, int end, String prefix) {
+        int length = prefix.length();
+        if (end - pos < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, int end, String value) {
+        return end - start == value.length() && startsWith(text, start, end, value);
+    }
+
+    private static int skipWhitespace(CharSequence text, int pos, int end) {
+        while (pos < end && isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int trimTrailingWhitespace(CharSequence text, int start, int end) {
+        while (end > start && isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(char c) {
+        // Same definition as String.trim(): all ASCII control characters and space
+        return c <= ' ';
+    }
+
+    /**
+     * Mutable state of a running parse.
+     */
+    static final class ParseState {
+        private final List<TopologySubtopology> subtopologies = new ArrayList<>();
+        private final List<TopologyNode> globalStores = new ArrayList<>();
+        private final SubtopologyAccumulator accumulator = new SubtopologyAccumulator();
+        private final boolean diagnose;
+        private final SymbolTable symbols;
+        private List<ParseDiagnostic> diagnostics;
+        private int currentSubtopologyId = -1;
+        private boolean inGlobalStore;
+        private int line;
+        private int lineStart;
+        private boolean resyncing;
+
+        ParseState(boolean diagnose, SymbolTable symbols) {
+            this.diagnose = diagnose;
+            this.symbols = symbols;
+        }
+
+        /**
+         * Records a problem at {@code pos} of the current line, unless the parser is skipping lines after an
+         * earlier problem anyway. The snippet is only cut out of the input if diagnostics are enabled.
+         */
+        void report(CharSequence text, int pos, int end, String reason) {
+            if (!diagnose || resyncing) {
+                return;
+            }
+            if (diagnostics == null) {
+                diagnostics = new ArrayList<>();
+            }
+            int snippetStart = skipWhitespace(text, lineStart, end);
+            int snippetEnd = Math.min(end, snippetStart + MAX_SNIPPET_LENGTH);
+            diagnostics.add(new ParseDiagnostic(line, pos - lineStart + 1, slice(text, snippetStart, snippetEnd), reason));
+        }
+
+        /**
+         * Records a malformed declaration and skips all lines up to the next node declaration.
+         */
+        void reportMalformed(CharSequence text, int pos, int end, String reason) {
+            report(text, pos, end, reason);
+            accumulator.detach();
+            resyncing = true;
+        }
+
+        /**
+         * Counts lines which are not passed to the parser, such as the header lines of topology dumps.
+         */
+        void skipLines(int count) {
+            line += count;
+        }
+
+        List<ParseDiagnostic> diagnostics() {
+            return diagnostics == null ? List.of() : diagnostics;
+        }
+
+        void startSubtopology(int id) {
+            saveCurrent();
+            currentSubtopologyId = id;
+            inGlobalStore = false;
+        }
+
+        void startGlobalStore() {
+            saveCurrent();
+            currentSubtopologyId = -1;
+            inGlobalStore = true;
+        }
+
+        List<TopologySubtopology> subtopologies() {
+            return subtopologies;
+        }
+
+        List<TopologyNode> globalStores() {
+            return globalStores;
+        }
+
+        boolean isEmpty() {
+            return subtopologies.isEmpty() && globalStores.isEmpty();
+        }
+
+        /**
+         * Saves the sub-topology currently being parsed; the state must not receive further lines afterwards.
+         */
+        ParseState complete() {
+            saveCurrent();
+            return this;
+        }
+
+        /**
+         * Appends the completed sub-topologies, global stores and diagnostics of another state parsed from the
+         * text following this state's, preserving their order.
+         */
+        ParseState append(ParseState other) {
+            subtopologies.addAll(other.subtopologies);
+            globalStores.addAll(other.globalStores);
+            if (other.diagnostics != null) {
+                if (diagnostics == null) {
+                    diagnostics = new ArrayList<>();
+                }
+                // The lines of the other state are numbered from the start of its own range
+                for (ParseDiagnostic diagnostic : other.diagnostics) {
+                    diagnostics.add(diagnostic.shift(line));
+                }
+            }
+            line += other.line;
+            return this;
+        }
+
+        Topology finish() {
+            complete();
+            Topology.Builder builder = Topology.builder();
+            for (TopologySubtopology subtopology : subtopologies) {
+                builder.addSubtopology(subtopology);
+            }
+            for (TopologyNode globalStore : globalStores) {
+                builder.addGlobalStore(globalStore);
+            }
+            return builder.build();
+        }
+
+        private void saveCurrent() {
+            if ((currentSubtopologyId >= 0 || inGlobalStore) && !accumulator.isEmpty()) {
+                if (inGlobalStore) {
+                    globalStores.add(accumulator.toGlobalStore());
+                } else {
+                    subtopologies.add(accumulator.toSubtopology(currentSubtopologyId));
+                }
             }
+            accumulator.clear();
         }
-        return result;
     }
 }
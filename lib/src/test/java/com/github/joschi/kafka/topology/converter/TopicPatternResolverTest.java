@@ -0,0 +1,129 @@
+package com.github.joschi.kafka.topology.converter;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.parser.ParseDiagnostic;
+import com.github.joschi.kafka.topology.parser.ParseMode;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopicPatternResolverTest {
+
+    private static final String PATTERN_TOPOLOGY = """
+            Topologies:
+               Sub-topology: 0
+                Source: orders-source (topics: orders-(eu|us)\\..*)
+                  --> orders-sink
+                Sink: orders-sink (topic: all-orders)
+                  <-- orders-source
+            """;
+
+    private final TopicPatternResolver resolver = new TopicPatternResolver(List.of(
+            "orders-eu.created", "orders-us.created", "orders-apac.created", "payments", "aa-aa", "ab-ab", "orders-eu"));
+
+    @Test
+    void shouldMatchOverlappingPatternsInOnePass() {
+        Map<String, Set<String>> matches = resolver.match(List.of("orders-.*", "orders-(eu|us)\\..*", "(a)(a|b)-.*", "pay.*"));
+
+        assertThat(matches.get("orders-.*"))
+                .containsExactly("orders-eu.created", "orders-us.created", "orders-apac.created", "orders-eu");
+        assertThat(matches.get("orders-(eu|us)\\..*")).containsExactly("orders-eu.created", "orders-us.created");
+        // Groups inside the patterns must not shift the marker groups of the following patterns
+        assertThat(matches.get("(a)(a|b)-.*")).containsExactly("aa-aa", "ab-ab");
+        assertThat(matches.get("pay.*")).containsExactly("payments");
+    }
+
+    @Test
+    void shouldMatchPatternsWithBackReferences() {
+        Map<String, Set<String>> matches = resolver.match(List.of("(a+)b?-\\1", "orders-eu"));
+
+        assertThat(matches.get("(a+)b?-\\1")).containsExactly("aa-aa");
+        assertThat(matches.get("orders-eu")).containsExactly("orders-eu");
+    }
+
+    @Test
+    void shouldMatchPatternsWithNamedGroups() {
+        // Each pattern is valid on its own, but the group names would clash in a combined pattern
+        Map<String, Set<String>> matches = resolver.match(List.of("orders-(?<region>eu|us)\\..*", "(?<region>a+)b?-.*", "pay.*"));
+
+        assertThat(matches.get("orders-(?<region>eu|us)\\..*")).containsExactly("orders-eu.created", "orders-us.created");
+        assertThat(matches.get("(?<region>a+)b?-.*")).containsExactly("aa-aa", "ab-ab");
+        assertThat(matches.get("pay.*")).containsExactly("payments");
+    }
+
+    @Test
+    void shouldMatchPatternsNotEndingCleanly() {
+        // A trailing comment in comments mode and an unterminated quote would swallow the rest of a combined pattern
+        List<String> patterns = List.of("(?x) orders-eu \\. .* # european orders", "\\Qpayments", "ab-.*");
+
+        Map<String, Set<String>> matches = resolver.match(patterns);
+
+        assertThat(matches.get(patterns.get(0))).containsExactly("orders-eu.created");
+        assertThat(matches.get(patterns.get(1))).containsExactly("payments");
+        assertThat(matches.get(patterns.get(2))).containsExactly("ab-ab");
+    }
+
+    @Test
+    void shouldParseTopicPatternAttribute() throws IOException {
+        List<ParseDiagnostic> diagnostics = new ArrayList<>();
+        Topology topology = new TopologyTextParser(ParseMode.LENIENT, diagnostics::add)
+                .parse(PATTERN_TOPOLOGY.replace("(topics: ", "(topicPattern: "));
+
+        assertThat(diagnostics).isEmpty();
+        assertThat(topology.findNode("orders-source").orElseThrow().getTopicPattern()).isEqualTo("orders-(eu|us)\\..*");
+    }
+
+    @Test
+    void shouldResolvePatternSourceFromText() throws IOException {
+        Topology topology = new TopologyTextParser().parse(PATTERN_TOPOLOGY);
+        TopologyNode source = topology.getSubtopologies().get(0).getNodes().get("orders-source");
+        assertThat(source.getTopicPattern()).isEqualTo("orders-(eu|us)\\..*");
+        assertThat(source.getTopics()).isEmpty();
+
+        Topology resolved = resolver.resolve(topology);
+
+        TopologyNode resolvedSource = resolved.getSubtopologies().get(0).getNodes().get("orders-source");
+        assertThat(resolvedSource.getTopics()).containsExactlyInAnyOrder("orders-eu.created", "orders-us.created");
+        assertThat(resolvedSource.getTopicPattern()).isEqualTo(source.getTopicPattern());
+        assertThat(resolvedSource.getSuccessors()).containsExactly("orders-sink");
+        assertThat(resolved.getTopics()).containsOnlyKeys("orders-eu.created", "orders-us.created", "all-orders");
+    }
+
+    @Test
+    void shouldResolvePatternSourceFromDescription() {
+        StreamsBuilder streamsBuilder = new StreamsBuilder();
+        streamsBuilder.stream(Pattern.compile("orders-.*")).to("all-orders");
+
+        Topology topology = new TopologyDescriptionConverter().convert(streamsBuilder.build().describe());
+        Topology resolved = resolver.resolve(topology);
+
+        assertThat(resolved.getTopics()).containsOnlyKeys(
+                "orders-eu.created", "orders-us.created", "orders-apac.created", "orders-eu", "all-orders");
+        assertThat(resolver.resolve(resolved)).isEqualTo(resolved);
+    }
+
+    @Test
+    void shouldReadCatalogFileAndFormatResolvedTopics(@TempDir Path tempDir) throws IOException {
+        Path catalog = tempDir.resolve("topics.txt");
+        Files.writeString(catalog, "# all topics\norders-eu.created\n\n  orders-us.created  \npayments\n");
+
+        String mermaid = new TopologyConverter()
+                .resolveTopicPatterns(TopicPatternResolver.fromFile(catalog))
+                .convertFromText(PATTERN_TOPOLOGY, "mermaid");
+
+        assertThat(mermaid).contains("orders_eu_created", "orders_us_created").doesNotContain("payments");
+    }
+}
@@ -2,6 +2,7 @@ package com.github.joschi.kafka.topology.converter;
 
 import com.github.joschi.kafka.topology.formatter.TopologyFormatter;
 import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -107,4 +108,33 @@ class TopologyConverterTest {
 
         assertThat(dot).contains("digraph KafkaStreamsTopology");
     }
+
+    @Test
+    void shouldFormatDiff() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        Topology before = parser.parse("""
+                Topologies:
+                   Sub-topology: 0
+                    Source: SOURCE-1 (topics: [test])
+                      --> SINK-2
+                    Sink: SINK-2 (topic: out)
+                      <-- SOURCE-1
+                """);
+        Topology after = parser.parse("""
+                Topologies:
+                   Sub-topology: 0
+                    Source: SOURCE-1 (topics: [test])
+                      --> SINK-2
+                    Sink: SINK-2 (topic: out-v2)
+                      <-- SOURCE-1
+                """);
+
+        assertThat(converter.formatDiff(before, after, "mermaid"))
+                .contains("class out removedStyle")
+                .contains("class out_v2 addedStyle");
+        assertThat(converter.formatDiff(before, after, "DOT")).contains("Sub-topology 0 (changed)");
+        assertThatThrownBy(() -> converter.formatDiff(before, after, "json"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Format does not support diffs");
+    }
 }
@@ -2,15 +2,20 @@ package com.github.joschi.kafka.topology.formatter;
 
 import com.github.joschi.kafka.topology.model.NodeType;
 import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
 import com.github.joschi.kafka.topology.model.TopologyNode;
 import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class DotFormatterTest {
@@ -110,4 +115,41 @@ class DotFormatterTest {
 
         assertThat(output).contains("n_0_node");
     }
+
+    @Test
+    void shouldHighlightDiff() {
+        Topology before = Topology.builder().addSubtopology(chain(0, "input", "output")).build();
+        Topology after = Topology.builder()
+                .addSubtopology(chain(0, "input", "output-v2"))
+                .addSubtopology(chain(1, "output-v2", "result"))
+                .build();
+        TopologyDiff diff = TopologyDiff.between(before, after);
+
+        String output = formatter.format(diff);
+
+        assertThat(output).contains("label=\"Sub-topology 0 (changed)\"");
+        assertThat(output).contains("label=\"Sub-topology 1 (added)\"");
+        assertThat(output).contains("process_1 [label=\"process-1\", shape=box, fillcolor=\"#C8E6C9\", color=\"#2E7D32\"");
+        assertThat(output).contains("sink_0 [label=\"sink-0\", shape=ellipse, fillcolor=\"#FFF59D\"");
+        assertThat(output).contains("output [label=\"output\", shape=parallelogram, fillcolor=\"#FFCDD2\"");
+        assertThat(output).contains("sink_0 -> output [color=\"#C62828\", penwidth=2, style=dashed];");
+        assertThat(output).contains("sink_0 -> output_v2 [color=\"#2E7D32\", penwidth=2];");
+        assertThat(output).contains("input -> source_0;");
+    }
+
+    @Test
+    void shouldDrawChangedEdgesOfMovedNodes() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        TopologyDiff diff = TopologyDiff.between(
+                parser.parse(Path.of("src/test/resources/moved-node-before.txt")),
+                parser.parse(Path.of("src/test/resources/moved-node-after.txt")));
+
+        String output = formatter.format(diff);
+
+        assertThat(output).contains("KSTREAM_SOURCE_0000000003 -> KSTREAM_FILTER_0000000001 [color=\"#2E7D32\", penwidth=2];");
+        assertThat(output).contains(
+                "KSTREAM_FILTER_0000000001 -> KSTREAM_SINK_0000000002 [color=\"#C62828\", penwidth=2, style=dashed];");
+        assertThat(output).contains(
+                "KSTREAM_SOURCE_0000000000 -> KSTREAM_FILTER_0000000001 [color=\"#C62828\", penwidth=2, style=dashed];");
+    }
 }
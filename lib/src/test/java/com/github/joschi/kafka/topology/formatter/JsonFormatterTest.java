@@ -0,0 +1,91 @@
+package com.github.joschi.kafka.topology.formatter;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonFormatterTest {
+
+    private JsonFormatter formatter;
+
+    @BeforeEach
+    void setUp() {
+        formatter = new JsonFormatter();
+    }
+
+    @Test
+    void shouldReturnFormatName() {
+        assertThat(formatter.getFormatName()).isEqualTo("json");
+    }
+
+    @Test
+    void shouldFormatNodesOnePerLine() {
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        nodes.put("source", TopologyNode.builder("source", NodeType.SOURCE)
+                .topics(Set.of("input"))
+                .successors(Set.of("sink-b", "sink-a"))
+                .build());
+        nodes.put("sink-a", TopologyNode.builder("sink-a", NodeType.SINK)
+                .topics(Set.of("output"))
+                .predecessors(Set.of("source"))
+                .build());
+        Topology topology = Topology.builder()
+                .addSubtopology(new TopologySubtopology(0, nodes))
+                .addGlobalStore(TopologyNode.builder("global", NodeType.GLOBAL_STORE)
+                        .topics(Set.of("global-topic"))
+                        .build())
+                .build();
+
+        assertThat(formatter.format(topology)).isEqualTo("""
+                {
+                  "subtopologies": [
+                    {
+                      "id": 0,
+                      "nodes": [
+                        {"name": "source", "type": "SOURCE", "topics": ["input"], "successors": ["sink-a", "sink-b"]},
+                        {"name": "sink-a", "type": "SINK", "topics": ["output"], "predecessors": ["source"]}
+                      ]
+                    }
+                  ],
+                  "globalStores": [
+                    {"name": "global", "type": "GLOBAL_STORE", "topics": ["global-topic"]}
+                  ]
+                }
+                """);
+    }
+
+    @Test
+    void shouldFormatEmptyTopology() {
+        assertThat(formatter.format(Topology.builder().build()))
+                .isEqualTo("{\n  \"subtopologies\": [],\n  \"globalStores\": []\n}\n");
+    }
+
+    @Test
+    void shouldEscapeStringsAndWriteTopicPatterns() throws IOException {
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        nodes.put("say \"hi\"\n", TopologyNode.builder("say \"hi\"\n", NodeType.SOURCE)
+                .topicPattern("events-\\d+\u0001")
+                .build());
+        Topology topology = Topology.builder()
+                .addSubtopology(new TopologySubtopology(1, nodes))
+                .build();
+        StringWriter writer = new StringWriter();
+
+        formatter.write(topology, writer);
+
+        assertThat(writer.toString())
+                .contains("{\"name\": \"say \\\"hi\\\"\\n\", \"type\": \"SOURCE\", \"topicPattern\": \"events-\\\\d+\\u0001\"}")
+                .isEqualTo(formatter.format(topology));
+    }
+}
@@ -2,15 +2,20 @@ package com.github.joschi.kafka.topology.formatter;
 
 import com.github.joschi.kafka.topology.model.NodeType;
 import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyDiff;
 import com.github.joschi.kafka.topology.model.TopologyNode;
 import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class MermaidFormatterTest {
@@ -105,4 +110,59 @@ class MermaidFormatterTest {
 
         assertThat(output).contains("node_with_dashes");
     }
+
+    @Test
+    void shouldHighlightDiff() {
+        Topology before = Topology.builder().addSubtopology(chain(0, "input", "output")).build();
+        Topology after = Topology.builder()
+                .addSubtopology(chain(0, "input", "output-v2"))
+                .addSubtopology(chain(1, "output-v2", "result"))
+                .build();
+        TopologyDiff diff = TopologyDiff.between(before, after);
+
+        String output = formatter.format(diff);
+
+        assertThat(output).contains("subgraph sub0[\"Subtopology 0 (changed)\"]");
+        assertThat(output).contains("subgraph sub1[\"Subtopology 1 (added)\"]");
+        assertThat(output).contains("classDef addedStyle", "classDef removedStyle", "classDef changedStyle");
+        assertThat(output).contains("class source_1 addedStyle");
+        assertThat(output).contains("class sink_0 changedStyle");
+        assertThat(output).contains("class output removedStyle");
+        assertThat(output).contains("class output_v2 addedStyle");
+        assertThat(output).contains("class input topicStyle");
+        // The removed edge is still drawn, so that it can be highlighted
+        assertThat(output).contains("sink_0 --> output\n");
+        assertThat(output).contains("style sub0 stroke:#F9A825");
+        assertThat(output).contains("style sub1 stroke:#2E7D32");
+        assertThat(output).containsPattern("linkStyle [0-9,]+ stroke:#2E7D32");
+        assertThat(output).containsPattern("linkStyle [0-9,]+ stroke:#C62828");
+    }
+
+    @Test
+    void shouldNotHighlightAnythingWithoutChanges() {
+        Topology topology = Topology.builder().addSubtopology(chain(0, "input", "output")).build();
+        TopologyDiff diff = TopologyDiff.between(topology, topology);
+
+        assertThat(formatter.format(diff))
+                .contains("subgraph sub0[\"Subtopology 0\"]")
+                .doesNotContain("class sink_0 changedStyle")
+                .doesNotContain("linkStyle");
+    }
+
+    @Test
+    void shouldDrawChangedEdgesOfMovedNodes() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        TopologyDiff diff = TopologyDiff.between(
+                parser.parse(Path.of("src/test/resources/moved-node-before.txt")),
+                parser.parse(Path.of("src/test/resources/moved-node-after.txt")));
+
+        String output = formatter.format(diff);
+
+        // The filter is drawn in its new subtopology, its removed edges between both subtopologies
+        assertThat(output).contains("KSTREAM_SOURCE_0000000003 --> KSTREAM_FILTER_0000000001");
+        assertThat(output).contains("%% Edges across subtopologies\n"
+                + "    KSTREAM_FILTER_0000000001 --> KSTREAM_SINK_0000000002\n"
+                + "    KSTREAM_SOURCE_0000000000 --> KSTREAM_FILTER_0000000001\n");
+        assertThat(output).contains("linkStyle 2,4,5 stroke:#C62828");
+    }
 }
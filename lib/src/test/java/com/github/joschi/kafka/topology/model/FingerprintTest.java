@@ -0,0 +1,102 @@
+package com.github.joschi.kafka.topology.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FingerprintTest {
+
+    private static TopologyNode processor(String name, Set<String> stores) {
+        return TopologyNode.builder(name, NodeType.PROCESSOR)
+                .stores(stores)
+                .predecessors(Set.of("source"))
+                .build();
+    }
+
+    private static TopologySubtopology subtopology(int id, TopologyNode... nodes) {
+        Map<String, TopologyNode> map = new LinkedHashMap<>();
+        for (TopologyNode node : nodes) {
+            map.put(node.getName(), node);
+        }
+        return new TopologySubtopology(id, map);
+    }
+
+    @Test
+    void shouldBeStableAcrossJvms() {
+        // Pinned values: the fingerprint must not change between releases, JVMs or runs
+        TopologyNode node = processor("count", Set.of("store-b", "store-a"));
+
+        assertThat(node.fingerprint()).hasToString("835366af6b9881ce80ee2f2035b13846");
+        assertThat(Topology.builder().addSubtopology(subtopology(0, node)).build().fingerprint())
+                .hasToString("b502c1b03d5307b1074c191308608435");
+        assertThat(Topology.builder().build().fingerprint()).hasToString("4bbd1bf27da918d6b465a9eccd791cb6");
+    }
+
+    @Test
+    void shouldNotDependOnIterationOrder() {
+        TopologyNode a = processor("a", Set.of("s1", "s2", "s3"));
+        TopologyNode b = processor("b", Set.of());
+
+        Topology first = Topology.builder()
+                .addSubtopology(subtopology(0, a, b))
+                .addSubtopology(subtopology(1, b))
+                .build();
+        Topology second = Topology.builder()
+                .addSubtopology(subtopology(1, processor("b", Set.of())))
+                .addSubtopology(subtopology(0, processor("b", Set.of()), processor("a", Set.of("s3", "s1", "s2"))))
+                .build();
+
+        assertThat(second.fingerprint()).isEqualTo(first.fingerprint());
+        assertThat(second.getSubtopologies().get(0).fingerprint())
+                .isEqualTo(first.getSubtopologies().get(0).fingerprint());
+    }
+
+    @Test
+    void shouldChangeWithContent() {
+        TopologyNode node = processor("count", Set.of("store"));
+
+        assertThat(processor("count", Set.of("other")).fingerprint()).isNotEqualTo(node.fingerprint());
+        assertThat(processor("counts", Set.of("store")).fingerprint()).isNotEqualTo(node.fingerprint());
+        assertThat(node.toBuilder().topicPattern("x").build().fingerprint()).isNotEqualTo(node.fingerprint());
+        // Names are length-prefixed, so moving characters between names changes the fingerprint
+        assertThat(processor("ab", Set.of("c")).fingerprint()).isNotEqualTo(processor("a", Set.of("bc")).fingerprint());
+        assertThat(subtopology(1, node).fingerprint()).isNotEqualTo(subtopology(2, node).fingerprint());
+
+        Topology topology = Topology.builder().addSubtopology(subtopology(0, node)).build();
+        Topology withGlobalStore = topology.withGlobalStore(TopologyNode.builder("global", NodeType.GLOBAL_STORE).build());
+        assertThat(withGlobalStore.fingerprint()).isNotEqualTo(topology.fingerprint());
+        assertThat(withGlobalStore.withoutGlobalStore("global").fingerprint()).isEqualTo(topology.fingerprint());
+    }
+
+    @Test
+    void shouldMemoiseAndReuseFingerprintsOfSharedParts() {
+        TopologySubtopology shared = subtopology(0, processor("a", Set.of()));
+        Topology topology = Topology.builder()
+                .addSubtopology(shared)
+                .addSubtopology(subtopology(1, processor("b", Set.of())))
+                .build();
+
+        Fingerprint fingerprint = topology.fingerprint();
+        Topology derived = topology.withNode(1, processor("c", Set.of()));
+
+        assertThat(topology.fingerprint()).isSameAs(fingerprint);
+        assertThat(derived.getSubtopologies().get(0).fingerprint()).isSameAs(shared.fingerprint());
+        assertThat(derived.fingerprint()).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    void shouldRoundTripStringForm() {
+        Fingerprint fingerprint = processor("count", Set.of()).fingerprint();
+
+        assertThat(Fingerprint.fromString(fingerprint.toString())).isEqualTo(fingerprint);
+        assertThat(Fingerprint.fromString("000000000000000100000000000000ff").toString())
+                .isEqualTo("000000000000000100000000000000ff");
+        assertThatThrownBy(() -> Fingerprint.fromString("xyz")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Fingerprint.fromString("g".repeat(32))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.joschi.kafka.topology.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopologyAttributeIndexTest {
+
+    private static Topology createTopology() {
+        return Topology.builder()
+                .addSubtopology(chain(1, "input", "repartition-1", "store-1"))
+                .addSubtopology(chain(2, "repartition-1", "repartition-2"))
+                .addSubtopology(chain(3, "repartition-2", "output", "store-3"))
+                .build();
+    }
+
+    @Test
+    void shouldFilterByTypeAndStatefulness() {
+        Topology topology = createTopology();
+        TopologyAttributeIndex index = topology.attributeIndex();
+
+        BitSet statefulProcessors = index.ofType(NodeType.PROCESSOR);
+        statefulProcessors.and(index.stateful());
+
+        assertThat(names(topology, statefulProcessors)).containsExactly("process-1", "process-3");
+        assertThat(names(topology, index.ofType(NodeType.STATE_STORE))).containsExactly("store-1", "store-3");
+    }
+
+    @Test
+    void shouldFilterBySubtopologyRange() {
+        Topology topology = createTopology();
+        TopologyAttributeIndex index = topology.attributeIndex();
+
+        BitSet nodes = index.inSubtopologies(2, 3);
+        nodes.and(index.stateful());
+
+        assertThat(names(topology, nodes)).containsExactly("process-3");
+        assertThat(index.inSubtopology(2).cardinality()).isEqualTo(3);
+        assertThat(index.inSubtopology(42).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldFilterByAttachedTopicsAndStores() {
+        Topology topology = createTopology();
+        TopologyAttributeIndex index = topology.attributeIndex();
+
+        assertThat(names(topology, index.internalTopics())).containsExactly("repartition-1", "repartition-2");
+        assertThat(names(topology, index.writingTo(index.internalTopics()))).containsExactly("sink-1", "sink-2");
+        assertThat(names(topology, index.readingFrom(topic -> topic.startsWith("input"))))
+                .containsExactly("source-1");
+        assertThat(names(topology, index.accessing("store-3"::equals))).containsExactly("process-3");
+        assertThat(index.withTopics().cardinality()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldReturnIndependentBitSets() {
+        TopologyAttributeIndex index = createTopology().attributeIndex();
+
+        index.stateful().clear();
+
+        assertThat(index.stateful().cardinality()).isEqualTo(2);
+    }
+
+    private static List<String> names(Topology topology, BitSet nodes) {
+        List<String> names = new ArrayList<>();
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            names.add(topology.graph().name(node));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.joschi.kafka.topology.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopologyConnectionsTest {
+
+    private static Topology createTopology() {
+        // 0 -> a -> 1 -> b -> 2, and 0 -> a -> 2
+        return Topology.builder()
+                .addSubtopology(chain(0, Set.of("input"), "a", Set.of("shared-store")))
+                .addSubtopology(chain(1, Set.of("a"), "b", Set.of("shared-store")))
+                .addSubtopology(chain(2, Set.of("a", "b"), "output", Set.of("shared-store")))
+                .build();
+    }
+
+    @Test
+    void shouldIndexProducersAndConsumersOfTopics() {
+        TopologyConnections connections = createTopology().connections();
+
+        assertThat(connections.getProducers("a")).containsExactly("sink-0");
+        assertThat(connections.getConsumers("a")).containsExactly("source-1", "source-2");
+        assertThat(connections.getProducers("input")).isEmpty();
+        assertThat(connections.getConsumers("output")).isEmpty();
+        assertThat(connections.getConsumers("unknown")).isEmpty();
+    }
+
+    @Test
+    void shouldIndexAccessorsAndSubtopologiesByName() {
+        TopologyConnections connections = createTopology().connections();
+
+        assertThat(connections.getAccessors("shared-store")).containsExactly("process-0", "process-1", "process-2");
+        assertThat(connections.getAccessors("unknown")).isEmpty();
+        assertThat(connections.getWritingSubtopologies("b")).containsExactly(1);
+        assertThat(connections.getReadingSubtopologies("a")).containsExactly(1, 2);
+        assertThat(connections.getReadingSubtopologies("output")).isEmpty();
+        assertThat(connections.getWritingSubtopologies("unknown")).isEmpty();
+    }
+
+    @Test
+    void shouldIndexSubtopologyDependencies() {
+        TopologyConnections connections = createTopology().connections();
+
+        assertThat(connections.getDownstreamSubtopologies(0)).containsExactly(1, 2);
+        assertThat(connections.getDownstreamSubtopologies(1)).containsExactly(2);
+        assertThat(connections.getDownstreamSubtopologies(2)).isEmpty();
+        assertThat(connections.getUpstreamSubtopologies(2)).containsExactly(0, 1);
+        assertThat(connections.getUpstreamSubtopologies(42)).isEmpty();
+    }
+
+    @Test
+    void shouldIndexStoreAccessorsByGraphIndex() {
+        Topology topology = createTopology();
+        TopologyGraph graph = topology.graph();
+        TopologyConnections connections = topology.connections();
+
+        int store = graph.firstStateStore();
+        assertThat(graph.name(store)).isEqualTo("shared-store");
+        assertThat(connections.accessorsEnd(store) - connections.accessorsStart(store)).isEqualTo(3);
+        assertThat(graph.name(connections.accessorAt(connections.accessorsStart(store)))).isEqualTo("process-0");
+        assertThat(topology.connections()).isSameAs(connections);
+    }
+}
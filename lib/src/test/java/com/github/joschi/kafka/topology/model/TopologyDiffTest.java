@@ -0,0 +1,186 @@
+package com.github.joschi.kafka.topology.model;
+
+import com.github.joschi.kafka.topology.model.TopologyDiff.Change;
+import com.github.joschi.kafka.topology.model.TopologyDiff.Edge;
+import com.github.joschi.kafka.topology.parser.TopologyTextParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class TopologyDiffTest {
+
+    private static final String INSERTED_FILTER = """
+            Topologies:
+               Sub-topology: 0
+                Source: KSTREAM-SOURCE-0000000000 (topics: [input-topic])
+                  --> KSTREAM-FILTER-0000000001
+                Processor: KSTREAM-FILTER-0000000001 (stores: [])
+                  --> KSTREAM-MAPVALUES-0000000002
+                  <-- KSTREAM-SOURCE-0000000000
+                Processor: KSTREAM-MAPVALUES-0000000002 (stores: [])
+                  --> KSTREAM-FILTER-0000000003
+                  <-- KSTREAM-FILTER-0000000001
+                Processor: KSTREAM-FILTER-0000000003 (stores: [])
+                  --> KSTREAM-SINK-0000000004
+                  <-- KSTREAM-MAPVALUES-0000000002
+                Sink: KSTREAM-SINK-0000000004 (topic: output-topic)
+                  <-- KSTREAM-FILTER-0000000003
+
+               Sub-topology: 1
+                Source: KSTREAM-SOURCE-0000000005 (topics: [another-topic])
+                  --> KSTREAM-SINK-0000000006
+                Sink: KSTREAM-SINK-0000000006 (topic: result-topic-v2)
+                  <-- KSTREAM-SOURCE-0000000005
+            """;
+
+    private static Topology createTopology() {
+        return Topology.builder()
+                .addSubtopology(chain(0, "orders", "enriched", "order-store"))
+                .addSubtopology(chain(1, "enriched", "output", "totals"))
+                .build();
+    }
+
+    @Test
+    void shouldFindNoDifferencesBetweenEqualTopologies() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        Path path = Path.of("src/test/resources/example3.txt");
+
+        TopologyDiff diff = TopologyDiff.between(parser.parse(path), parser.parse(path));
+
+        assertThat(diff.isEmpty()).isTrue();
+        assertThat(diff.getSubtopologyMatches()).containsExactly(entry(0, 0), entry(1, 1));
+        assertThat(diff.getChangedSubtopologies()).isEmpty();
+        assertThat(diff.getNodeChanges()).isEmpty();
+        assertThat(diff.getEdgeChanges()).isEmpty();
+    }
+
+    @Test
+    void shouldMatchRenumberedSubtopologiesByContent() {
+        Topology before = createTopology();
+        Topology after = Topology.builder()
+                .addSubtopology(new TopologySubtopology(0, before.getSubtopologies().get(1).getNodes()))
+                .addSubtopology(new TopologySubtopology(1, before.getSubtopologies().get(0).getNodes()))
+                .build();
+
+        TopologyDiff diff = TopologyDiff.between(before, after);
+
+        assertThat(diff.getSubtopologyMatches()).containsExactly(entry(0, 1), entry(1, 0));
+        assertThat(diff.getChangedSubtopologies()).isEmpty();
+        assertThat(diff.getNodeChanges()).isEmpty();
+        assertThat(diff.isEmpty()).isFalse();
+    }
+
+    @Test
+    void shouldReportChangedNodesEdgesTopicsAndStores() {
+        Topology before = createTopology();
+        TopologyNode process = before.findNode("process-1").orElseThrow();
+        Topology after = before
+                .withNode(1, process.toBuilder().stores(Set.of("totals-v2")).successors(Set.of("sink-1", "audit")).build())
+                .withNode(1, TopologyNode.builder("audit", NodeType.SINK)
+                        .topics(Set.of("audit-log"))
+                        .predecessors(Set.of("process-1"))
+                        .build());
+
+        TopologyDiff diff = TopologyDiff.between(before, after);
+
+        assertThat(diff.getSubtopologyMatches()).containsExactly(entry(0, 0), entry(1, 1));
+        assertThat(diff.getChangedSubtopologies()).containsExactly(1);
+        assertThat(diff.getNodeChanges()).containsExactly(
+                entry("audit", Change.ADDED),
+                entry("process-1", Change.CHANGED));
+        assertThat(diff.getEdgeChanges()).containsExactly(
+                entry(new Edge("audit", "audit-log"), Change.ADDED),
+                entry(new Edge("process-1", "audit"), Change.ADDED),
+                entry(new Edge("process-1", "totals"), Change.REMOVED),
+                entry(new Edge("process-1", "totals-v2"), Change.ADDED));
+        assertThat(diff.getTopicChanges()).containsExactly(entry("audit-log", Change.ADDED));
+        assertThat(diff.getStoreChanges()).containsExactly(
+                entry("totals", Change.REMOVED),
+                entry("totals-v2", Change.ADDED));
+    }
+
+    @Test
+    void shouldPairNodesWhoseGeneratedNumbersShifted() throws IOException {
+        TopologyTextParser parser = new TopologyTextParser();
+        Topology before = parser.parse(Path.of("src/test/resources/example2.txt"));
+
+        TopologyDiff diff = TopologyDiff.between(before, parser.parse(INSERTED_FILTER));
+
+        assertThat(diff.getRenamedNodes()).containsExactly(
+                entry("KSTREAM-FILTER-0000000002", "KSTREAM-FILTER-0000000003"),
+                entry("KSTREAM-MAPVALUES-0000000001", "KSTREAM-MAPVALUES-0000000002"),
+                entry("KSTREAM-SINK-0000000003", "KSTREAM-SINK-0000000004"),
+                entry("KSTREAM-SINK-0000000005", "KSTREAM-SINK-0000000006"),
+                entry("KSTREAM-SOURCE-0000000004", "KSTREAM-SOURCE-0000000005"));
+        // Only the inserted filter, its neighbours and the sink writing to a new topic changed
+        assertThat(diff.getNodeChanges()).containsExactly(
+                entry("KSTREAM-FILTER-0000000001", Change.ADDED),
+                entry("KSTREAM-MAPVALUES-0000000002", Change.CHANGED),
+                entry("KSTREAM-SINK-0000000006", Change.CHANGED),
+                entry("KSTREAM-SOURCE-0000000000", Change.CHANGED));
+        assertThat(diff.getEdgeChanges()).containsExactly(
+                entry(new Edge("KSTREAM-FILTER-0000000001", "KSTREAM-MAPVALUES-0000000002"), Change.ADDED),
+                entry(new Edge("KSTREAM-SINK-0000000006", "result-topic"), Change.REMOVED),
+                entry(new Edge("KSTREAM-SINK-0000000006", "result-topic-v2"), Change.ADDED),
+                entry(new Edge("KSTREAM-SOURCE-0000000000", "KSTREAM-FILTER-0000000001"), Change.ADDED),
+                entry(new Edge("KSTREAM-SOURCE-0000000000", "KSTREAM-MAPVALUES-0000000002"), Change.REMOVED));
+        assertThat(diff.getTopicChanges()).containsExactly(
+                entry("result-topic", Change.REMOVED),
+                entry("result-topic-v2", Change.ADDED));
+    }
+
+    @Test
+    void shouldMatchChangedSubtopologiesBySharedNodesAndInputTopics() {
+        Topology before = createTopology();
+        TopologySubtopology renamed = chain(7, "enriched", "output-v2", "totals");
+        Topology after = Topology.builder()
+                // Shares the processor and sink names with subtopology 0, but reads another topic
+                .addSubtopology(new TopologySubtopology(4, Map.of(
+                        "process-0", before.findNode("process-0").orElseThrow(),
+                        "sink-0", before.findNode("sink-0").orElseThrow())))
+                // Shares no node name with subtopology 1, only its input topic
+                .addSubtopology(renamed)
+                .build();
+
+        TopologyDiff diff = TopologyDiff.between(before, after);
+
+        assertThat(diff.getSubtopologyMatches()).containsExactly(entry(0, 4), entry(1, 7));
+        assertThat(diff.getAddedSubtopologies()).isEmpty();
+        assertThat(diff.getRemovedSubtopologies()).isEmpty();
+        assertThat(diff.getNodeChanges()).containsEntry("source-0", Change.REMOVED)
+                .containsEntry("source-1", Change.REMOVED)
+                .containsEntry("source-7", Change.ADDED)
+                .doesNotContainKeys("process-0", "sink-0");
+        assertThat(diff.getEdgeChanges()).containsEntry(new Edge("source-0", "process-0"), Change.REMOVED);
+    }
+
+    @Test
+    void shouldReportAddedAndRemovedSubtopologiesAndMovedNodes() {
+        Topology before = createTopology();
+        TopologyNode sink = before.findNode("sink-0").orElseThrow();
+        Topology after = before.withoutSubtopology(0)
+                .withSubtopology(chain(5, "payments", "settled"))
+                .withNode(1, sink);
+
+        TopologyDiff diff = TopologyDiff.between(before, after);
+
+        assertThat(diff.getSubtopologyMatches()).containsExactly(entry(1, 1));
+        assertThat(diff.getAddedSubtopologies()).containsExactly(5);
+        assertThat(diff.getRemovedSubtopologies()).containsExactly(0);
+        assertThat(diff.getChangedSubtopologies()).containsExactly(1);
+        assertThat(diff.getNodeChanges())
+                .containsEntry("source-0", Change.REMOVED)
+                .containsEntry("source-5", Change.ADDED)
+                .containsEntry("sink-0", Change.CHANGED);
+        assertThat(diff.getTopicChanges()).containsEntry("orders", Change.REMOVED)
+                .containsEntry("payments", Change.ADDED);
+        assertThat(diff.getStoreChanges()).containsExactly(entry("order-store", Change.REMOVED));
+    }
+}
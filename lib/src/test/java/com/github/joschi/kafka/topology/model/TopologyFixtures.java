@@ -0,0 +1,58 @@
+package com.github.joschi.kafka.topology.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds small topologies for tests.
+ */
+public final class TopologyFixtures {
+
+    private TopologyFixtures() {
+    }
+
+    /**
+     * Creates a subtopology of three nodes, {@code source-<id> --> process-<id> --> sink-<id>}, reading a single
+     * topic.
+     *
+     * @param id     the subtopology id
+     * @param input  the topic read by the source
+     * @param output the topic written by the sink
+     * @param stores the state stores of the processor
+     * @return the subtopology
+     */
+    public static TopologySubtopology chain(int id, String input, String output, String... stores) {
+        return chain(id, Set.of(input), output, Set.of(stores));
+    }
+
+    /**
+     * Creates a subtopology of three nodes, {@code source-<id> --> process-<id> --> sink-<id>}.
+     *
+     * @param id     the subtopology id
+     * @param inputs the topics read by the source
+     * @param output the topic written by the sink
+     * @param stores the state stores of the processor
+     * @return the subtopology
+     */
+    public static TopologySubtopology chain(int id, Set<String> inputs, String output, Set<String> stores) {
+        String source = "source-" + id;
+        String process = "process-" + id;
+        String sink = "sink-" + id;
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        nodes.put(source, TopologyNode.builder(source, NodeType.SOURCE)
+                .topics(inputs)
+                .successors(Set.of(process))
+                .build());
+        nodes.put(process, TopologyNode.builder(process, NodeType.PROCESSOR)
+                .stores(stores)
+                .predecessors(Set.of(source))
+                .successors(Set.of(sink))
+                .build());
+        nodes.put(sink, TopologyNode.builder(sink, NodeType.SINK)
+                .topics(Set.of(output))
+                .predecessors(Set.of(process))
+                .build());
+        return new TopologySubtopology(id, nodes);
+    }
+}
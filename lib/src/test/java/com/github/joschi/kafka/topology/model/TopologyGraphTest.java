@@ -0,0 +1,154 @@
+package com.github.joschi.kafka.topology.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopologyGraphTest {
+
+    private static Topology createTopology() {
+        Map<String, TopologyNode> nodes0 = new LinkedHashMap<>();
+        nodes0.put("source", TopologyNode.builder("source", NodeType.SOURCE)
+                .topics(Set.of("input"))
+                .successors(Set.of("filter", "count"))
+                .build());
+        nodes0.put("filter", TopologyNode.builder("filter", NodeType.PROCESSOR)
+                .predecessors(Set.of("source"))
+                .successors(Set.of("sink"))
+                .build());
+        nodes0.put("count", TopologyNode.builder("count", NodeType.PROCESSOR)
+                .stores(Set.of("counts"))
+                .predecessors(Set.of("source"))
+                .successors(Set.of("sink"))
+                .build());
+        nodes0.put("sink", TopologyNode.builder("sink", NodeType.SINK)
+                .topics(Set.of("output"))
+                .predecessors(Set.of("filter", "count"))
+                .build());
+
+        Map<String, TopologyNode> nodes1 = new LinkedHashMap<>();
+        nodes1.put("source", TopologyNode.builder("source", NodeType.SOURCE)
+                .topics(Set.of("output"))
+                .successors(Set.of("undeclared"))
+                .build());
+
+        return Topology.builder()
+                .addSubtopology(new TopologySubtopology(0, nodes0))
+                .addSubtopology(new TopologySubtopology(1, nodes1))
+                .addGlobalStore(TopologyNode.builder("global", NodeType.GLOBAL_STORE)
+                        .topics(Set.of("global-topic"))
+                        .build())
+                .build();
+    }
+
+    @Test
+    void shouldNumberNodesBySubtopologyThenTopicsAndStores() {
+        TopologyGraph graph = createTopology().graph();
+
+        assertThat(graph.nodeCount()).isEqualTo(10);
+        assertThat(graph.subtopologyCount()).isEqualTo(2);
+        assertThat(graph.subtopologyId(1)).isEqualTo(1);
+        assertThat(graph.subtopologyStart(0)).isZero();
+        assertThat(graph.subtopologyEnd(0)).isEqualTo(4);
+        assertThat(graph.subtopologyEnd(1)).isEqualTo(5);
+        assertThat(graph.firstTopic()).isEqualTo(5);
+        assertThat(graph.firstStateStore()).isEqualTo(8);
+        assertThat(graph.firstGlobalStore()).isEqualTo(9);
+
+        assertThat(graph.name(4)).isEqualTo("source");
+        assertThat(graph.subtopologyOf(4)).isEqualTo(1);
+        assertThat(graph.subtopologyOf(5)).isEqualTo(-1);
+        assertThat(graph.type(2)).isEqualTo(NodeType.PROCESSOR);
+        assertThat(graph.type(8)).isEqualTo(NodeType.STATE_STORE);
+        assertThat(graph.type(9)).isEqualTo(NodeType.GLOBAL_STORE);
+    }
+
+    @Test
+    void shouldResolveEdgesWithinSubtopologies() {
+        TopologyGraph graph = createTopology().graph();
+
+        // In declaration order, whatever the iteration order of the successor set
+        assertThat(successors(graph, 0)).containsExactly("filter", "count");
+        assertThat(predecessors(graph, 3)).containsExactly("filter", "count");
+        assertThat(predecessors(graph, 0)).isEmpty();
+        // Undeclared successors are not part of the graph
+        assertThat(successors(graph, 4)).isEmpty();
+        assertThat(graph.edgeCount()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldResolveTopicsAndStores() {
+        TopologyGraph graph = createTopology().graph();
+
+        assertThat(graph.topicsEnd(0) - graph.topicsStart(0)).isEqualTo(1);
+        int input = graph.topicAt(graph.topicsStart(0));
+        assertThat(graph.name(input)).isEqualTo("input");
+        assertThat(graph.type(input)).isEqualTo(NodeType.TOPIC);
+        // Both the sink of subtopology 0 and the source of subtopology 1 refer to the same topic node
+        assertThat(graph.topicAt(graph.topicsStart(3))).isEqualTo(graph.topicAt(graph.topicsStart(4)));
+        assertThat(graph.name(graph.storeAt(graph.storesStart(2)))).isEqualTo("counts");
+        assertThat(graph.storesEnd(1) - graph.storesStart(1)).isZero();
+        assertThat(graph.name(graph.topicAt(graph.topicsStart(9)))).isEqualTo("global-topic");
+    }
+
+    @Test
+    void shouldNumberTopicsOfANodeByName() {
+        TopologyNode source = TopologyNode.builder("source", NodeType.SOURCE)
+                .topics(Set.of("e", "b", "d", "a", "c"))
+                .build();
+        TopologyGraph graph = Topology.builder()
+                .addSubtopology(new TopologySubtopology(0, Map.of("source", source)))
+                .build()
+                .graph();
+
+        List<String> topics = new ArrayList<>();
+        for (int edge = graph.topicsStart(0); edge < graph.topicsEnd(0); edge++) {
+            topics.add(graph.name(graph.topicAt(edge)));
+        }
+        assertThat(topics).containsExactly("a", "b", "c", "d", "e");
+    }
+
+    @Test
+    void shouldLookUpNodesByName() {
+        TopologyGraph graph = createTopology().graph();
+
+        // Node names are only unique within a subtopology; the first subtopology wins
+        assertThat(graph.node("source")).isZero();
+        assertThat(graph.node("global")).isEqualTo(graph.firstGlobalStore());
+        assertThat(graph.node("input")).isEqualTo(-1);
+        assertThat(graph.name(graph.topic("global-topic"))).isEqualTo("global-topic");
+        assertThat(graph.topic("counts")).isEqualTo(-1);
+        assertThat(graph.store("counts")).isEqualTo(graph.firstStateStore());
+        assertThat(graph.subtopologyIndex(1)).isEqualTo(1);
+        assertThat(graph.subtopologyIndex(42)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldCacheGraph() {
+        Topology topology = createTopology();
+
+        assertThat(topology.graph()).isSameAs(topology.graph());
+    }
+
+    private static List<String> successors(TopologyGraph graph, int node) {
+        List<String> names = new ArrayList<>();
+        for (int edge = graph.successorsStart(node); edge < graph.successorsEnd(node); edge++) {
+            names.add(graph.name(graph.successorAt(edge)));
+        }
+        return names;
+    }
+
+    private static List<String> predecessors(TopologyGraph graph, int node) {
+        List<String> names = new ArrayList<>();
+        for (int edge = graph.predecessorsStart(node); edge < graph.predecessorsEnd(node); edge++) {
+            names.add(graph.name(graph.predecessorAt(edge)));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.joschi.kafka.topology.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopologyLineageTest {
+
+    private static Topology createTopology() {
+        // orders -> 0 -> enriched -> 1 -> output, payments -> 2 -> enriched; 0 and 1 are stateful
+        return Topology.builder()
+                .addSubtopology(chain(0, "orders", "enriched", "order-store"))
+                .addSubtopology(chain(1, "enriched", "output", "totals"))
+                .addSubtopology(chain(2, "payments", "enriched"))
+                .addGlobalStore(TopologyNode.builder("customers", NodeType.GLOBAL_STORE)
+                        .topics(Set.of("output"))
+                        .build())
+                .build();
+    }
+
+    @Test
+    void shouldFollowEdgesAndTopicsDownstream() {
+        Topology topology = createTopology();
+        TopologyLineage lineage = topology.lineage();
+
+        BitSet downstream = lineage.downstream(lineage.topic("orders"));
+
+        assertThat(names(topology, downstream)).containsExactlyInAnyOrder(
+                "source-0", "process-0", "sink-0", "enriched", "order-store",
+                "source-1", "process-1", "sink-1", "output", "totals", "customers");
+    }
+
+    @Test
+    void shouldFollowEdgesAndTopicsUpstream() {
+        Topology topology = createTopology();
+        TopologyLineage lineage = topology.lineage();
+
+        BitSet upstream = lineage.upstream(lineage.node("customers"));
+
+        assertThat(names(topology, upstream)).containsExactlyInAnyOrder(
+                "output", "sink-1", "process-1", "source-1", "enriched", "totals",
+                "sink-0", "process-0", "source-0", "orders", "order-store",
+                "sink-2", "process-2", "source-2", "payments");
+        assertThat(names(topology, lineage.upstream(lineage.topic("payments")))).isEmpty();
+    }
+
+    @Test
+    void shouldStartAtStoreWithItsProcessors() {
+        Topology topology = createTopology();
+        TopologyLineage lineage = topology.lineage();
+
+        assertThat(names(topology, lineage.downstream(lineage.store("totals"))))
+                .containsExactlyInAnyOrder("process-1", "sink-1", "output", "customers");
+    }
+
+    @Test
+    void shouldFindShortestPath() {
+        Topology topology = createTopology();
+        TopologyLineage lineage = topology.lineage();
+
+        int[] path = lineage.path(lineage.topic("payments"), lineage.topic("output"));
+
+        List<String> names = new ArrayList<>();
+        for (int node : path) {
+            names.add(topology.graph().name(node));
+        }
+        assertThat(names).containsExactly("payments", "source-2", "process-2", "sink-2", "enriched",
+                "source-1", "process-1", "sink-1", "output");
+        assertThat(lineage.path(lineage.topic("output"), lineage.topic("orders"))).isEmpty();
+        assertThat(lineage.path(lineage.topic("orders"), lineage.topic("orders"))).hasSize(1);
+    }
+
+    @Test
+    void shouldResolveNames() {
+        TopologyLineage lineage = createTopology().lineage();
+
+        assertThat(lineage.topic("unknown")).isEqualTo(-1);
+        assertThat(lineage.node("enriched")).isEqualTo(-1);
+        assertThat(lineage.store("order-store")).isNotNegative();
+    }
+
+    private static List<String> names(Topology topology, BitSet nodes) {
+        List<String> names = new ArrayList<>();
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            names.add(topology.graph().name(node));
+        }
+        return names;
+    }
+}
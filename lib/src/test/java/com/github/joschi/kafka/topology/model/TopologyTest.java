@@ -0,0 +1,156 @@
+package com.github.joschi.kafka.topology.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.joschi.kafka.topology.model.TopologyFixtures.chain;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopologyTest {
+
+    private static Topology createTopology() {
+        return Topology.builder()
+                .addSubtopology(chain(0, "input", "middle", "store-0"))
+                .addSubtopology(chain(1, "middle", "output", "store-1"))
+                .addGlobalStore(TopologyNode.builder("global", NodeType.GLOBAL_STORE)
+                        .topics(Set.of("global-topic"))
+                        .build())
+                .build();
+    }
+
+    @Test
+    void shouldShareUnchangedSubtopologiesWhenReplacingOne() {
+        Topology topology = createTopology();
+        TopologySubtopology replacement = chain(1, "middle", "result", "store-1");
+
+        Topology derived = topology.withSubtopology(replacement);
+
+        assertThat(derived.getSubtopologies().get(0)).isSameAs(topology.getSubtopologies().get(0));
+        assertThat(derived.getSubtopologies().get(1)).isSameAs(replacement);
+        assertThat(derived.getGlobalStores()).isSameAs(topology.getGlobalStores());
+        assertThat(derived.getTopics()).containsOnlyKeys("input", "middle", "result", "global-topic");
+        assertThat(derived.getStateStores()).isEqualTo(topology.getStateStores());
+        assertThat(derived).isEqualTo(Topology.builder()
+                .addSubtopology(topology.getSubtopologies().get(0))
+                .addSubtopology(replacement)
+                .addGlobalStore(topology.getGlobalStores().get("global"))
+                .build());
+        // The original topology is not changed
+        assertThat(topology.getTopics()).containsKey("output");
+    }
+
+    @Test
+    void shouldShareTopicsWhenTheyAreUnchanged() {
+        Topology topology = createTopology();
+        Map<String, TopologyNode> topics = topology.getTopics();
+        Map<String, TopologyNode> stateStores = topology.getStateStores();
+
+        Topology derived = topology.withSubtopology(chain(1, "middle", "output", "store-1"));
+
+        assertThat(derived.getTopics()).isSameAs(topics);
+        assertThat(derived.getStateStores()).isSameAs(stateStores);
+        assertThat(topology.withSubtopology(topology.getSubtopologies().get(0))).isSameAs(topology);
+    }
+
+    @Test
+    void shouldRemoveSubtopology() {
+        Topology topology = createTopology();
+
+        Topology derived = topology.withoutSubtopology(0);
+
+        assertThat(derived.getSubtopologies()).containsOnlyKeys(1);
+        assertThat(derived.getTopics()).containsOnlyKeys("middle", "output", "global-topic");
+        assertThat(derived.getStateStores()).containsOnlyKeys("store-1");
+        assertThat(topology.withoutSubtopology(42)).isSameAs(topology);
+    }
+
+    @Test
+    void shouldRemoveNodeTogetherWithItsEdges() {
+        Topology topology = createTopology();
+        Map<String, TopologyNode> topics = topology.getTopics();
+
+        Topology derived = topology.withoutNode("process-1");
+
+        TopologySubtopology subtopology = derived.getSubtopologies().get(1);
+        assertThat(subtopology.getNodes()).containsOnlyKeys("source-1", "sink-1");
+        assertThat(subtopology.getNodes().get("source-1").getSuccessors()).isEmpty();
+        assertThat(subtopology.getNodes().get("sink-1").getPredecessors()).isEmpty();
+        assertThat(subtopology.getNodes().get("source-1").getTopics())
+                .isSameAs(topology.getSubtopologies().get(1).getNodes().get("source-1").getTopics());
+        assertThat(derived.getSubtopologies().get(0)).isSameAs(topology.getSubtopologies().get(0));
+        assertThat(derived.getStateStores()).containsOnlyKeys("store-0");
+        assertThat(derived.getTopics()).isSameAs(topics);
+    }
+
+    @Test
+    void shouldFindNodesByName() {
+        Topology topology = createTopology();
+
+        assertThat(topology.findNode("process-1")).containsSame(topology.getSubtopologies().get(1).getNodes().get("process-1"));
+        assertThat(topology.findNode("global")).containsSame(topology.getGlobalStores().get("global"));
+        assertThat(topology.findNode("middle")).isEmpty();
+        assertThat(topology.findSubtopologyId("sink-1")).hasValue(1);
+        assertThat(topology.findSubtopologyId("global")).isEmpty();
+        assertThat(topology.findSubtopologyId("unknown")).isEmpty();
+    }
+
+    @Test
+    void shouldRemoveNodeThroughNameIndex() {
+        Topology topology = createTopology();
+        topology.graph();
+
+        assertThat(topology.withoutNode("process-0").getSubtopologies().get(0).getNodes())
+                .containsOnlyKeys("source-0", "sink-0");
+        assertThat(topology.withoutNode("global").getGlobalStores()).isEmpty();
+        assertThat(topology.withoutNode("unknown")).isSameAs(topology);
+    }
+
+    @Test
+    void shouldAddNodeAndGlobalStores() {
+        Topology topology = createTopology();
+
+        Topology derived = topology
+                .withNode(0, TopologyNode.builder("peek-0", NodeType.PROCESSOR).build())
+                .withoutGlobalStore("global")
+                .withGlobalStore(TopologyNode.builder("other", NodeType.GLOBAL_STORE)
+                        .topics(Set.of("other-topic"))
+                        .build());
+
+        assertThat(derived.getSubtopologies().get(0).getNodes()).containsKey("peek-0");
+        assertThat(derived.getGlobalStores()).containsOnlyKeys("other");
+        assertThat(derived.getTopics()).containsOnlyKeys("input", "middle", "output", "other-topic");
+        assertThat(topology.withoutNode("global").getGlobalStores()).isEmpty();
+        assertThatThrownBy(() -> topology.withNode(42, TopologyNode.builder("x", NodeType.PROCESSOR).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> topology.withGlobalStore(TopologyNode.builder("x", NodeType.PROCESSOR).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldCompareStructurally() {
+        Topology topology = createTopology();
+        Topology copy = createTopology();
+        Topology variant = topology.withoutNode("process-0");
+
+        assertThat(copy).isEqualTo(topology).hasSameHashCodeAs(topology);
+        assertThat(topology.withSubtopology(chain(1, "middle", "output", "store-1"))).isEqualTo(topology);
+        assertThat(variant).isNotEqualTo(topology);
+        assertThat(variant.withNode(0, topology.getSubtopologies().get(0).getNodes().get("process-0")))
+                .isNotEqualTo(topology);
+        assertThat(topology.hashCode()).isEqualTo(topology.hashCode());
+    }
+
+    @Test
+    void shouldDeriveTopicsAndStateStoresOnce() {
+        Topology topology = createTopology();
+
+        assertThat(topology.getTopics()).containsOnlyKeys("input", "middle", "output", "global-topic");
+        assertThat(topology.getTopics().get("middle").getType()).isEqualTo(NodeType.TOPIC);
+        assertThat(topology.getTopics()).isSameAs(topology.getTopics());
+        assertThat(topology.getStateStores()).containsOnlyKeys("store-0", "store-1");
+        assertThat(topology.getStateStores()).isSameAs(topology.getStateStores());
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalTopologyParserTest {
+
+    private IncrementalTopologyParser parser;
+    private String topologyText;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        parser = new IncrementalTopologyParser();
+        topologyText = Files.readString(Path.of("src/test/resources", "example3.txt"));
+    }
+
+    @Test
+    void shouldReuseUnchangedSubtopologies() throws IOException {
+        Topology previous = parser.parse(null, topologyText);
+        String changedText = topologyText.replace(
+                "Sink: signals-subscriptions-v1-repartition-sink (topic: signals-subscriptions-v1-repartition)",
+                "Sink: signals-subscriptions-v1-repartition-sink (topic: signals-subscriptions-v2-repartition)");
+
+        Topology topology = parser.parse(previous, changedText);
+
+        assertThat(parser.getReusedBlocks()).isEqualTo(1);
+        assertThat(topology.getSubtopologies().get(0)).isSameAs(previous.getSubtopologies().get(0));
+        assertThat(topology.getSubtopologies().get(1)).isNotEqualTo(previous.getSubtopologies().get(1));
+        assertThat(topology).isEqualTo(new TopologyTextParser().parse(changedText));
+        assertThat(topology.getTopics()).containsKey("signals-subscriptions-v2-repartition");
+    }
+
+    @Test
+    void shouldReuseAllSubtopologiesOfIdenticalText() {
+        Topology previous = parser.parse(null, topologyText);
+
+        Topology topology = parser.parse(topologyText);
+
+        assertThat(parser.getReusedBlocks()).isEqualTo(2);
+        assertThat(topology).isEqualTo(previous);
+    }
+
+    @Test
+    void shouldNotReuseSubtopologiesOfUnrelatedTopology() throws IOException {
+        parser.parse(null, topologyText);
+        Topology unrelated = new TopologyTextParser().parse(topologyText);
+
+        Topology topology = parser.parse(unrelated, topologyText);
+
+        assertThat(parser.getReusedBlocks()).isZero();
+        assertThat(topology).isEqualTo(unrelated);
+    }
+
+    @Test
+    void shouldOnlyReuseSubtopologiesOfLastResult() {
+        Topology first = parser.parse(null, topologyText);
+        parser.parse(first, topologyText.replace("signals-subscriptions-v1", "signals-subscriptions-v2"));
+
+        // The blocks of the first result are no longer remembered, whatever the second call parsed
+        Topology topology = parser.parse(first, topologyText);
+
+        assertThat(parser.getReusedBlocks()).isZero();
+        assertThat(topology).isEqualTo(first);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolTableTest {
+
+    private static final String TOPOLOGY = """
+            Topologies:
+               Sub-topology: 0
+                Source: source (topics: [input])
+                  --> aggregate
+                Processor: aggregate (stores: [store])
+                  --> sink
+                  <-- source
+                Sink: sink (topic: output)
+                  <-- aggregate
+            """;
+
+    @Test
+    void shouldReturnSameInstanceForSlicesAndStrings() {
+        SymbolTable symbols = new SymbolTable();
+
+        String first = symbols.intern("xx-KSTREAM-SOURCE-0000000000-yy", 3, 28);
+        String second = symbols.intern(new StringBuilder("KSTREAM-SOURCE-0000000000"), 0, 25);
+        String third = symbols.intern(new String("KSTREAM-SOURCE-0000000000"));
+
+        assertThat(first).isEqualTo("KSTREAM-SOURCE-0000000000");
+        assertThat(second).isSameAs(first);
+        assertThat(third).isSameAs(first);
+        assertThat(symbols.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDecodeUtf8ByteSequences() {
+        SymbolTable symbols = new SymbolTable();
+        byte[] bytes = "quelle-äöü".getBytes(StandardCharsets.UTF_8);
+        ByteSequence text = new ByteSequence(ByteBuffer.wrap(bytes), 0, bytes.length);
+
+        String name = symbols.intern(text, 0, text.length());
+
+        assertThat(name).isEqualTo("quelle-äöü");
+        assertThat(symbols.intern(text, 0, text.length())).isSameAs(name);
+        assertThat(symbols.intern("quelle-äöü")).isSameAs(name);
+        assertThat(symbols.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldGrowAndStayConsistentUnderConcurrency() throws Exception {
+        SymbolTable symbols = new SymbolTable(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    List<String> names = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        names.add(symbols.intern("name-" + i));
+                    }
+                    return names;
+                }));
+            }
+            List<String> first = futures.get(0).get();
+            for (Future<List<String>> future : futures) {
+                List<String> names = future.get();
+                for (int i = 0; i < names.size(); i++) {
+                    assertThat(names.get(i)).isSameAs(first.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(symbols.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldCanonicaliseNamesWithinAndAcrossParses() throws IOException {
+        SymbolTable symbols = new SymbolTable();
+        TopologyTextParser parser = new TopologyTextParser(ParseMode.LENIENT, null, symbols);
+
+        Topology first = parser.parse(TOPOLOGY);
+        Topology second = parser.parse(TOPOLOGY);
+
+        Map<String, TopologyNode> nodes = first.getSubtopologies().get(0).getNodes();
+        String aggregate = nodes.get("aggregate").getName();
+        assertThat(nodes.get("source").getSuccessors().iterator().next()).isSameAs(aggregate);
+        assertThat(nodes.get("sink").getPredecessors().iterator().next()).isSameAs(aggregate);
+        assertThat(second.getSubtopologies().get(0).getNodes().get("aggregate").getName()).isSameAs(aggregate);
+        assertThat(first.getStateStores().keySet().iterator().next())
+                .isSameAs(second.getSubtopologies().get(0).getNodes().get("aggregate").getStores().iterator().next());
+        assertThat(symbols.size()).isEqualTo(6);
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.formatter.JsonFormatter;
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopologyJsonParserTest {
+
+    private final TopologyJsonParser parser = new TopologyJsonParser();
+    private final JsonFormatter formatter = new JsonFormatter();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"example1.txt", "example2.txt", "example3.txt"})
+    void shouldRoundTripExamples(String filename) throws IOException {
+        Topology topology = new TopologyTextParser().parse(Path.of("src/test/resources", filename));
+
+        Topology parsed = parser.parse(formatter.format(topology));
+
+        assertThat(parsed).isEqualTo(topology);
+        assertThat(parsed.getSubtopologies().keySet()).containsExactlyElementsOf(topology.getSubtopologies().keySet());
+    }
+
+    @Test
+    void shouldRoundTripEscapesPatternsAndNegativeIds() throws IOException {
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        nodes.put("say \"hi\"\n", TopologyNode.builder("say \"hi\"\n", NodeType.SOURCE)
+                .topicPattern("events-\\d+\u0001")
+                .successors(Set.of("tōpic\\", "b", "c"))
+                .build());
+        Topology topology = Topology.builder()
+                .addSubtopology(new TopologySubtopology(-7, nodes))
+                .addGlobalStore(TopologyNode.builder("global", NodeType.GLOBAL_STORE).build())
+                .build();
+
+        assertThat(parser.parse(new StringReader(formatter.format(topology)))).isEqualTo(topology);
+    }
+
+    @Test
+    void shouldAcceptAnyKeyOrderAndSkipUnknownKeys() throws IOException {
+        Topology topology = parser.parse("""
+                {"version": 2.5e0, "globalStores": [], "subtopologies": [{"nodes": [
+                  {"topics": ["a", "a"], "extra": {"x": [true, false, null, "\\u0041"]}, "type": "SOURCE",
+                   "name": "src", "topicPattern": null}
+                ], "id": 3}]}""");
+
+        TopologyNode source = topology.getSubtopologies().get(3).getNodes().get("src");
+        assertThat(source.getType()).isEqualTo(NodeType.SOURCE);
+        assertThat(source.getTopics()).containsExactly("a");
+        assertThat(source.getTopicPattern()).isNull();
+    }
+
+    @Test
+    void shouldShareNamesThroughSymbolTable() throws IOException {
+        SymbolTable symbols = new SymbolTable();
+        TopologyJsonParser sharingParser = new TopologyJsonParser(symbols);
+        String json = formatter.format(new TopologyTextParser().parse(Path.of("src/test/resources/example1.txt")));
+
+        Topology first = sharingParser.parse(json);
+        Topology second = sharingParser.parse(json);
+
+        String name = first.getSubtopologies().get(0).getNodes().keySet().iterator().next();
+        assertThat(second.getSubtopologies().get(0).getNodes().keySet().iterator().next()).isSameAs(name);
+    }
+
+    @Test
+    void shouldShareTopicPatternsThroughSymbolTable() throws IOException {
+        SymbolTable symbols = new SymbolTable();
+        TopologyJsonParser sharingParser = new TopologyJsonParser(symbols);
+        String json = formatter.format(new TopologyTextParser(ParseMode.LENIENT, null, symbols).parse("""
+                Topologies:
+                   Sub-topology: 0
+                    Source: src (topics: orders-.*)
+                """));
+
+        Topology first = sharingParser.parse(json);
+        Topology second = sharingParser.parse(json);
+
+        String pattern = first.findNode("src").orElseThrow().getTopicPattern();
+        assertThat(pattern).isEqualTo("orders-.*");
+        assertThat(second.findNode("src").orElseThrow().getTopicPattern()).isSameAs(pattern);
+    }
+
+    @Test
+    void shouldReportPositionOfErrors() {
+        assertThatThrownBy(() -> parser.parse("{\n  \"subtopologies\": [\n    {\"nodes\": []}\n  ]\n}"))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Invalid topology JSON at line 3, column 18: Sub-topology without id");
+        assertThatThrownBy(() -> parser.parse("{\"subtopologies\": [{\"id\": 1.5}]}"))
+                .hasMessageContaining("Expected an integer");
+        assertThatThrownBy(() -> parser.parse("{\"globalStores\": [{\"name\": \"n\", \"type\": \"BOGUS\"}]}"))
+                .hasMessageContaining("Unknown node type: BOGUS");
+        assertThatThrownBy(() -> parser.parse("{\"globalStores\": [{\"name\": \"n\", \"type\": \"SOURCE\"}]}"))
+                .hasMessageContaining("must be of type GLOBAL_STORE");
+        assertThatThrownBy(() -> parser.parse("{\"subtopologies\": [] \"globalStores\": []}"))
+                .hasMessageContaining("Expected ',' or '}'");
+        assertThatThrownBy(() -> parser.parse("{\"subtopologies\": [{\"id\": 1, \"nodes\": [{\"name\": \"x"))
+                .hasMessageContaining("Unterminated string");
+        assertThatThrownBy(() -> parser.parse("{} {}"))
+                .hasMessageContaining("Unexpected content after the topology");
+    }
+}
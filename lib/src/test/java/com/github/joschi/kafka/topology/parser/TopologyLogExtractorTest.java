@@ -0,0 +1,130 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.Topology;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopologyLogExtractorTest {
+
+    private TopologyLogExtractor extractor;
+    private Topology expected;
+    private String topologyText;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        extractor = new TopologyLogExtractor();
+        topologyText = Files.readString(Path.of("src/test/resources", "example3.txt"));
+        expected = new TopologyTextParser().parse(topologyText);
+    }
+
+    @Test
+    void shouldExtractTopologyWithUnprefixedContinuationLines() throws IOException {
+        String log = "2025-03-01 12:00:00.000  INFO 1 --- [main] o.a.k.s.KafkaStreams : State transition from CREATED to REBALANCING\n"
+                     + "2025-03-01 12:00:00.001  INFO 1 --- [main] c.e.StreamsApp : " + topologyText
+                     + "2025-03-01 12:00:00.002  INFO 1 --- [main] c.e.StreamsApp : Started StreamsApp in 1.2 seconds\n";
+
+        List<Topology> topologies = extractor.extract(log);
+
+        assertThat(topologies).containsExactly(expected);
+    }
+
+    @Test
+    void shouldStripPerLinePrefixesAndAnsiColours() throws IOException {
+        String prefix = "\u001B[2m2025-03-01T12:00:00.000Z\u001B[0m \u001B[32m INFO\u001B[0m [stream-thread-1] c.e.App - ";
+        String log = "unrelated line\n"
+                     + topologyText.lines()
+                             .map(line -> prefix + "\u001B[36m" + line + "\u001B[0m")
+                             .collect(Collectors.joining("\n", "", "\n"))
+                     + "[stream-thread-1] c.e.App - done\n";
+
+        assertThat(extractor.extract(log)).containsExactly(expected);
+        assertThat(extractor.extract(new StringReader(log))).containsExactly(expected);
+    }
+
+    @Test
+    void shouldKeepNonAsciiNamesOfColouredLinesInMappedFiles(@TempDir Path tempDir) throws IOException {
+        String log = """
+                Topologies:
+                   Sub-topology: 0
+                    Source: quelle-ä (topics: [töpic])
+                      --> none
+                """.lines()
+                .map(line -> "\u001B[32m INFO\u001B[0m c.e.App - \u001B[36m" + line + "\u001B[0m")
+                .collect(Collectors.joining("\n", "", "\n"));
+        Path path = tempDir.resolve("application.log");
+        Files.writeString(path, log);
+
+        List<Topology> topologies = extractor.extract(path);
+
+        assertThat(topologies).containsExactlyElementsOf(extractor.extract(log));
+        assertThat(topologies.get(0).findNode("quelle-ä").orElseThrow().getTopics()).containsExactly("töpic");
+        assertThat(extractor.extractParallel(path, 2, 1)).containsExactlyElementsOf(topologies);
+    }
+
+    @Test
+    void shouldExtractMultipleTopologiesFromLogFile(@TempDir Path tempDir) throws IOException {
+        String example2 = Files.readString(Path.of("src/test/resources", "example2.txt"));
+        String log = "first start\n" + topologyText + "some more logging\n"
+                     + "second start\n" + example2 + "\n\nshutdown\n";
+        Path path = tempDir.resolve("application.log");
+        Files.writeString(path, log);
+
+        List<Topology> topologies = extractor.extract(path);
+
+        assertThat(topologies).containsExactly(expected, new TopologyTextParser().parse(example2));
+    }
+
+    @Test
+    void shouldReturnNothingForLogsWithoutTopology() throws IOException {
+        assertThat(extractor.extract("INFO Source: not a topology\nINFO --> nothing\n")).isEmpty();
+    }
+
+    @Test
+    void shouldExtractInParallelLikeSequentially(@TempDir Path tempDir) throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            log.append("2025-03-01 12:00:").append(i % 60).append(" INFO [main] c.e.App : starting ").append(i).append('\n');
+            log.append("2025-03-01 12:00:").append(i % 60).append(" INFO [main] c.e.App : ").append(topologyText);
+        }
+        Path path = tempDir.resolve("application.log");
+        Files.writeString(path, log);
+
+        List<Topology> sequential = extractor.extract(path);
+        assertThat(sequential).hasSize(200);
+        // Chunk sizes not dividing the dumps evenly put chunk boundaries at arbitrary lines inside them
+        for (long minChunkSize : new long[] {1, 97, 4096}) {
+            for (int threads : new int[] {2, 3, 7}) {
+                assertThat(extractor.extractParallel(path, threads, minChunkSize)).containsExactlyElementsOf(sequential);
+            }
+        }
+    }
+
+    @Test
+    void shouldExtractFromGzipCompressedLog(@TempDir Path tempDir) throws IOException {
+        String log = "starting\n" + topologyText + "done\n";
+        Path path = tempDir.resolve("application.log.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(path))) {
+            outputStream.write(log.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(extractor.extract(path)).containsExactly(expected);
+        assertThat(extractor.extractParallel(path, 4, 1)).containsExactly(expected);
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            assertThat(extractor.extract(inputStream, StandardCharsets.UTF_8)).containsExactly(expected);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import com.github.joschi.kafka.topology.model.TopologySubtopology;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopologySnapshotTest {
+
+    private final TopologySnapshotWriter writer = new TopologySnapshotWriter();
+    private final TopologySnapshotReader reader = new TopologySnapshotReader();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"example1.txt", "example2.txt", "example3.txt"})
+    void shouldRoundTripExamples(String filename) throws IOException {
+        Topology topology = new TopologyTextParser().parse(Path.of("src/test/resources", filename));
+
+        byte[] snapshot = writer.toByteArray(topology);
+
+        assertThat(snapshot.length).isLessThan((int) Files.size(Path.of("src/test/resources", filename)));
+        Topology loaded = reader.read(snapshot);
+        assertThat(loaded).isEqualTo(topology);
+        assertThat(loaded.getSubtopologies().keySet()).containsExactlyElementsOf(topology.getSubtopologies().keySet());
+        assertThat(loaded.getTopics().keySet()).containsExactlyElementsOf(topology.getTopics().keySet());
+    }
+
+    @Test
+    void shouldRoundTripGlobalStoresPatternsAndNegativeIds(@TempDir Path tempDir) throws IOException {
+        Map<String, TopologyNode> nodes = new LinkedHashMap<>();
+        nodes.put("source", TopologyNode.builder("source", NodeType.SOURCE)
+                .topicPattern("events-.*")
+                .successors(Set.of("a", "b", "c"))
+                .build());
+        Topology topology = Topology.builder()
+                .addSubtopology(new TopologySubtopology(-3, nodes))
+                .addSubtopology(new TopologySubtopology(300, Map.of()))
+                .addGlobalStore(TopologyNode.builder("global", NodeType.GLOBAL_STORE)
+                        .topics(Set.of("global-tōpic"))
+                        .build())
+                .build();
+        Path file = tempDir.resolve("topology.snapshot");
+
+        writer.write(topology, file);
+
+        Topology loaded = reader.read(file);
+        assertThat(loaded).isEqualTo(topology);
+        assertThat(loaded.getSubtopologies().get(-3).getNodes().get("source").getTopicPattern()).isEqualTo("events-.*");
+    }
+
+    @Test
+    void shouldShareNamesWithinAndAcrossSnapshots() throws IOException {
+        SymbolTable symbols = new SymbolTable();
+        TopologySnapshotReader sharingReader = new TopologySnapshotReader(symbols);
+        byte[] snapshot = writer.toByteArray(new TopologyTextParser().parse(Path.of("src/test/resources/example1.txt")));
+
+        Topology first = sharingReader.read(new ByteArrayInputStream(snapshot));
+        Topology second = sharingReader.read(snapshot);
+
+        TopologySubtopology subtopology = first.getSubtopologies().get(0);
+        String sinkTopic = subtopology.getNodes().get("KSTREAM-SINK-0000000004").getTopics().iterator().next();
+        String sourceTopic = first.getSubtopologies().get(1).getNodes().values().iterator().next()
+                .getTopics().iterator().next();
+        assertThat(sourceTopic).isSameAs(sinkTopic);
+        assertThat(second.getSubtopologies().get(0).getNodes().keySet().iterator().next())
+                .isSameAs(subtopology.getNodes().keySet().iterator().next());
+    }
+
+    @Test
+    void shouldRejectInvalidSnapshots() throws IOException {
+        byte[] snapshot = writer.toByteArray(new TopologyTextParser().parse(Path.of("src/test/resources/example2.txt")));
+
+        assertThatThrownBy(() -> reader.read("Topologies:".getBytes()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Not a topology snapshot");
+        assertThatThrownBy(() -> reader.read(Arrays.copyOf(snapshot, snapshot.length / 2)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("topology snapshot");
+        assertThatThrownBy(() -> reader.read(Arrays.copyOf(snapshot, snapshot.length + 1)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("unexpected data");
+
+        byte[] future = snapshot.clone();
+        future[4] = 2;
+        assertThatThrownBy(() -> reader.read(future))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unsupported topology snapshot version 2, expected at most 1");
+    }
+
+    @Test
+    void shouldDetectSnapshots() {
+        assertThat(TopologySnapshotReader.isSnapshot(writer.toByteArray(Topology.builder().build()))).isTrue();
+        assertThat(TopologySnapshotReader.isSnapshot("Topologies:".getBytes())).isFalse();
+        assertThat(TopologySnapshotReader.isSnapshot(new byte[0])).isFalse();
+    }
+}
@@ -6,11 +6,24 @@ import com.github.joschi.kafka.topology.model.TopologyNode;
 import com.github.joschi.kafka.topology.model.TopologySubtopology;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -227,8 +240,102 @@ class TopologyTextParserIntegrationTest {
         assertThat(parser.parse(topology2).getSubtopologies()).isNotEmpty();
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"example1.txt", "example2.txt", "example3.txt"})
+    void shouldParseStreamedInputLikeString(String filename) throws IOException {
+        Path path = Path.of("src/test/resources", filename);
+        Topology expected = parser.parse(readResourceFile(filename));
+
+        assertThat(parser.parse(path)).isEqualTo(expected);
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            assertThat(parser.parse(inputStream, StandardCharsets.UTF_8)).isEqualTo(expected);
+        }
+        // A reader returning only a few characters at a time splits lines across reads
+        try (Reader reader = new TrickleReader(Files.newBufferedReader(path), 3)) {
+            assertThat(parser.parse(reader)).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"example1.txt", "example2.txt", "example3.txt"})
+    void shouldParseMappedFileLikeString(String filename) throws IOException {
+        Path path = Path.of("src/test/resources", filename);
+        Topology expected = parser.parse(readResourceFile(filename));
+
+        assertThat(parser.parseMapped(path)).isEqualTo(expected);
+        // Small mapping windows force lines to be carried over into the next window
+        assertThat(parser.parseMapped(path, 256)).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldLazilyParseConcatenatedTopologies(@TempDir Path tempDir) throws IOException {
+        String example2 = readResourceFile("example2.txt");
+        String example3 = readResourceFile("example3.txt");
+        // example1.txt has no "Topologies:" header and becomes the first dump
+        String concatenated = readResourceFile("example1.txt") + example2 + "\nsome log line\n" + example3 + example2;
+        List<Topology> expected = List.of(
+                parser.parse(readResourceFile("example1.txt")),
+                parser.parse(example2),
+                parser.parse(example3),
+                parser.parse(example2));
+
+        assertThat(parser.parseAll(concatenated)).containsExactlyElementsOf(expected);
+        assertThat(parser.parseAll(concatenated).parallel().collect(Collectors.toList())).containsExactlyElementsOf(expected);
+
+        List<Topology> iterated = new ArrayList<>();
+        parser.iterateAll(new StringReader(concatenated)).forEachRemaining(iterated::add);
+        assertThat(iterated).containsExactlyElementsOf(expected);
+
+        Path path = tempDir.resolve("topologies.txt");
+        Files.writeString(path, concatenated);
+        try (Stream<Topology> topologies = parser.parseAll(path)) {
+            assertThat(topologies.parallel().collect(Collectors.toList())).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void shouldSplitConcatenatedTopologiesForParallelStreams() throws IOException {
+        String example3 = readResourceFile("example3.txt");
+        String concatenated = example3.repeat(64);
+
+        Spliterator<Topology> spliterator = parser.parseAll(concatenated).spliterator();
+        Spliterator<Topology> prefix = spliterator.trySplit();
+
+        assertThat(prefix).isNotNull();
+        List<Topology> topologies = new ArrayList<>();
+        prefix.forEachRemaining(topologies::add);
+        spliterator.forEachRemaining(topologies::add);
+        assertThat(topologies).hasSize(64).containsOnly(parser.parse(example3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"example1.txt", "example2.txt", "example3.txt"})
+    void shouldParseExamplesInStrictModeWithoutDiagnostics(String filename) throws IOException {
+        List<ParseDiagnostic> diagnostics = new ArrayList<>();
+        TopologyTextParser strictParser = new TopologyTextParser(ParseMode.STRICT, diagnostics::add);
+
+        Topology topology = strictParser.parse(readResourceFile(filename));
+
+        assertThat(diagnostics).isEmpty();
+        assertThat(topology).isEqualTo(parser.parse(readResourceFile(filename)));
+    }
+
     private String readResourceFile(String filename) throws IOException {
         Path path = Path.of("src/test/resources", filename);
         return Files.readString(path);
     }
+
+    private static final class TrickleReader extends FilterReader {
+        private final int maxChars;
+
+        private TrickleReader(Reader in, int maxChars) {
+            super(in);
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, maxChars));
+        }
+    }
 }
@@ -0,0 +1,414 @@
+package com.github.joschi.kafka.topology.parser;
+
+import com.github.joschi.kafka.topology.model.NodeType;
+import com.github.joschi.kafka.topology.model.Topology;
+import com.github.joschi.kafka.topology.model.TopologyNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+class TopologyTextParserTest {
+
+    private TopologyTextParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new TopologyTextParser();
+    }
+
+    @Test
+    void shouldParseGlobalStoreSubtopology() throws IOException {
+        String topologyText = """
+                Topologies:
+                   Sub-topology: 0 for global store (will not generate tasks)
+                    Source: KSTREAM-SOURCE-0000000000 (topics: [global-topic])
+                      --> KTABLE-SOURCE-0000000001
+                    Processor: KTABLE-SOURCE-0000000001 (stores: [global-store])
+                      --> none
+                      <-- KSTREAM-SOURCE-0000000000
+                  Sub-topology: 1
+                    Source: KSTREAM-SOURCE-0000000002 (topics: [input-topic])
+                      --> KSTREAM-SINK-0000000003
+                    Sink: KSTREAM-SINK-0000000003 (topic: output-topic)
+                      <-- KSTREAM-SOURCE-0000000002
+                """;
+
+        Topology topology = parser.parse(topologyText);
+
+        assertThat(topology.getSubtopologies()).containsOnlyKeys(1);
+        assertThat(topology.getGlobalStores()).containsOnlyKeys("KTABLE-SOURCE-0000000001");
+        TopologyNode globalStore = topology.getGlobalStores().get("KTABLE-SOURCE-0000000001");
+        assertThat(globalStore.getType()).isEqualTo(NodeType.GLOBAL_STORE);
+        assertThat(globalStore.getTopics()).containsExactly("global-topic");
+        assertThat(topology.getTopics()).containsKeys("global-topic", "input-topic", "output-topic");
+    }
+
+    @Test
+    void shouldParseListsWithIrregularWhitespace() throws IOException {
+        String topologyText = "Sub-topology: 7\r\n"
+                              + "\tSource:   multi-source   (topics: [ a ,b,  c ])\r\n"
+                              + "\t-->  proc-1 ,  proc-2\r\n"
+                              + "\tProcessor: proc-1 (stores: [store-1,store-2])\r\n"
+                              + "\t<-- multi-source\r\n"
+                              + "\tProcessor: proc-2 (stores: [])\r\n"
+                              + "\t--> none\r\n"
+                              + "\t<-- multi-source";
+
+        Topology topology = parser.parse(topologyText);
+
+        TopologyNode source = topology.getSubtopologies().get(7).getNodes().get("multi-source");
+        assertThat(source.getTopics()).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(source.getSuccessors()).containsExactlyInAnyOrder("proc-1", "proc-2");
+
+        TopologyNode processor1 = topology.getSubtopologies().get(7).getNodes().get("proc-1");
+        assertThat(processor1.getStores()).containsExactlyInAnyOrder("store-1", "store-2");
+        assertThat(processor1.getPredecessors()).containsExactly("multi-source");
+
+        TopologyNode processor2 = topology.getSubtopologies().get(7).getNodes().get("proc-2");
+        assertThat(processor2.getStores()).isEmpty();
+        assertThat(processor2.getSuccessors()).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreUnknownLines() throws IOException {
+        String topologyText = """
+                Topologies:
+                   Sub-topology: 0
+                    Source: source (topics: [input-topic])
+                      --> sink
+                    Something completely different
+                    Sink: sink (topic: output-topic)
+                      <-- source
+                """;
+
+        Topology topology = parser.parse(topologyText);
+
+        assertThat(topology.getSubtopologies().get(0).getNodes()).containsOnlyKeys("source", "sink");
+    }
+
+    @Test
+    void shouldReconcileSuccessorAndPredecessorDeclarations() throws IOException {
+        // "a --> b" is only declared on a, "c <-- b" is only declared on c
+        String topologyText = """
+                Sub-topology: 0
+                  Source: a (topics: [input])
+                    --> b
+                  Processor: b (stores: [])
+                    --> none
+                    <-- none
+                  Sink: c (topic: output)
+                    <-- b
+                """;
+
+        Topology topology = parser.parse(topologyText);
+
+        Map<String, TopologyNode> nodes = topology.getSubtopologies().get(0).getNodes();
+        assertThat(nodes).containsOnlyKeys("a", "b", "c");
+        assertThat(nodes.get("a").getSuccessors()).containsExactly("b");
+        assertThat(nodes.get("b").getType()).isEqualTo(NodeType.PROCESSOR);
+        assertThat(nodes.get("b").getPredecessors()).containsExactly("a");
+        assertThat(nodes.get("b").getSuccessors()).containsExactly("c");
+        assertThat(nodes.get("c").getPredecessors()).containsExactly("b");
+    }
+
+    @Test
+    void shouldKeepEdgesOfPlaceholderWhenNodeIsDeclared() throws IOException {
+        String topologyText = """
+                Sub-topology: 0
+                  Source: a (topics: [input])
+                    --> b
+                  Sink: b (topic: output)
+                """;
+
+        Topology topology = parser.parse(topologyText);
+
+        TopologyNode sink = topology.getSubtopologies().get(0).getNodes().get("b");
+        assertThat(sink.getType()).isEqualTo(NodeType.SINK);
+        assertThat(sink.getTopics()).containsExactly("output");
+        assertThat(sink.getPredecessors()).containsExactly("a");
+    }
+
+    @Test
+    void shouldParseLargeFanInInLinearTime() throws IOException {
+        int inputs = 10_000;
+        String topologyText = fanInTopology(inputs);
+        // Warm up the parser so the timed run measures the algorithm rather than class loading and JIT
+        parser.parse(fanInTopology(100));
+
+        Topology topology = assertTimeout(Duration.ofSeconds(2), () -> parser.parse(topologyText));
+
+        Map<String, TopologyNode> nodes = topology.getSubtopologies().get(0).getNodes();
+        assertThat(nodes).hasSize(inputs + 1);
+        assertThat(nodes.get("merge").getPredecessors()).hasSize(inputs);
+        assertThat(nodes.get("source-" + (inputs - 1)).getSuccessors()).containsExactly("merge");
+    }
+
+    @Test
+    void shouldParseLinesLongerThanReadBuffer() throws IOException {
+        // The predecessor line of the merge node is far longer than the initial read buffer
+        String topologyText = fanInTopology(5_000);
+
+        Topology topology = parser.parse(new StringReader(topologyText));
+
+        assertThat(topology).isEqualTo(parser.parse(topologyText));
+        assertThat(topology.getSubtopologies().get(0).getNodes().get("merge").getPredecessors()).hasSize(5_000);
+    }
+
+    @Test
+    void shouldDecodeUtf8NamesFromMappedFile(@TempDir Path tempDir) throws IOException {
+        String topologyText = """
+                Sub-topology: 0
+                  Source: quelle-äöü (topics: [eingabe-€])
+                    --> none
+                """;
+        Path path = tempDir.resolve("topology.txt");
+        Files.writeString(path, topologyText, StandardCharsets.UTF_8);
+
+        Topology topology = parser.parseMapped(path);
+
+        assertThat(topology.getSubtopologies().get(0).getNodes().get("quelle-äöü").getTopics())
+                .containsExactly("eingabe-€");
+    }
+
+    @Test
+    void shouldRejectLinesLongerThanMappingWindow(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("topology.txt");
+        Files.writeString(path, fanInTopology(100), StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> parser.parseMapped(path, 64))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds the mapping window");
+    }
+
+    @Test
+    void shouldParseInParallelLikeSequentially() throws IOException {
+        String topologyText = chainedTopology(2_000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Topology topology = parser.parseParallel(topologyText, pool);
+
+            Topology expected = parser.parse(topologyText);
+            assertThat(topology).isEqualTo(expected);
+            assertThat(topology.getSubtopologies().keySet()).containsExactlyElementsOf(expected.getSubtopologies().keySet());
+            assertThat(topology.getGlobalStores().keySet()).containsExactlyElementsOf(expected.getGlobalStores().keySet());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldDetectGzipCompressedInput(@TempDir Path tempDir) throws IOException {
+        // Large enough for the inflater to hand over many chunks
+        String topologyText = chainedTopology(5_000);
+        Path plain = tempDir.resolve("topology.txt");
+        Path compressed = tempDir.resolve("topology.txt.gz");
+        Files.writeString(plain, topologyText, StandardCharsets.UTF_8);
+        Files.write(compressed, gzip(topologyText));
+        Topology expected = parser.parse(topologyText);
+
+        assertThat(parser.parse(compressed)).isEqualTo(expected);
+        assertThat(parser.parseMapped(compressed)).isEqualTo(expected);
+        assertThat(parser.parse(new ByteArrayInputStream(gzip(topologyText)), StandardCharsets.UTF_8)).isEqualTo(expected);
+        assertThat(parser.parse(plain)).isEqualTo(expected);
+        try (Stream<Topology> topologies = parser.parseAll(compressed)) {
+            assertThat(topologies).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void shouldNotInterruptSourceWhenClosingGzipInputEarly() throws Exception {
+        byte[] compressed = gzip(chainedTopology(5_000));
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        // Blocks like a slow channel after the first bytes; an interrupt would close an interruptible channel
+        InputStream source = new FilterInputStream(new ByteArrayInputStream(compressed)) {
+            private int served;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (served >= 4096) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                        throw new InterruptedIOException();
+                    }
+                }
+                int count = super.read(b, off, Math.min(len, 4096));
+                served += Math.max(count, 0);
+                return count;
+            }
+        };
+        InputStream inflated = GzipInput.decompressIfGzipped(source);
+        blocked.await();
+
+        Thread closer = new Thread(() -> {
+            try {
+                inflated.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        closer.start();
+        closer.join(200);
+        release.countDown();
+        closer.join();
+
+        assertThat(interrupted).isFalse();
+    }
+
+    @Test
+    void shouldReportCorruptGzipInput() {
+        byte[] compressed = gzip(chainedTopology(100));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+        assertThatThrownBy(() -> parser.parse(new ByteArrayInputStream(truncated), StandardCharsets.UTF_8))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldReportProblemsAndResyncAtNextNode() throws IOException {
+        String topologyText = """
+                Topologies:
+                   Sub-topology: 0
+                    Source: source (topics: [input])
+                      --> broken
+                    Processor:  (stores: [])
+                      --> sink
+                      <-- source
+                    Sink: sink (topic: output)
+                      <-- source
+                    Something completely different
+                    Processor: unterminated (stores: [a, b)
+                """;
+        List<ParseDiagnostic> diagnostics = new ArrayList<>();
+        TopologyTextParser lenientParser = new TopologyTextParser(ParseMode.LENIENT, diagnostics::add);
+
+        Topology topology = lenientParser.parse(topologyText);
+
+        assertThat(diagnostics).extracting(ParseDiagnostic::getLine, ParseDiagnostic::getColumn, ParseDiagnostic::getReason)
+                .containsExactly(
+                        tuple(5, 17, "Missing node name"),
+                        tuple(10, 5, "Unrecognised line"),
+                        tuple(11, 38, "Unterminated list"));
+        assertThat(diagnostics.get(0).getSnippet()).isEqualTo("Processor:  (stores: [])");
+        // The edges of the broken processor are not attached to the source declared before it
+        Map<String, TopologyNode> nodes = topology.getSubtopologies().get(0).getNodes();
+        assertThat(nodes.get("source").getSuccessors()).containsExactlyInAnyOrder("broken", "sink");
+        assertThat(nodes.get("source").getPredecessors()).isEmpty();
+        assertThat(nodes.get("sink").getPredecessors()).containsExactly("source");
+    }
+
+    @Test
+    void shouldFailOnProblemsInStrictMode() {
+        String topologyText = """
+                Sub-topology: x
+                  Source: source (topics: [input])
+                    --> none
+                """;
+        TopologyTextParser strictParser = new TopologyTextParser(ParseMode.STRICT);
+
+        assertThatThrownBy(() -> strictParser.parse(topologyText))
+                .isInstanceOfSatisfying(TopologyParseException.class, e -> assertThat(e.getDiagnostics())
+                        .extracting(ParseDiagnostic::getLine, ParseDiagnostic::getReason)
+                        .containsExactly(tuple(1, "Invalid sub-topology id")))
+                .hasMessage("Invalid topology at line 1, column 15: Invalid sub-topology id: Sub-topology: x");
+    }
+
+    @Test
+    void shouldNumberLinesOfParallelParseLikeSequentially() throws IOException {
+        String topologyText = chainedTopology(500).replace("Sink: sink-251 ", "Sink: ");
+        List<ParseDiagnostic> sequential = new ArrayList<>();
+        List<ParseDiagnostic> parallel = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new TopologyTextParser(ParseMode.LENIENT, sequential::add).parse(topologyText);
+            new TopologyTextParser(ParseMode.LENIENT, parallel::add).parseParallel(topologyText, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(sequential).hasSize(1);
+        assertThat(parallel).usingRecursiveFieldByFieldElementComparator().isEqualTo(sequential);
+    }
+
+    private static byte[] gzip(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String chainedTopology(int subtopologies) {
+        StringBuilder sb = new StringBuilder("Topologies:\n");
+        for (int i = 0; i < subtopologies; i++) {
+            if (i % 100 == 50) {
+                sb.append("   Sub-topology: ").append(i).append(" for global store (will not generate tasks)\n");
+                sb.append("    Source: global-source-").append(i).append(" (topics: [global-").append(i).append("])\n");
+                sb.append("      --> global-processor-").append(i).append('\n');
+                sb.append("    Processor: global-processor-").append(i).append(" (stores: [global-store-").append(i).append("])\n");
+                sb.append("      --> none\n");
+                sb.append("      <-- global-source-").append(i).append('\n');
+                continue;
+            }
+            sb.append("   Sub-topology: ").append(i).append('\n');
+            sb.append("    Source: source-").append(i).append(" (topics: [topic-").append(i).append("])\n");
+            sb.append("      --> processor-").append(i).append('\n');
+            sb.append("    Processor: processor-").append(i).append(" (stores: [store-").append(i).append("])\n");
+            sb.append("      --> sink-").append(i).append('\n');
+            sb.append("      <-- source-").append(i).append('\n');
+            sb.append("    Sink: sink-").append(i).append(" (topic: topic-").append(i + 1).append(")\n");
+            sb.append("      <-- processor-").append(i).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static String fanInTopology(int inputs) {
+        StringBuilder sb = new StringBuilder("Topologies:\n   Sub-topology: 0\n");
+        StringBuilder predecessors = new StringBuilder();
+        for (int i = 0; i < inputs; i++) {
+            sb.append("    Source: source-").append(i).append(" (topics: [topic-").append(i).append("])\n");
+            sb.append("      --> merge\n");
+            if (i > 0) {
+                predecessors.append(", ");
+            }
+            predecessors.append("source-").append(i);
+        }
+        sb.append("    Processor: merge (stores: [])\n");
+        sb.append("      --> none\n");
+        sb.append("      <-- ").append(predecessors).append('\n');
+        return sb.toString();
+    }
+}